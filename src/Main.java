@@ -1,4 +1,12 @@
 import jab.GUI;
+import jab.models.Appointment;
+import jab.models.BookValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Arrays;
 
 /**
  * Main class for JAB.
@@ -8,13 +16,64 @@ import jab.GUI;
  */
 public class Main {
 
+    private static final String VALIDATE_OPTION = "--validate";
+    private static final String VIEW_OPTION = "--view";
+    private static final String AUTOSAVE_OPTION = "--autosave";
+
     /**
      * Entry point for JAB.
      *
-     * @param args use args[0] to pass a filename
+     * @param args use args[0] to pass a filename and args[1] to pass its
+     *             time-zone, {@code --validate filename [zone]} to check a
+     *             file without loading it or {@code --view filename} to browse
+     *             it read-only; {@code --autosave} before the filename saves
+     *             the book in background
      */
     public static void main(String[] args) {
+        if (args.length > 1 && VALIDATE_OPTION.equals(args[0])) {
+            System.exit(validate(args[1], args.length > 2 ? args[2] : Appointment.DEFAULT_ZONE.getId()));
+        }
+        if (args.length > 1 && VIEW_OPTION.equals(args[0])) {
+            new GUI(Arrays.copyOfRange(args, 1, args.length), true).start();
+            return;
+        }
+        if (args.length > 0 && AUTOSAVE_OPTION.equals(args[0])) {
+            GUI gui = new GUI(Arrays.copyOfRange(args, 1, args.length));
+            gui.enableAutoSave();
+            gui.start();
+            return;
+        }
         GUI gui = new GUI(args);
         gui.start();
     }
+
+    /**
+     * Validates a book file printing every problem found.
+     *
+     * @param filename the name of the file to be validated
+     * @param zone     the time-zone of the file
+     * @return the exit status: 0 if the file is valid, 2 if it is not, 1 on I/O
+     * errors or unknown time-zone
+     */
+    private static int validate(String filename, String zone) {
+        try {
+            BookValidator.Result result = new BookValidator(new File(filename), BookValidator.DEFAULT_RUN_SIZE, ZoneId.of(zone)).validate(new BookValidator.Listener() {
+                @Override
+                public void parseError(long line, String message) {
+                    System.out.println("Line " + line + ": " + message);
+                }
+
+                @Override
+                public void overlap(long line, long otherLine) {
+                    System.out.println("Line " + line + ": collides with line " + otherLine);
+                }
+            });
+            System.out.println(result.getLines() + " lines, " + result.getErrors() + " errors, "
+                    + result.getOverlaps() + " collisions" + (result.isSorted() ? "" : " (unsorted)"));
+            return result.isValid() ? 0 : 2;
+        } catch (IOException | DateTimeException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+    }
 }
@@ -8,16 +8,35 @@ import de.vandermeer.skb.interfaces.document.TableRowStyle;
 import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
 import jab.jbook.util.InputUtils;
 import jab.models.Appointment;
+import jab.models.AutoSaver;
 import jab.models.Book;
+import jab.models.BookSnapshot;
+import jab.models.BookViewer;
+import jab.models.BookWatcher;
+import jab.models.CalendarAggregate;
+import jab.models.LoadReport;
+import jab.models.Query;
+import jab.models.Recurrence;
+import jab.models.RecurringAppointment;
 import org.apache.commons.lang3.SystemUtils;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.NoSuchFileException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
@@ -29,16 +48,70 @@ import java.util.logging.Logger;
 public class GUI {
 
     private static final Logger LOGGER = Logger.getLogger(GUI.class.getName());
+    private static final int PAGE_ROWS = 20;
+    private static final int FUZZY_RESULTS = 20;
+    private static final int COMPLETIONS = 5;
     private Book book;
     private boolean saved;
     private AsciiTable at;
+    private final boolean readOnly;
+    private BookViewer viewer;
+    private int page;
+    /**
+     * True if the results of the last search have already been printed.
+     */
+    private boolean shown;
+    private AutoSaver autoSaver;
+    private boolean autoSave;
+    private boolean loaded;
+    private BookWatcher watcher;
+    private final Queue<IOException> autoSaveFailures = new ConcurrentLinkedQueue<>();
 
     public GUI(String[] args) {
+        this(args, false);
+    }
+
+    /**
+     * @param args     use args[0] to pass a filename and args[1] to pass its
+     *                 time-zone
+     * @param readOnly true to browse the file without loading it, see
+     *                 {@link BookViewer}
+     */
+    public GUI(String[] args, boolean readOnly) {
+        this.readOnly = readOnly;
         setupAsciiTable();
-        book = args.length == 0 ? new Book() : new Book(args[0]);
+        if (args.length > 1) {
+            book = new Book(args[0], zoneOf(args[1]));
+        } else {
+            book = args.length == 0 ? new Book() : new Book(args[0]);
+        }
+        book.setSidecarEnabled(true);
         saved = true;
     }
 
+    /**
+     * Saves the book in background after every burst of changes. If the book
+     * has not been loaded yet, the saver is started once {@link GUI#start()}
+     * has loaded it.
+     *
+     * @see AutoSaver
+     */
+    public void enableAutoSave() {
+        autoSave = !readOnly;
+        if (autoSave && loaded && autoSaver == null) {
+            autoSaver = new AutoSaver(book, AutoSaver.DEFAULT_DELAY, TimeUnit.MILLISECONDS, autoSaveFailures::add);
+        }
+    }
+
+    private static ZoneId zoneOf(String zoneId) {
+        try {
+            return ZoneId.of(zoneId);
+        } catch (DateTimeException e) {
+            LOGGER.warning("Unknown time-zone " + zoneId + ", " + Appointment.DEFAULT_ZONE + " will be used\n");
+            return Appointment.DEFAULT_ZONE;
+        }
+    }
+
     // ======================================================
     // (START) ASCII TABLE METHODS
     // ======================================================
@@ -88,34 +161,94 @@ public class GUI {
         at.addRule();
     }
 
+    private void initAsciiTableForRules() {
+        at.getRawContent().clear();
+        at.addRule(TableRowStyle.STRONG);
+        try {
+            at.addRow("Date", "Start Time", "Duration", "Description (with)", "Place", "Repeat");
+            at.addRule(TableRowStyle.STRONG);
+        } catch (AsciiTableException e) {
+            setupAsciiTable();
+            initAsciiTableForRules();
+        }
+    }
+
+    private void initAsciiTableForReport() {
+        at.getRawContent().clear();
+        at.addRule(TableRowStyle.STRONG);
+        try {
+            at.addRow("Period", "Appointments", "Minutes");
+            at.addRule(TableRowStyle.STRONG);
+        } catch (AsciiTableException e) {
+            setupAsciiTable();
+            initAsciiTableForReport();
+        }
+    }
+
+    private void rowRule(RecurringAppointment rule) {
+        Appointment first = rule.getFirst();
+        at.addRow(first.getDate().format(Appointment.FORMATTER_DATE),
+                first.getStartTime().format(Appointment.FORMATTER_TIME),
+                first.getDuration().toMinutes(),
+                first.getDescription(),
+                first.getPlace(),
+                rule.getRecurrence());
+        at.addRule();
+    }
+
     // ======================================================
     // (END) ASCII TABLE METHODS
     // ======================================================
 
     public void start() {
+        if (readOnly) {
+            startViewer();
+            return;
+        }
         try {
-            Map<Appointment, Appointment> collisions = book.loadBookFromFile();
-            if (!collisions.isEmpty()) {
-                for (Map.Entry<Appointment, Appointment> entry : collisions.entrySet()) {
-                    initAsciiTable(false);
-                    rowAppointment(entry.getKey(), false, 0);
-                    at.addRow(null, null, null, null, "COLLIDES WITH");
-                    at.addRule();
-                    rowAppointment(entry.getValue(), false, 0);
-                    showAsciiTable();
-                }
+            List<Appointment> duplicates = new ArrayList<>();
+            LoadReport report = new LoadReport();
+            Map<Appointment, Appointment> collisions = book.loadBookFromFile(duplicates, report);
+            if (report.getErrors() > duplicates.size()) {
+                System.out.println("LINES IGNORED: " + report);
+            }
+            if (!duplicates.isEmpty()) {
+                System.out.println("DUPLICATES IGNORED: " + duplicates.size());
+                printBook(duplicates, false);
             }
+            printCollisions(collisions);
         } catch (FileNotFoundException e) {
             LOGGER.warning(e.getMessage() + "\n");
         } catch (IOException e) {
             e.getStackTrace();
             System.exit(1);
         }
+        loaded = true;
+        if (autoSave) {
+            enableAutoSave();
+        }
+        try {
+            watcher = new BookWatcher(book);
+        } catch (IOException e) {
+            LOGGER.info("Changes of " + book.getFile() + " made by other programs will not be noticed\n");
+        }
         clearScreen();
         displayLogo();
         displayMenu();
     }
 
+    private void startViewer() {
+        try {
+            viewer = new BookViewer(book.getFile());
+        } catch (IOException e) {
+            LOGGER.warning(e.getMessage() + "\n");
+            System.exit(1);
+        }
+        clearScreen();
+        displayLogo();
+        displayViewerMenu();
+    }
+
     // ======================================================
     // (START) GENERAL PURPOSE METHODS
     // ======================================================
@@ -137,8 +270,10 @@ public class GUI {
     }
 
     private void displayMenu() {
+        reportAutoSaveFailures();
+        reloadExternalChanges();
         showMenu();
-        selectAction(choose(8, false));
+        selectAction(choose(11, false));
     }
 
     private int choose(int end, boolean subMenu) {
@@ -159,6 +294,30 @@ public class GUI {
         return choice;
     }
 
+    private void displayViewerMenu() {
+        showViewerMenu();
+        selectViewerAction(choose(3, false));
+    }
+
+    private void selectViewerAction(int choice) {
+        switch (choice) {
+            case 1:
+                pageAction();
+                break;
+            case 2:
+                viewerSearchAction();
+                break;
+            case 3:
+                viewer.close();
+                System.out.println("BYE!");
+                System.exit(0);
+                break;
+            default:
+                break;
+        }
+        displayViewerMenu();
+    }
+
     private void selectAction(int choice) {
         switch (choice) {
             case 1:
@@ -177,12 +336,21 @@ public class GUI {
                 printAction();
                 break;
             case 6:
-                saveAction();
+                undoAction();
                 break;
             case 7:
-                saveAsAction();
+                redoAction();
                 break;
             case 8:
+                saveAction();
+                break;
+            case 9:
+                saveAsAction();
+                break;
+            case 10:
+                reportAction();
+                break;
+            case 11:
                 quitAction();
                 break;
             default:
@@ -195,7 +363,31 @@ public class GUI {
     // (END) GENERAL PURPOSE METHODS
     // ======================================================
 
+    private void reloadExternalChanges() {
+        if (watcher != null && watcher.hasPending()) {
+            Map<Appointment, Appointment> conflicts = watcher.applyPending();
+            System.out.println(book.getFile() + " CHANGED ON DISK, RELOADED");
+            System.out.println();
+            if (!conflicts.isEmpty()) {
+                System.out.println("CONFLICTS WITH LOCAL CHANGES: " + conflicts.size());
+                printCollisions(conflicts);
+            }
+        }
+    }
+
+    private void reportAutoSaveFailures() {
+        for (IOException e; (e = autoSaveFailures.poll()) != null; ) {
+            LOGGER.warning("Autosave failed: " + e.getMessage() + "\n");
+        }
+    }
+
     private void quitAction() {
+        if (autoSaver != null) {
+            autoSaver.close();
+            saved |= autoSaver.isSaved();
+            autoSaver = null;
+            reportAutoSaveFailures();
+        }
         if (saved) {
             System.out.println("BYE!");
             System.exit(0);
@@ -214,12 +406,41 @@ public class GUI {
                 System.exit(0);
             }
         }
+        if (autoSave) {
+            enableAutoSave();
+        }
     }
 
     // ======================================================
     // (START) EDITING METHODS FOR BOOK
     // ======================================================
 
+    /**
+     * Reads a text; while it ends with {@code ?}, suggests the completions of
+     * the text before it and lets the user choose one or type again.
+     */
+    private String readCompleted(String msg, BiFunction<String, Integer, List<String>> completions) {
+        String text = InputUtils.readString(msg);
+        while (text.endsWith("?")) {
+            List<String> found = completions.apply(text.substring(0, text.length() - 1), COMPLETIONS);
+            if (found.isEmpty()) {
+                LOGGER.info("No suggestions for " + text.substring(0, text.length() - 1) + "\n");
+            } else {
+                System.out.println();
+                for (int i = 0; i < found.size(); i++) {
+                    System.out.println("       " + (i + 1) + ". " + found.get(i));
+                }
+                System.out.println();
+                int choice = choose(found.size(), true);
+                if (choice > 0) {
+                    return found.get(choice - 1);
+                }
+            }
+            text = InputUtils.readString(msg);
+        }
+        return text;
+    }
+
     private int selectResult(List<Appointment> results) {
         printBook(results, true);
         int choice = choose(results.size(), true) - 1;
@@ -236,8 +457,8 @@ public class GUI {
                 String date = InputUtils.readString("Date[" + old.getDate().format(Appointment.FORMATTER_DATE) + "]: ");
                 String startTime = InputUtils.readString("Start Time[" + old.getStartTime().format(Appointment.FORMATTER_TIME) + "]: ");
                 String duration = InputUtils.readString("Duration (in minutes)[" + old.getDuration().toMinutes() + "]: ");
-                String description = InputUtils.readString("Description (with)[" + old.getDescription() + "]: ");
-                String place = InputUtils.readString("Place[" + old.getPlace() + "]: ");
+                String description = readCompleted("Description (with)[" + old.getDescription() + "]: ", book::completeDescription);
+                String place = readCompleted("Place[" + old.getPlace() + "]: ", book::completePlace);
                 Appointment newAppointment = book.edit(old, date, startTime, duration, description, place);
                 if (newAppointment == null) {
                     saved = false;
@@ -279,6 +500,17 @@ public class GUI {
     // (START) PRINTING METHODS FOR BOOK
     // ======================================================
 
+    private void printCollisions(Map<Appointment, Appointment> collisions) {
+        for (Map.Entry<Appointment, Appointment> entry : collisions.entrySet()) {
+            initAsciiTable(false);
+            rowAppointment(entry.getKey(), false, 0);
+            at.addRow(null, null, null, null, "COLLIDES WITH");
+            at.addRule();
+            rowAppointment(entry.getValue(), false, 0);
+            showAsciiTable();
+        }
+    }
+
     private void printCollision(Appointment appointment) {
         System.out.println("COLLIDES WITH");
         System.out.println("\tDate (dd-MM-yyyy): " + appointment.getDate().format(Appointment.FORMATTER_DATE));
@@ -292,7 +524,48 @@ public class GUI {
     private void printAction() {
         clearScreen();
         System.out.println("Main Menu > Show appointments sorted for date\n");
-        printBook(book.getSortedBook(), false);
+        BookSnapshot snapshot = book.snapshot();
+        printBook(snapshot.getSortedBook(), false);
+        List<RecurringAppointment> rules = snapshot.getRules();
+        if (!rules.isEmpty()) {
+            System.out.println("Recurring appointments\n");
+            initAsciiTableForRules();
+            for (RecurringAppointment rule : rules) {
+                rowRule(rule);
+            }
+            showAsciiTable();
+        }
+    }
+
+    private void pageAction() {
+        clearScreen();
+        if (!viewer.hasLine(page * PAGE_ROWS)) {
+            page = 0;
+        }
+        System.out.println("Main Menu > Show next page (" + (page + 1) + ")\n");
+        List<Appointment> appointments = new ArrayList<>();
+        List<RecurringAppointment> rules = new ArrayList<>();
+        for (int i = page * PAGE_ROWS; i < (page + 1) * PAGE_ROWS && viewer.hasLine(i); i++) {
+            try {
+                if (viewer.isRule(i)) {
+                    rules.add(viewer.getRule(i));
+                } else {
+                    appointments.add(viewer.get(i));
+                }
+            } catch (Exception e) {
+                LOGGER.warning("Line " + (i + 1) + ": " + e.getMessage() + "\n");
+            }
+        }
+        page++;
+        printBook(appointments, false);
+        if (!rules.isEmpty()) {
+            System.out.println("Recurring appointments\n");
+            initAsciiTableForRules();
+            for (RecurringAppointment rule : rules) {
+                rowRule(rule);
+            }
+            showAsciiTable();
+        }
     }
 
     private void printBook(List<Appointment> book, boolean search) {
@@ -321,7 +594,6 @@ public class GUI {
         System.out.println(msg + "\n");
         List<Appointment> results = search();
         if (results != null) {
-            Collections.sort(results);
             System.out.println();
             System.out.println("RESULTS FOUND: " + results.size());
             if (results.isEmpty()) {
@@ -333,28 +605,92 @@ public class GUI {
 
     private void searchAction() {
         List<Appointment> results = methodsBasedOnSearch("Main Menu > Search an existing appointment for...");
-        if (results != null && !results.isEmpty()) {
+        if (results != null && !results.isEmpty() && !shown) {
             printBook(results, false);
         }
     }
 
+    private void viewerSearchAction() {
+        clearScreen();
+        System.out.println("Main Menu > Search an existing appointment for...\n");
+        System.out.println(
+                "Options:\n" +
+                        "\n" +
+                        "       1. date\n" +
+                        "       2. description\n");
+        List<Appointment> results = null;
+        try {
+            switch (choose(2, true)) {
+                case 1:
+                    String date = InputUtils.readString("Date (dd-MM-yyyy): ");
+                    LocalDate day = LocalDate.parse(date, Appointment.FORMATTER_DATE);
+                    results = viewer.search(Book.forDate(date), day, day);
+                    break;
+                case 2:
+                    String description = InputUtils.readString("Description (with): ");
+                    results = viewer.search(Book.forDescription(description));
+                    break;
+                default:
+                    System.out.println();
+                    break;
+            }
+        } catch (Exception e) {
+            LOGGER.warning(e.getMessage() + "\n");
+        }
+        if (results != null) {
+            Collections.sort(results);
+            System.out.println();
+            System.out.println("RESULTS FOUND: " + results.size());
+            System.out.println();
+            if (!results.isEmpty()) {
+                printBook(results, false);
+            }
+        }
+    }
+
     private List<Appointment> search() {
-        List<Appointment> bookSorted = book.getSortedBook();
-        printBook(bookSorted, false);
-        if (!bookSorted.isEmpty()) {
+        BookSnapshot snapshot = book.snapshot();
+        shown = false;
+        if (snapshot.isEmpty()) {
+            printBook(Collections.emptyList(), false);
+        } else {
+            System.out.println("APPOINTMENTS: " + snapshot.size() + "\n");
             System.out.println(
                     "Options:\n" +
                             "\n" +
                             "       1. date\n" +
-                            "       2. description\n");
+                            "       2. description\n" +
+                            "       3. place\n" +
+                            "       4. similar description\n" +
+                            "       5. query (e.g. date 01-12-2018..31-12-2018 and not place \"3 Scofield Way\")\n");
             try {
-                switch (choose(2, true)) {
+                switch (choose(5, true)) {
                     case 1:
                         String date = InputUtils.readString("Date (dd-MM-yyyy): ");
-                        return book.search(Book.forDate(date));
+                        LocalDate day = LocalDate.parse(date, Appointment.FORMATTER_DATE);
+                        return sorted(book.search(Book.forDate(date), day, day));
                     case 2:
                         String description = InputUtils.readString("Description (with): ");
-                        return book.search(Book.forDescription(description));
+                        return pagedSearch(Book.forDescription(description));
+                    case 3:
+                        String place = InputUtils.readString("Place: ");
+                        String from = InputUtils.readString("From (dd-MM-yyyy)[any]: ");
+                        if (from.isEmpty()) {
+                            return sorted(book.search(place));
+                        }
+                        LocalDate first = LocalDate.parse(from, Appointment.FORMATTER_DATE);
+                        LocalDate last = LocalDate.parse(InputUtils.readString("To (dd-MM-yyyy): "), Appointment.FORMATTER_DATE);
+                        System.out.println("OCCUPANCY: " + book.occupancy(place, first, last).toMinutes() + " minutes");
+                        return sorted(book.search(place, first, last));
+                    case 4:
+                        // ranked by distance: not sorted
+                        String similar = InputUtils.readString("Description (similar to): ");
+                        return book.fuzzySearch(similar, similar.trim().length() <= 4 ? 1 : 2, FUZZY_RESULTS);
+                    case 5:
+                        Query query = Query.parse(InputUtils.readString("Query: "));
+                        System.out.println();
+                        System.out.println(book.explain(query));
+                        return sorted(book.search(query));
                     default:
                         System.out.println();
                         break;
@@ -366,6 +702,35 @@ public class GUI {
         return null;
     }
 
+    private static List<Appointment> sorted(List<Appointment> results) {
+        Collections.sort(results);
+        return results;
+    }
+
+    /**
+     * Reads and prints the results of {@code filter} one page at a time, as
+     * long as the user asks for more.
+     */
+    private List<Appointment> pagedSearch(Predicate<Appointment> filter) {
+        List<Appointment> results = new ArrayList<>();
+        List<Appointment> page = book.search(filter, Book.SortOrder.START, 0, PAGE_ROWS + 1);
+        shown = true;
+        while (page.size() > PAGE_ROWS) {
+            results.addAll(page.subList(0, PAGE_ROWS));
+            printBook(page.subList(0, PAGE_ROWS), false);
+            String choice = InputUtils.readString("RESULTS FOUND SO FAR: " + results.size() + ". Load more? [y/N] ");
+            if (!choice.toLowerCase().matches("y|yes")) {
+                return results;
+            }
+            page = book.searchAfter(filter, results.get(results.size() - 1), PAGE_ROWS + 1);
+        }
+        results.addAll(page);
+        if (!page.isEmpty()) {
+            printBook(page, false);
+        }
+        return results;
+    }
+
     // ======================================================
     // (END) SEARCHING METHODS FOR BOOK
     // ======================================================
@@ -403,17 +768,88 @@ public class GUI {
     // (END) SAVING METHODS FOR BOOK
     // ======================================================
 
+    private void reportAction() {
+        clearScreen();
+        System.out.println("Main Menu > Report booked minutes per period\n");
+        try {
+            LocalDate from = LocalDate.parse(InputUtils.readString("From (dd-MM-yyyy): "), Appointment.FORMATTER_DATE);
+            LocalDate to = LocalDate.parse(InputUtils.readString("To (dd-MM-yyyy): "), Appointment.FORMATTER_DATE);
+            System.out.println(
+                    "Options:\n" +
+                            "\n" +
+                            "       1. day\n" +
+                            "       2. week\n" +
+                            "       3. month\n");
+            ChronoUnit unit;
+            switch (choose(3, true)) {
+                case 1:
+                    unit = ChronoUnit.DAYS;
+                    break;
+                case 2:
+                    unit = ChronoUnit.WEEKS;
+                    break;
+                case 3:
+                    unit = ChronoUnit.MONTHS;
+                    break;
+                default:
+                    System.out.println();
+                    return;
+            }
+            initAsciiTableForReport();
+            for (Map.Entry<LocalDate, CalendarAggregate> entry : book.aggregates(from, to, unit).entrySet()) {
+                at.addRow(entry.getKey().format(Appointment.FORMATTER_DATE), entry.getValue().getCount(), entry.getValue().getMinutes());
+                at.addRule();
+            }
+            CalendarAggregate total = book.aggregate(from, to);
+            at.addRow("TOTAL", total.getCount(), total.getMinutes());
+            at.addRule(TableRowStyle.STRONG);
+            showAsciiTable();
+        } catch (Exception e) {
+            LOGGER.warning(e.getMessage() + "\n");
+        }
+    }
+
+    private void undoAction() {
+        clearScreen();
+        System.out.println("Main Menu > Undo\n");
+        if (book.undo()) {
+            saved = false;
+            System.out.println("UNDO: DONE!\n");
+        } else {
+            LOGGER.info("Nothing to undo\n");
+        }
+    }
+
+    private void redoAction() {
+        clearScreen();
+        System.out.println("Main Menu > Redo\n");
+        if (book.redo()) {
+            saved = false;
+            System.out.println("REDO: DONE!\n");
+        } else {
+            LOGGER.info("Nothing to redo\n");
+        }
+    }
+
     private void addAction() {
         clearScreen();
         System.out.println("Main Menu > Insert a new appointment\n");
-        System.out.println("* = required\n");
+        System.out.println("* = required, end a description or a place with ? for suggestions\n");
         try {
             String date = InputUtils.readString("Date* (dd-MM-yyyy): ");
             String startTime = InputUtils.readString("Start Time* (HH-mm): ");
             int duration = InputUtils.readInt("Duration* (in minutes): ");
-            String description = InputUtils.readString("Description* (with): ");
-            String place = InputUtils.readString("Place*: ");
-            Appointment appointment = book.add(date, startTime, duration, description, place);
+            String description = readCompleted("Description* (with): ", book::completeDescription);
+            String place = readCompleted("Place*: ", book::completePlace);
+            String repeat = InputUtils.readString("Repeat (daily, weekly, monthly)[never]: ");
+            Appointment appointment;
+            if (repeat.isEmpty()) {
+                appointment = book.add(date, startTime, duration, description, place);
+            } else {
+                String options = InputUtils.readString("Options (INTERVAL=n;COUNT=n;UNTIL=dd-MM-yyyy;EXDATE=dd-MM-yyyy,...)[none]: ");
+                Recurrence recurrence = Recurrence.parse(options.isEmpty() ? repeat : repeat + ";" + options);
+                appointment = book.add(new RecurringAppointment(new Appointment(date, startTime, duration, description, place), recurrence));
+            }
             if (appointment == null) {
                 saved = false;
             } else {
@@ -443,11 +879,34 @@ public class GUI {
                         "|        4. Search an existing appointment for:    |\n" +
                         "|              date                                |\n" +
                         "|              description                         |\n" +
+                        "|              place                               |\n" +
+                        "|              similar description                 |\n" +
+                        "|              query                               |\n" +
                         "|        5. Show appointments sorted for date      |\n" +
-                        "|        6. Save                                   |\n" +
-                        "|        7. Save as...                             |\n" +
+                        "|        6. Undo                                   |\n" +
+                        "|        7. Redo                                   |\n" +
+                        "|        8. Save                                   |\n" +
+                        "|        9. Save as...                             |\n" +
+                        "|       10. Report booked minutes per period       |\n" +
+                        "|                                                  |\n" +
+                        "|       11. QUIT                                   |\n" +
+                        "|                                                  |\n" +
+                        "+--------------------------------------------------+\n");
+        System.out.println();
+    }
+
+    private void showViewerMenu() {
+        System.out.print(
+                "+--------------------------------------------------+\n" +
+                        "|                                                  |\n" +
+                        "| Options (read-only):                             |\n" +
+                        "|                                                  |\n" +
+                        "|        1. Show next page                         |\n" +
+                        "|        2. Search an existing appointment for:    |\n" +
+                        "|              date                                |\n" +
+                        "|              description                         |\n" +
                         "|                                                  |\n" +
-                        "|        8. QUIT                                   |\n" +
+                        "|        3. QUIT                                   |\n" +
                         "|                                                  |\n" +
                         "+--------------------------------------------------+\n");
         System.out.println();
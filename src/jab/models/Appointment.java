@@ -1,13 +1,19 @@
 package jab.models;
 
 import jab.models.format.AppointmentParseException;
+import jab.models.format.ParseErrorKind;
 
+import java.text.ParsePosition;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * The {@code Appointment} class represents an appointment into {@code Book}.
@@ -42,14 +48,18 @@ public final class Appointment implements Comparable<Appointment> {
      */
     public static final DateTimeFormatter FORMATTER_TIME = DateTimeFormatter.ofPattern(FORMAT_TIME, Locale.ITALY).withResolverStyle(ResolverStyle.STRICT);
 
+    /**
+     * The time-zone of the instants, unless a {@code Book} declares its own
+     */
+    public static final ZoneId DEFAULT_ZONE = ZoneId.of("Europe/Rome");
 
-    private static final String ZONE_ID = "Europe/Rome";
-    private static final int ARGC = 5;
+    static final int ARGC = 5;
     private static final int DATE_COLUMN = 0;
     private static final int TIME_COLUMN = 1;
     private static final int DURATION_COLUMN = 2;
     private static final int DESCR_COLUMN = 3;
     private static final int PLACE_COLUMN = 4;
+    private static final Pattern DELIMITER = Pattern.compile("\\s?+[\\" + SEPARATOR + "\\s]++");
 
     private LocalDate date;
     private LocalTime startTime;
@@ -88,6 +98,23 @@ public final class Appointment implements Comparable<Appointment> {
         setPlace(place);
     }
 
+    /**
+     * Constructs an appointment from already validated values.
+     *
+     * @param date        the date, not null
+     * @param startTime   the appointment time, not null
+     * @param duration    the positive duration, not null
+     * @param description the checked description, not null
+     * @param place       the checked place, not null
+     */
+    Appointment(LocalDate date, LocalTime startTime, Duration duration, String description, String place) {
+        this.date = date;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.description = description;
+        this.place = place;
+    }
+
     /**
      * Checks that {@code str} does not contain any {@code SEPARARATOR} or empty
      * string.
@@ -135,13 +162,207 @@ public final class Appointment implements Comparable<Appointment> {
      * @see AppointmentParseException
      */
     public static Appointment parse(String line) {
+        String[] values = split(line);
+        if (values.length != ARGC) {
+            throw new AppointmentParseException("Illegal parsing");
+        }
+        return parse(values);
+    }
+
+    /**
+     * Splits a single line into its fields.
+     *
+     * @param line the String containing the representation to be split
+     * @return the fields of the line
+     * @throws AppointmentParseException if the string contains multiple lines
+     */
+    static String[] split(String line) {
         if (line.contains("\n") || line.contains("\r")) {
             throw new AppointmentParseException("Two or more lines detected");
         }
-        String[] values = line.split("\\s?+[\\" + SEPARATOR + "\\s]++");
+        return DELIMITER.split(line);
+    }
+
+    /**
+     * Returns the column of the field {@code field} of a single line, as
+     * split by {@link Appointment#split(String)}.
+     *
+     * @param line  the line
+     * @param field the number of the field, starting from 0
+     * @return the position of the first character of the field, starting
+     * from 1
+     */
+    static int column(String line, int field) {
+        Matcher matcher = DELIMITER.matcher(line);
+        int start = 0;
+        for (int i = 0; i < field && matcher.find(); i++) {
+            start = matcher.end();
+        }
+        return start + 1;
+    }
+
+    /**
+     * Parses the string argument as an appointment, without throwing.
+     *
+     * <p>
+     * The line is checked as {@link Appointment#parse(String)} does, but a
+     * problem is returned instead of thrown, so malformed lines cost no more
+     * than valid ones.
+     * </p>
+     *
+     * @param line the String containing the appointment representation to be parsed
+     * @return the appointment, or the kind and the position of the first
+     * problem of the line
+     */
+    public static ParseResult tryParse(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '\n' || line.charAt(i) == '\r') {
+                return ParseResult.error(ParseErrorKind.FIELD_COUNT, i + 1);
+            }
+        }
+        return tryParse(line, split(line));
+    }
+
+    /**
+     * Parses the fields of a split line, without throwing.
+     *
+     * @param line   the line
+     * @param values the fields returned by {@link Appointment#split(String)}
+     * @return the appointment, or the kind and the position of the first
+     * problem of the line
+     */
+    static ParseResult tryParse(String line, String[] values) {
         if (values.length != ARGC) {
-            throw new AppointmentParseException("Illegal parsing");
+            return ParseResult.error(ParseErrorKind.FIELD_COUNT, 1);
+        }
+        ParseResult result = parseFields(values);
+        return result.isValid() ? result
+                : ParseResult.error(result.getKind(), column(line, field(result.getKind())) + result.getPosition());
+    }
+
+    /**
+     * Parses the first {@code ARGC} fields of a split line, without throwing.
+     *
+     * @return the appointment, or the kind of the problem and its offset in
+     * its field
+     */
+    private static ParseResult parseFields(String[] values) {
+        String text = values[DATE_COLUMN];
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = FORMATTER_DATE.parseUnresolved(text, position);
+        LocalDate date = parsed == null || position.getIndex() != text.length() ? null : toDate(parsed);
+        if (date == null) {
+            return ParseResult.error(ParseErrorKind.DATE, offset(text, parsed, position));
+        }
+        text = values[TIME_COLUMN];
+        position.setIndex(0);
+        parsed = FORMATTER_TIME.parseUnresolved(text, position);
+        LocalTime time = parsed == null || position.getIndex() != text.length() ? null : toTime(parsed);
+        if (time == null) {
+            return ParseResult.error(ParseErrorKind.TIME, offset(text, parsed, position));
+        }
+        text = values[DURATION_COLUMN];
+        long minutes = 0;
+        int i = text.startsWith("+") || text.startsWith("-") ? 1 : 0;
+        if (i == text.length()) {
+            return ParseResult.error(ParseErrorKind.DURATION, 0);
+        }
+        for (int digit; i < text.length(); i++) {
+            if ((digit = Character.digit(text.charAt(i), 10)) < 0) {
+                return ParseResult.error(ParseErrorKind.DURATION, i);
+            }
+            minutes = Math.min(minutes * 10 + digit, Integer.MAX_VALUE + 1L);
+        }
+        if (text.startsWith("-") || minutes == 0 || minutes > Integer.MAX_VALUE) {
+            return ParseResult.error(ParseErrorKind.DURATION, 0);
+        }
+        if (values[DESCR_COLUMN].isEmpty() || values[DESCR_COLUMN].contains(SEPARATOR)) {
+            return ParseResult.error(ParseErrorKind.DESCRIPTION, 0);
+        }
+        if (values[PLACE_COLUMN].isEmpty() || values[PLACE_COLUMN].contains(SEPARATOR)) {
+            return ParseResult.error(ParseErrorKind.PLACE, 0);
+        }
+        return ParseResult.of(new Appointment(date, time, Duration.ofMinutes(minutes), values[DESCR_COLUMN], values[PLACE_COLUMN]));
+    }
+
+    /**
+     * Returns the offset of the problem of a field parsed by a formatter.
+     */
+    private static int offset(String text, TemporalAccessor parsed, ParsePosition position) {
+        if (parsed == null) {
+            return position.getErrorIndex();
+        }
+        return position.getIndex() != text.length() ? position.getIndex() : 0;
+    }
+
+    /**
+     * Resolves the fields parsed by {@code FORMATTER_DATE} as its strict
+     * resolver does.
+     *
+     * @return the date, null if the fields do not make a valid date
+     */
+    private static LocalDate toDate(TemporalAccessor parsed) {
+        if (!parsed.isSupported(ChronoField.YEAR) || !parsed.isSupported(ChronoField.MONTH_OF_YEAR)
+                || !parsed.isSupported(ChronoField.DAY_OF_MONTH)) {
+            return null;
+        }
+        long year = parsed.getLong(ChronoField.YEAR);
+        long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+        if (!ChronoField.YEAR.range().isValidValue(year) || month < 1 || month > 12
+                || day < 1 || day > Month.of((int) month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of((int) year, (int) month, (int) day);
+    }
+
+    /**
+     * Resolves the fields parsed by {@code FORMATTER_TIME} as its strict
+     * resolver does.
+     *
+     * @return the time, null if the fields do not make a valid time
+     */
+    private static LocalTime toTime(TemporalAccessor parsed) {
+        if (!parsed.isSupported(ChronoField.HOUR_OF_DAY) || !parsed.isSupported(ChronoField.MINUTE_OF_HOUR)) {
+            return null;
         }
+        long hour = parsed.getLong(ChronoField.HOUR_OF_DAY);
+        long minute = parsed.getLong(ChronoField.MINUTE_OF_HOUR);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of((int) hour, (int) minute);
+    }
+
+    /**
+     * Returns the number of the field checked for {@code kind}.
+     *
+     * @return the number of the field, starting from 0
+     */
+    static int field(ParseErrorKind kind) {
+        switch (kind) {
+            case TIME:
+                return TIME_COLUMN;
+            case DURATION:
+                return DURATION_COLUMN;
+            case DESCRIPTION:
+                return DESCR_COLUMN;
+            case PLACE:
+                return PLACE_COLUMN;
+            case RECURRENCE:
+                return ARGC;
+            default:
+                return DATE_COLUMN;
+        }
+    }
+
+    /**
+     * Builds an appointment from the first {@code ARGC} fields of a split line.
+     *
+     * @param values the fields returned by {@link Appointment#split(String)}
+     * @return the appointment represented by the fields, not null
+     */
+    static Appointment parse(String[] values) {
         return new Appointment(values[DATE_COLUMN], values[TIME_COLUMN], Integer.parseInt(values[DURATION_COLUMN]), values[DESCR_COLUMN], values[PLACE_COLUMN]);
     }
 
@@ -267,23 +488,56 @@ public final class Appointment implements Comparable<Appointment> {
     }
 
     /**
-     * Gets the start {@code Instant} of this appointment.
+     * Gets the start {@code Instant} of this appointment in
+     * {@code DEFAULT_ZONE}.
      *
      * @return the start {@code Instant}, not null
      * @see Appointment#toDateTime()
      */
     public Instant getStartInstant() {
-        return toDateTime().atZone(ZoneId.of(ZONE_ID)).toInstant();
+        return toDateTime().atZone(DEFAULT_ZONE).toInstant();
     }
 
     /**
-     * Gets the end {@code Instant} of this appointment.
+     * Gets the end {@code Instant} of this appointment in {@code DEFAULT_ZONE}.
      *
      * @return the end {@code Instant}, not null
      * @see Appointment#toDateTime()
      */
     public Instant getEndInstant() {
-        return toDateTime().plusMinutes(duration.toMinutes()).atZone(ZoneId.of(ZONE_ID)).toInstant();
+        return toEndDateTime().atZone(DEFAULT_ZONE).toInstant();
+    }
+
+    /**
+     * Gets the start of this appointment, in seconds from the epoch, through
+     * the offsets of {@code table}.
+     *
+     * @param table the offsets of the time-zone of the book, not null
+     * @return the start epoch second
+     */
+    public long getStartEpochSecond(ZoneOffsetTable table) {
+        return table.toEpochSecond(toDateTime());
+    }
+
+    /**
+     * Gets the end of this appointment, in seconds from the epoch, through the
+     * offsets of {@code table}.
+     *
+     * @param table the offsets of the time-zone of the book, not null
+     * @return the end epoch second
+     */
+    public long getEndEpochSecond(ZoneOffsetTable table) {
+        return table.toEpochSecond(toEndDateTime());
+    }
+
+    /**
+     * Converts the end of this appointment to an {@code LocalDateTime}.
+     *
+     * @return an {@code LocalDateTime} representing the end of this appointment,
+     * not null
+     */
+    public LocalDateTime toEndDateTime() {
+        return toDateTime().plusMinutes(duration.toMinutes());
     }
 
     /**
@@ -373,6 +627,28 @@ public final class Appointment implements Comparable<Appointment> {
         return false;
     }
 
+    /**
+     * Returns a hash code value for the object. This method is
+     * supported for the benefit of hash tables such as those provided by
+     * {@link HashMap}.
+     * <p>
+     * The hash code is computed from the same fields compared by
+     * {@link Appointment#equals(Object)}, so equal appointments have equal
+     * hash codes. As for every mutable key, an appointment must not be changed
+     * through its <i>Setter</i> methods while it is stored in a hash table.
+     *
+     * @return a hash code value for this object.
+     * @see #equals(Object)
+     */
+    @Override
+    public int hashCode() {
+        int result = date.hashCode();
+        result = 31 * result + startTime.hashCode();
+        result = 31 * result + duration.hashCode();
+        result = 31 * result + description.hashCode();
+        return 31 * result + place.hashCode();
+    }
+
     /**
      * Compares this object with the specified object to order.  Returns a
      * negative integer, zero, or a positive integer as this object is less
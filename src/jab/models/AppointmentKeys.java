@@ -0,0 +1,174 @@
+package jab.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code AppointmentKeys} packs the start and the duration of an
+ * appointment, with a sequence number, into a {@code long} that sorts like
+ * the appointment.
+ *
+ * <p>
+ * From the most significant bit, a key holds the local start in minutes from
+ * a base minute (31 bits), the duration in minutes saturated at 511 (9 bits)
+ * and a sequence number that identifies the appointment, such as its position
+ * in a list or a file (24 bits). Keys are compared as unsigned numbers, so
+ * they are sorted by an LSD radix sort in linear time and searched by binary
+ * search, without comparing any object.
+ * </p>
+ *
+ * <p>
+ * Keys with the same start and duration may not follow
+ * {@link AppointmentTree#ORDER}: {@link AppointmentKeys#sort(List)} fixes
+ * those runs with a comparison sort.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see AppointmentTree#ORDER
+ */
+final class AppointmentKeys {
+    static final int MINUTE_BITS = 31;
+    static final int DURATION_BITS = 9;
+    static final int SEQUENCE_BITS = 24;
+    /**
+     * The maximum number of keys that can be told apart
+     */
+    static final int MAX_SEQUENCE = 1 << SEQUENCE_BITS;
+    /**
+     * The maximum distance from the base, measured in minutes
+     */
+    static final long MAX_MINUTE = (1L << MINUTE_BITS) - 1;
+    private static final long MAX_DURATION = (1L << DURATION_BITS) - 1;
+    private static final int RADIX_BITS = 8;
+
+    private AppointmentKeys() {
+    }
+
+    /**
+     * Returns the local start of {@code dateTime}, in minutes from the epoch.
+     */
+    static long minute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Packs a key.
+     *
+     * @param minute   the distance of the start from the base, in
+     *                 {@code [0, MAX_MINUTE]}
+     * @param duration the duration, measured in minutes
+     * @param sequence the sequence number, in {@code [0, MAX_SEQUENCE)}
+     */
+    static long pack(long minute, long duration, int sequence) {
+        return minute << DURATION_BITS + SEQUENCE_BITS | Math.min(duration, MAX_DURATION) << SEQUENCE_BITS | sequence;
+    }
+
+    /**
+     * Returns the smallest key of the appointments that start
+     * {@code minute} minutes after the base.
+     */
+    static long first(long minute) {
+        return pack(minute, 0, 0);
+    }
+
+    static int sequence(long key) {
+        return (int) (key & MAX_SEQUENCE - 1);
+    }
+
+    /**
+     * Sorts the first {@code length} keys as unsigned numbers, with an LSD
+     * radix sort of a byte per pass. The passes over bytes equal in every key
+     * are skipped.
+     */
+    static void radixSort(long[] keys, int length) {
+        long[] source = keys;
+        long[] target = new long[length];
+        int[] counts = new int[1 << RADIX_BITS];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++) {
+                counts[(int) (source[i] >>> shift) & (1 << RADIX_BITS) - 1]++;
+            }
+            if (length == 0 || counts[(int) (source[0] >>> shift) & (1 << RADIX_BITS) - 1] == length) {
+                continue;
+            }
+            for (int i = 0, sum = 0; i < counts.length; i++) {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < length; i++) {
+                target[counts[(int) (source[i] >>> shift) & (1 << RADIX_BITS) - 1]++] = source[i];
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != keys) {
+            System.arraycopy(source, 0, keys, 0, length);
+        }
+    }
+
+    /**
+     * Returns the index of the first of the first {@code length} sorted keys
+     * not smaller than {@code key}, as unsigned numbers.
+     */
+    static int lowerBound(long[] keys, int length, long key) {
+        int low = 0, high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keys[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts {@code appointments} by {@link AppointmentTree#ORDER}. Lists too
+     * long or too spread in time for the keys are sorted by comparison.
+     */
+    static void sort(List<Appointment> appointments) {
+        int size = appointments.size();
+        if (size < 2) {
+            return;
+        }
+        long base = Long.MAX_VALUE, last = Long.MIN_VALUE;
+        for (Appointment appointment : appointments) {
+            long minute = minute(appointment.toDateTime());
+            base = Math.min(base, minute);
+            last = Math.max(last, minute);
+        }
+        if (size >= MAX_SEQUENCE || last - base > MAX_MINUTE) {
+            appointments.sort(AppointmentTree.ORDER);
+            return;
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            Appointment appointment = appointments.get(i);
+            keys[i] = pack(minute(appointment.toDateTime()) - base, appointment.getDuration().toMinutes(), i);
+        }
+        radixSort(keys, size);
+        Appointment[] sorted = new Appointment[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = appointments.get(sequence(keys[i]));
+        }
+        for (int from = 0, to; from < size; from = to) {
+            long prefix = keys[from] >>> SEQUENCE_BITS;
+            for (to = from + 1; to < size && keys[to] >>> SEQUENCE_BITS == prefix; to++) {
+                // looks for the end of the run with the same start and duration
+            }
+            if (to - from > 1) {
+                Arrays.sort(sorted, from, to, AppointmentTree.ORDER);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            appointments.set(i, sorted[i]);
+        }
+    }
+}
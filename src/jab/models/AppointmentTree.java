@@ -0,0 +1,308 @@
+package jab.models;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The {@code AppointmentTree} is a persistent AVL tree of appointments sorted
+ * by start.
+ *
+ * <p>
+ * A tree is never modified: {@code insert} and {@code remove} return a new
+ * tree that copies only the O(log n) nodes along the changed path and shares
+ * all the others with the old one. Every version stays valid and can be read
+ * by any thread without locks.
+ * </p>
+ *
+ * <p>
+ * Appointments with the same start are ordered by duration, description and
+ * place, so the order is consistent with {@link Appointment#equals(Object)}.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookSnapshot
+ */
+final class AppointmentTree implements Iterable<Appointment> {
+    /**
+     * The order of the tree: by start, then by the other fields.
+     */
+    static final Comparator<Appointment> ORDER = Comparator.<Appointment>naturalOrder()
+            .thenComparing(Appointment::getDuration)
+            .thenComparing(Appointment::getDescription)
+            .thenComparing(Appointment::getPlace);
+
+    static final AppointmentTree EMPTY = new AppointmentTree(null);
+
+    private final Node root;
+
+    private AppointmentTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a balanced tree from appointments already sorted by
+     * {@code ORDER}, without duplicates, in linear time.
+     */
+    static AppointmentTree fromSorted(List<Appointment> sorted) {
+        return new AppointmentTree(build(sorted, 0, sorted.size()));
+    }
+
+    private static Node build(List<Appointment> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return Node.of(build(sorted, from, middle), sorted.get(middle), build(sorted, middle + 1, to));
+    }
+
+    int size() {
+        return Node.size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    boolean contains(Appointment appointment) {
+        Node node = root;
+        while (node != null) {
+            int result = ORDER.compare(appointment, node.value);
+            if (result == 0) {
+                return true;
+            }
+            node = result < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the appointment at {@code index} in sorted order.
+     */
+    Appointment get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = Node.size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Returns a tree that contains {@code appointment}, this one if it is
+     * already contained.
+     */
+    AppointmentTree insert(Appointment appointment) {
+        Node inserted = insert(root, appointment);
+        return inserted == root ? this : new AppointmentTree(inserted);
+    }
+
+    /**
+     * Returns a tree that does not contain {@code appointment}, this one if it
+     * is not contained.
+     */
+    AppointmentTree remove(Appointment appointment) {
+        Node removed = remove(root, appointment);
+        return removed == root ? this : new AppointmentTree(removed);
+    }
+
+    private static Node insert(Node node, Appointment appointment) {
+        if (node == null) {
+            return Node.of(null, appointment, null);
+        }
+        int result = ORDER.compare(appointment, node.value);
+        if (result == 0) {
+            return node;
+        } else if (result < 0) {
+            Node left = insert(node.left, appointment);
+            return left == node.left ? node : balance(left, node.value, node.right);
+        } else {
+            Node right = insert(node.right, appointment);
+            return right == node.right ? node : balance(node.left, node.value, right);
+        }
+    }
+
+    private static Node remove(Node node, Appointment appointment) {
+        if (node == null) {
+            return null;
+        }
+        int result = ORDER.compare(appointment, node.value);
+        if (result < 0) {
+            Node left = remove(node.left, appointment);
+            return left == node.left ? node : balance(left, node.value, node.right);
+        } else if (result > 0) {
+            Node right = remove(node.right, appointment);
+            return right == node.right ? node : balance(node.left, node.value, right);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(node.left, successor.value, remove(node.right, successor.value));
+    }
+
+    private static Node balance(Node left, Appointment value, Node right) {
+        int difference = Node.height(left) - Node.height(right);
+        if (difference > 1) {
+            if (Node.height(left.left) >= Node.height(left.right)) {
+                return Node.of(left.left, left.value, Node.of(left.right, value, right));
+            }
+            return Node.of(Node.of(left.left, left.value, left.right.left), left.right.value,
+                    Node.of(left.right.right, value, right));
+        } else if (difference < -1) {
+            if (Node.height(right.right) >= Node.height(right.left)) {
+                return Node.of(Node.of(left, value, right.left), right.value, right.right);
+            }
+            return Node.of(Node.of(left, value, right.left.left), right.left.value,
+                    Node.of(right.left.right, right.value, right.right));
+        }
+        return Node.of(left, value, right);
+    }
+
+    /**
+     * Returns an iterator over all the appointments, in sorted order.
+     */
+    @Override
+    public Iterator<Appointment> iterator() {
+        return new TreeIterator(root, null, null);
+    }
+
+    /**
+     * Returns an iterator, in sorted order, over the appointments that start
+     * from {@code from} included to {@code to} excluded.
+     */
+    Iterator<Appointment> iterator(LocalDateTime from, LocalDateTime to) {
+        return new TreeIterator(root, from, to);
+    }
+
+    /**
+     * Returns an iterator, in sorted order, over the appointments from the one
+     * at {@code index} included.
+     */
+    Iterator<Appointment> iterator(int index) {
+        return new TreeIterator(root, index);
+    }
+
+    /**
+     * Returns an iterator over all the appointments, in reverse sorted order.
+     */
+    Iterator<Appointment> descendingIterator() {
+        return new Iterator<Appointment>() {
+            private final Deque<Node> stack = new ArrayDeque<>();
+
+            {
+                for (Node node = root; node != null; node = node.right) {
+                    stack.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Appointment next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = stack.pop();
+                for (Node next = node.left; next != null; next = next.right) {
+                    stack.push(next);
+                }
+                return node.value;
+            }
+        };
+    }
+
+    private static final class Node {
+        private final Node left;
+        private final Appointment value;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        private Node(Node left, Appointment value, Node right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private static Node of(Node left, Appointment value, Node right) {
+            return new Node(left, value, right);
+        }
+
+        private static int height(Node node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+    }
+
+    private static final class TreeIterator implements Iterator<Appointment> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final LocalDateTime to;
+
+        private TreeIterator(Node root, LocalDateTime from, LocalDateTime to) {
+            this.to = to;
+            Node node = root;
+            while (node != null) {
+                if (from == null || !node.value.toDateTime().isBefore(from)) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        private TreeIterator(Node root, int index) {
+            this.to = null;
+            Node node = root;
+            while (node != null) {
+                int leftSize = Node.size(node.left);
+                if (index <= leftSize) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (to == null || stack.peek().value.toDateTime().isBefore(to));
+        }
+
+        @Override
+        public Appointment next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack.pop();
+            for (Node next = node.right; next != null; next = next.left) {
+                stack.push(next);
+            }
+            return node.value;
+        }
+    }
+}
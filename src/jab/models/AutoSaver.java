@@ -0,0 +1,117 @@
+package jab.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * The {@code AutoSaver} saves a {@link Book} in background.
+ *
+ * <p>
+ * Every change of the book postpones the next save, so a burst of changes is
+ * written once, after {@code delay} without changes. Saves run on a single
+ * I/O thread and write the snapshot taken when they start: the thread that
+ * changes the book is never blocked, and changes made during a save are
+ * written by the next one.
+ * </p>
+ *
+ * <p>
+ * Only changes notified to the saver are written: a book loaded after the
+ * saver has been started is not written back until it is changed.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#addChangeListener(Runnable)
+ */
+public class AutoSaver implements Closeable {
+    /**
+     * The default quiet period before a save, measured in milliseconds
+     */
+    public static final long DEFAULT_DELAY = 2000;
+
+    private final Book book;
+    private final long delay;
+    private final TimeUnit unit;
+    private final Consumer<IOException> onFailure;
+    private final ScheduledExecutorService executor;
+    private final Runnable listener = this::changed;
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Starts saving {@code book} in background.
+     *
+     * @param book      the book to be saved
+     * @param delay     the quiet period before a save
+     * @param unit      the unit of {@code delay}
+     * @param onFailure the action run, on the I/O thread, when a save fails
+     */
+    public AutoSaver(Book book, long delay, TimeUnit unit, Consumer<IOException> onFailure) {
+        this.book = book;
+        this.delay = delay;
+        this.unit = unit;
+        this.onFailure = onFailure;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jab-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        book.addChangeListener(listener);
+    }
+
+    /**
+     * Returns true if the book has not been changed since this saver has been
+     * started or if its current version has been saved or loaded.
+     *
+     * @return true if there is nothing to save
+     */
+    public boolean isSaved() {
+        synchronized (this) {
+            if (pending == null) {
+                return true;
+            }
+        }
+        return book.lastSaved() == book.snapshot();
+    }
+
+    private synchronized void changed() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(this::save, delay, unit);
+    }
+
+    private void save() {
+        BookSnapshot snapshot = book.snapshot();
+        if (snapshot == book.lastSaved()) {
+            return;
+        }
+        try {
+            book.saveBookToFile(snapshot);
+        } catch (IOException e) {
+            onFailure.accept(e);
+        }
+    }
+
+    /**
+     * Stops saving in background, after writing the changes not saved yet.
+     * Waits for the save in progress, if any.
+     */
+    @Override
+    public void close() {
+        book.removeChangeListener(listener);
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+                executor.execute(this::save);
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
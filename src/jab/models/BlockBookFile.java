@@ -0,0 +1,359 @@
+package jab.models;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code BlockBookFile} reads and writes books in a block-compressed
+ * container.
+ *
+ * <p>
+ * The lines of a book, the same ones of the CSV format, are grouped into
+ * blocks of {@code blockRows} lines compressed on their own with
+ * {@link Deflater}. Blocks are compressed and decompressed in parallel on the
+ * common {@link ForkJoinPool}. An index at the end of the file records, for
+ * every block, its position and the range of dates it covers, so a search
+ * between two dates only decompresses the blocks that overlap them.
+ * </p>
+ *
+ * <p>
+ * The layout of the file is:
+ * </p>
+ * <pre>
+ * MAGIC VERSION
+ * block 0 ... block n-1
+ * index: (offset, compressed length, length, rows, first day, last day) * n
+ * index offset, n, MAGIC
+ * </pre>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#saveBookToFile()
+ */
+public final class BlockBookFile {
+    /**
+     * The extension of the files written in this format by {@link Book}
+     */
+    public static final String EXTENSION = ".jabz";
+    /**
+     * The default number of lines of a block
+     */
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    private static final int MAGIC = 0x4A41425A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 36;
+    private static final int TRAILER_SIZE = 16;
+
+    private BlockBookFile() {
+    }
+
+    /**
+     * Returns true if {@code file} is a block-compressed book.
+     *
+     * @param file the file to be checked
+     * @return true if {@code file} starts with the header of this format
+     * @throws IOException if an I/O error occurs while reading {@code file}
+     */
+    public static boolean isBlockFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes {@code snapshot} on {@code file} with the default block size.
+     *
+     * @param snapshot the book to be written
+     * @param file     the destination file
+     * @throws IOException if an I/O error occurs while writing to {@code file}
+     */
+    public static void write(BookSnapshot snapshot, File file) throws IOException {
+        write(snapshot, file, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Writes {@code snapshot} on {@code file}: appointments first, sorted by
+     * start, then recurring appointments.
+     *
+     * @param snapshot  the book to be written
+     * @param file      the destination file
+     * @param blockRows the number of lines of a block
+     * @throws IOException              if an I/O error occurs while writing to
+     *                                  {@code file}
+     * @throws IllegalArgumentException if {@code blockRows} is not positive
+     */
+    public static void write(BookSnapshot snapshot, File file, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Sorry, " + blockRows + " is an invalid block size (>0).");
+        }
+        List<Block> blocks = new ArrayList<>();
+        Block block = null;
+        for (Appointment appointment : snapshot) {
+            if (block == null || block.rows == blockRows) {
+                blocks.add(block = new Block());
+            }
+            block.append(appointment.toString(), appointment.getDate(), appointment.getDate());
+        }
+        block = null;
+        for (RecurringAppointment rule : snapshot.getRules()) {
+            if (block == null || block.rows == blockRows) {
+                blocks.add(block = new Block());
+            }
+            block.append(rule.toString(), rule.getFirst().getDate(), rule.lastDate() == null ? LocalDate.MAX : rule.lastDate());
+        }
+        List<Callable<byte[]>> tasks = new ArrayList<>(blocks.size());
+        for (Block current : blocks) {
+            tasks.add(current::compress);
+        }
+        List<byte[]> compressed = Parallel.invokeAll(tasks);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long offset = HEADER_SIZE;
+            for (byte[] bytes : compressed) {
+                out.write(bytes);
+            }
+            for (int i = 0; i < blocks.size(); i++) {
+                Block current = blocks.get(i);
+                out.writeLong(offset);
+                out.writeInt(compressed.get(i).length);
+                out.writeInt(current.text.length);
+                out.writeInt(current.rows);
+                out.writeLong(current.firstDay);
+                out.writeLong(current.lastDay);
+                offset += compressed.get(i).length;
+            }
+            out.writeLong(offset);
+            out.writeInt(blocks.size());
+            out.writeInt(MAGIC);
+        }
+    }
+
+    /**
+     * Opens a reader over all the lines of {@code file}, as if it were a CSV
+     * book. All the blocks are decompressed in parallel before returning.
+     *
+     * @param file a block-compressed book
+     * @return a reader over the lines of the book
+     * @throws IOException if an I/O error occurs while reading {@code file} or
+     *                     the file is corrupted
+     */
+    public static BufferedReader newReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a stream over the text of {@code file}, its blocks decompressed
+     * in order. All the blocks are decompressed in parallel before returning.
+     *
+     * @throws IOException if an I/O error occurs while reading {@code file} or
+     *                     the file is corrupted
+     */
+    static InputStream newInputStream(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<byte[]> texts = decompress(channel, readIndex(channel));
+            List<InputStream> streams = new ArrayList<>(texts.size());
+            for (byte[] text : texts) {
+                streams.add(new ByteArrayInputStream(text));
+            }
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+    }
+
+    /**
+     * Returns search result for {@code filter} among the appointments and the
+     * occurrences that start between {@code from} and {@code to}, both included.
+     *
+     * <p>
+     * Only the blocks whose dates overlap the window are decompressed. Lines
+     * that cannot be parsed are skipped.
+     * </p>
+     *
+     * @param file   a block-compressed book
+     * @param filter the criterion for selecting
+     * @param from   the first date of the window
+     * @param to     the last date of the window
+     * @return a list of appointments
+     * @throws IOException if an I/O error occurs while reading {@code file} or
+     *                     the file is corrupted
+     * @see Book#search(Predicate, LocalDate, LocalDate)
+     */
+    public static List<Appointment> search(File file, Predicate<Appointment> filter, LocalDate from, LocalDate to) throws IOException {
+        List<byte[]> texts;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Entry> selected = new ArrayList<>();
+            for (Entry entry : readIndex(channel)) {
+                if (entry.firstDay <= to.toEpochDay() && entry.lastDay >= from.toEpochDay()) {
+                    selected.add(entry);
+                }
+            }
+            texts = decompress(channel, selected);
+        }
+        List<Appointment> results = new ArrayList<>();
+        for (byte[] text : texts) {
+            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text), StandardCharsets.UTF_8));
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                try {
+                    String[] values = Appointment.split(line);
+                    List<Appointment> candidates = values.length == RecurringAppointment.ARGC
+                            ? RecurringAppointment.parse(values).occurrences(from, to)
+                            : Collections.singletonList(Appointment.parse(values));
+                    for (Appointment candidate : candidates) {
+                        if (!candidate.getDate().isBefore(from) && !candidate.getDate().isAfter(to) && filter.test(candidate)) {
+                            results.add(candidate);
+                        }
+                    }
+                } catch (DateTimeParseException | IllegalArgumentException ignored) {
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<Entry> readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new IOException("Not a block-compressed book");
+        }
+        ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        int count = trailer.getInt();
+        if (trailer.getInt() != MAGIC || read(channel, 0, HEADER_SIZE).getInt() != MAGIC
+                || count < 0 || indexOffset + (long) count * ENTRY_SIZE != size - TRAILER_SIZE) {
+            throw new IOException("Not a block-compressed book");
+        }
+        ByteBuffer index = read(channel, indexOffset, count * ENTRY_SIZE);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long offset = index.getLong();
+            int compressedLength = index.getInt();
+            int length = index.getInt();
+            index.getInt(); // rows
+            Entry entry = new Entry(offset, compressedLength, length, index.getLong(), index.getLong());
+            if (entry.offset < HEADER_SIZE || entry.compressedLength < 0 || entry.length < 0
+                    || entry.offset + entry.compressedLength > indexOffset) {
+                throw new IOException("Corrupted block index");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decompresses {@code entries} in parallel, reading them from
+     * {@code channel} with positional reads.
+     */
+    private static List<byte[]> decompress(FileChannel channel, List<Entry> entries) throws IOException {
+        List<Callable<byte[]>> tasks = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            tasks.add(() -> {
+                byte[] compressed = read(channel, entry.offset, entry.compressedLength).array();
+                byte[] text = new byte[entry.length];
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(compressed);
+                    int inflated = 0;
+                    while (inflated < text.length && !inflater.finished()) {
+                        int count = inflater.inflate(text, inflated, text.length - inflated);
+                        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        inflated += count;
+                    }
+                    if (inflated != text.length) {
+                        throw new IOException("Corrupted block at " + entry.offset);
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupted block at " + entry.offset, e);
+                } finally {
+                    inflater.end();
+                }
+                return text;
+            });
+        }
+        return Parallel.invokeAll(tasks);
+    }
+
+    /**
+     * A block being written: its text and the range of its dates.
+     */
+    private static final class Block {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private byte[] text;
+        private int rows;
+        private long firstDay = Long.MAX_VALUE;
+        private long lastDay = Long.MIN_VALUE;
+
+        private void append(String line, LocalDate first, LocalDate last) {
+            byte[] bytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            buffer.write(bytes, 0, bytes.length);
+            rows++;
+            firstDay = Math.min(firstDay, first.toEpochDay());
+            lastDay = Math.max(lastDay, last.toEpochDay());
+        }
+
+        private byte[] compress() {
+            text = buffer.toByteArray();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(text);
+                deflater.finish();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(text.length / 4 + 64);
+                byte[] chunk = new byte[8192];
+                while (!deflater.finished()) {
+                    compressed.write(chunk, 0, deflater.deflate(chunk));
+                }
+                return compressed.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * An entry of the block index.
+     */
+    private static final class Entry {
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+        private final long firstDay;
+        private final long lastDay;
+
+        private Entry(long offset, int compressedLength, int length, long firstDay, long lastDay) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+    }
+}
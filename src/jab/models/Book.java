@@ -1,18 +1,41 @@
 package jab.models;
 
+import jab.models.format.ParseErrorKind;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 /**
  * The {@code Book} represent a simply real Appointment Book.
  * It implements all basic operation to realize an
  * Appointment scheduling software in CLI mode.
  *
+ * <p>
+ * The content of the book is kept in an immutable {@link BookSnapshot}: every
+ * change produces a new version that shares its structure with the previous
+ * one, so a snapshot is taken in O(1) and undo/redo only switch version.
+ * </p>
+ *
  * @author Lorenzo Ferron
  * @version 2019.02.11
  * @see Appointment
@@ -20,10 +43,92 @@ import java.util.logging.Logger;
 public class Book implements Iterable<Appointment> {
     private static final String DEFAULT_FILE = "book.csv";
     private static final Logger LOGGER = Logger.getLogger(Book.class.getName());
+    /**
+     * The offsets of {@code Appointment.DEFAULT_ZONE}, shared by the books that
+     * do not declare another zone.
+     */
+    static final ZoneOffsetTable DEFAULT_OFFSETS = ZoneOffsetTable.of(Appointment.DEFAULT_ZONE);
+    /**
+     * The maximum number of changes that can be undone
+     */
+    static final int MAX_HISTORY = 1000;
+    /**
+     * The minimum number of appointments swept by a task of {@code audit()}
+     */
+    static final int AUDIT_CHUNK = 1 << 12;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
 
-    private final List<Appointment> book;
+    private volatile BookSnapshot current;
+    /**
+     * The hash index over the appointments of {@code current}, so that
+     * lookups do not walk the tree.
+     */
+    private final Set<Appointment> index;
+    /**
+     * The appointments of {@code current} partitioned by place.
+     */
+    private final PlaceIndex places;
+    /**
+     * The appointments and the minutes of {@code current} per day.
+     */
+    private final CalendarIndex calendar;
+    /**
+     * The trigrams of the descriptions of {@code current}.
+     */
+    private final FuzzyIndex fuzzy;
+    /**
+     * The distinct descriptions and places of {@code current}, for completion.
+     */
+    private final CompletionIndex descriptions;
+    private final CompletionIndex placeNames;
+    /**
+     * The minutes taken by the appointments of {@code current}, null if the
+     * occupancy layer is disabled.
+     */
+    private OccupancyIndex occupancy;
+    /**
+     * The secondary indexes, notified of every change of {@code index}.
+     */
+    private final List<BookIndex> indexes;
+    private final Deque<Revision> undoHistory;
+    private final Deque<Revision> redoHistory;
+    /**
+     * The longest duration ever added, measured in minutes: it bounds the
+     * part of the tree where an overlap can start.
+     */
+    private long maxDuration;
+    private boolean loading;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    /**
+     * The feed of the changes, null until the first call of {@code changes()}.
+     */
+    private volatile ChangeFeed feed;
+    /**
+     * Serializes the writes of {@code file}, which may come from more threads.
+     */
+    private final Object saveLock = new Object();
+    /**
+     * The last version read from or written on {@code file} by this book, null
+     * if none.
+     */
+    private volatile BookSnapshot saved;
+    /**
+     * The collisions found by the last load, until the next save: the key
+     * comes from the file and was left out, the value belongs to this book.
+     */
+    private volatile Map<Appointment, Appointment> loadCollisions = Collections.emptyMap();
 
-    private File file;
+    private volatile File file;
+    private volatile boolean parallelSave;
+    private volatile boolean useSidecar;
+    /**
+     * The offsets of the time-zone of this book, widened whenever an
+     * appointment falls outside of their span, up to a bounded number of
+     * years. The tables are immutable, so
+     * the threads that audit or save this book only need to see the latest
+     * one.
+     */
+    private volatile ZoneOffsetTable offsets;
 
     /**
      * Constructs and initializes an empty appointment book with default filename
@@ -40,8 +145,34 @@ public class Book implements Iterable<Appointment> {
      * @param filename the name of the file containing appointments
      */
     public Book(String filename) {
+        this(filename, Appointment.DEFAULT_ZONE);
+    }
+
+    /**
+     * Constructs and initializes an empty appointment book with custom filename
+     * and time-zone associated.
+     *
+     * @param filename the name of the file containing appointments
+     * @param zone     the time-zone of the appointments, not null
+     */
+    public Book(String filename, ZoneId zone) {
         file = new File(filename);
-        book = new ArrayList<>();
+        offsets = zone.equals(Appointment.DEFAULT_ZONE) ? DEFAULT_OFFSETS : ZoneOffsetTable.of(zone);
+        current = BookSnapshot.EMPTY;
+        index = new HashSet<>();
+        places = new PlaceIndex();
+        indexes = new ArrayList<>();
+        calendar = new CalendarIndex();
+        fuzzy = new FuzzyIndex();
+        indexes.add(places);
+        indexes.add(calendar);
+        descriptions = new CompletionIndex(Appointment::getDescription);
+        placeNames = new CompletionIndex(Appointment::getPlace);
+        indexes.add(fuzzy);
+        indexes.add(descriptions);
+        indexes.add(placeNames);
+        undoHistory = new ArrayDeque<>();
+        redoHistory = new ArrayDeque<>();
     }
 
     /**
@@ -58,9 +189,28 @@ public class Book implements Iterable<Appointment> {
      * @return true if appointments as arguments do not overlap themselves, false
      * otherwise
      */
-    private static boolean overlaps(Appointment current, Appointment other) {
-        return current.getStartInstant().equals(other.getStartInstant()) && current.getEndInstant().equals(other.getEndInstant()) ||
-                current.getStartInstant().compareTo(other.getEndInstant()) < 0 && other.getStartInstant().compareTo(current.getEndInstant()) < 0;
+    static boolean overlaps(Appointment current, Appointment other) {
+        return overlaps(current, other, DEFAULT_OFFSETS);
+    }
+
+    /**
+     * Returns true if the {@code current} appointment overlaps the
+     * {@code other}, both converted to instants through {@code table}.
+     *
+     * @see Book#overlaps(long, long, long, long)
+     */
+    static boolean overlaps(Appointment current, Appointment other, ZoneOffsetTable table) {
+        return overlaps(current.getStartEpochSecond(table), current.getEndEpochSecond(table),
+                other.getStartEpochSecond(table), other.getEndEpochSecond(table));
+    }
+
+    /**
+     * Returns true if the interval from {@code start} to {@code end} overlaps
+     * the interval from {@code otherStart} to {@code otherEnd}, all measured in
+     * epoch seconds.
+     */
+    static boolean overlaps(long start, long end, long otherStart, long otherEnd) {
+        return start == otherStart && end == otherEnd || start < otherEnd && otherStart < end;
     }
 
     /**
@@ -93,6 +243,123 @@ public class Book implements Iterable<Appointment> {
         return p -> p.getDescription().toLowerCase().contains(description.toLowerCase());
     }
 
+    /**
+     * Gets the time-zone of this book.
+     *
+     * @return the time-zone, not null
+     */
+    public ZoneId getZone() {
+        return offsets.getZone();
+    }
+
+    /**
+     * Changes the time-zone of this book.
+     *
+     * <p>
+     * The appointments keep their local date and time, so around the daylight
+     * saving time changes of the new zone they may collide.
+     * </p>
+     *
+     * @param zone the new time-zone, not null
+     */
+    public void setZone(ZoneId zone) {
+        if (!zone.equals(getZone())) {
+            offsets = ZoneOffsetTable.of(zone);
+            if (occupancy != null) {
+                occupancy.cleared();
+                current.tree().forEach(occupancy::added);
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the occupancy layer, which marks the minutes taken
+     * by every appointment in a bitmap per day.
+     *
+     * <p>
+     * With the layer enabled, an appointment that falls in free minutes is
+     * known not to collide in a few word operations, without walking the
+     * tree; collisions are still confirmed by
+     * {@link Book#overlaps(long, long, long, long)}, so the results do not
+     * change. Recurring appointments are checked as before.
+     * </p>
+     *
+     * @param enabled true to enable the layer
+     * @see Book#overlapsAll(Appointment)
+     */
+    public void setOccupancyEnabled(boolean enabled) {
+        if (enabled && occupancy == null) {
+            occupancy = new OccupancyIndex(this::offsets);
+            current.tree().forEach(occupancy::added);
+            indexes.add(occupancy);
+        } else if (!enabled && occupancy != null) {
+            indexes.remove(occupancy);
+            occupancy = null;
+        }
+    }
+
+    /**
+     * Returns true if the occupancy layer is enabled.
+     *
+     * @return true if the occupancy layer is enabled
+     * @see Book#setOccupancyEnabled(boolean)
+     */
+    public boolean isOccupancyEnabled() {
+        return occupancy != null;
+    }
+
+    /**
+     * Enables or disables the parallel save, which encodes chunks of the book
+     * on all the processors and writes them in order. The file is the same as
+     * the one of a sequential save. Block-compressed files are not affected.
+     *
+     * @param enabled true to enable the parallel save
+     * @see BookSnapshot#saveToFile(File, boolean)
+     */
+    public void setParallelSaveEnabled(boolean enabled) {
+        parallelSave = enabled;
+    }
+
+    /**
+     * Enables or disables the sidecar, a binary copy of the loaded book kept
+     * next to its file, so that loading the same file again skips parsing
+     * and collision checks.
+     *
+     * @param enabled true to read and write the sidecar
+     * @see Book#loadBookFromFile(Collection)
+     */
+    public void setSidecarEnabled(boolean enabled) {
+        useSidecar = enabled;
+    }
+
+    /**
+     * Returns true if the sidecar is enabled.
+     *
+     * @return true if the sidecar is enabled
+     * @see Book#setSidecarEnabled(boolean)
+     */
+    public boolean isSidecarEnabled() {
+        return useSidecar;
+    }
+
+    /**
+     * Returns true if the parallel save is enabled.
+     *
+     * @return true if the parallel save is enabled
+     * @see Book#setParallelSaveEnabled(boolean)
+     */
+    public boolean isParallelSaveEnabled() {
+        return parallelSave;
+    }
+
+    /**
+     * Returns the offsets of this book, widened to cover {@code appointment}.
+     */
+    private ZoneOffsetTable offsets(Appointment appointment) {
+        offsets = offsets.covering(appointment.getDate()).covering(appointment.toEndDateTime().toLocalDate());
+        return offsets;
+    }
+
     /**
      * Gets the file field.
      *
@@ -109,193 +376,1498 @@ public class Book implements Iterable<Appointment> {
      */
     public void setFile(String filename) {
         this.file = new File(filename);
+        saved = null;
     }
 
     /**
      * Writes this book on {@code file}.
      *
+     * <p>
+     * If the name of {@code file} ends with {@code BlockBookFile.EXTENSION}
+     * the book is written block-compressed. The sidecar of the file, if
+     * enabled, is updated too.
+     * </p>
+     *
+     * <p>
+     * The current snapshot is written, so this method may be called by a
+     * thread other than the one that changes the book. The file is written
+     * aside and then moved in place, so readers never see it half written.
+     * </p>
+     *
      * @throws IOException if an I/O error occurs while writing to {@code file}
+     * @see BlockBookFile
      */
     public void saveBookToFile() throws IOException {
-        try (BufferedWriter bufferedWriter = Files.newBufferedWriter(file.toPath())) {
-            for (Appointment appointment : book) {
-                bufferedWriter.write(appointment.toString());
-                bufferedWriter.newLine();
-            }
-        }
+        saveBookToFile(current);
     }
 
     /**
-     * Reads {@code file} and loads this book.
+     * Writes {@code snapshot} on {@code file}.
      *
-     * @return A couple appointments that collide.
-     * @throws IOException if an I/O error occurs while reading to {@code file}
+     * @throws IOException if an I/O error occurs while writing to {@code file}
      */
-    public Map<Appointment, Appointment> loadBookFromFile() throws IOException {
-        Map<Appointment, Appointment> collisions = new HashMap<>();
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
-            String line;
-            Appointment overlapped, current;
-            int loaded = 0;
-            while ((line = bufferedReader.readLine()) != null) {
-                loaded++;
+    void saveBookToFile(BookSnapshot snapshot) throws IOException {
+        synchronized (saveLock) {
+            File file = this.file;
+            File temporary = new File(file.getPath() + ".tmp");
+            BookSidecar.Key key;
+            try {
+                if (file.getName().endsWith(BlockBookFile.EXTENSION)) {
+                    BlockBookFile.write(snapshot, temporary);
+                } else {
+                    snapshot.saveToFile(temporary, parallelSave);
+                }
+                // the move keeps the last modified time, so the key is the one of the file written
+                key = useSidecar ? BookSidecar.Key.of(temporary) : null;
                 try {
-                    current = Appointment.parse(line);
-                    overlapped = add(current);
-                    if (overlapped != null) {
-                        collisions.put(current, overlapped);
-                    }
-                } catch (NumberFormatException e) {
-                    LOGGER.warning("Line " + loaded + ": duration is not a positive integer" + System.lineSeparator());
-                } catch (DateTimeParseException | IllegalArgumentException e) {
-                    LOGGER.warning("Line " + loaded + ": " + e.getMessage() + System.lineSeparator());
+                    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
+            } finally {
+                Files.deleteIfExists(temporary.toPath());
             }
+            saved = snapshot;
+            loadCollisions = Collections.emptyMap();
+            writeSidecar(file, key, snapshot, Collections.emptyMap(), Collections.emptyList(), null);
         }
-        return collisions;
+        publish(new BookChange(BookChange.Kind.SAVED, null, null, snapshot));
     }
 
     /**
-     * Appends a new appointment to this book specifying all data about an
-     * appointment.
+     * Returns the last version read from or written on {@code file} by this
+     * book, null if none.
+     */
+    BookSnapshot lastSaved() {
+        return saved;
+    }
+
+    /**
+     * Returns the current version of this book.
      *
      * <p>
-     * The new appointment must not collide with another.
+     * The snapshot is immutable and taken in constant time: later changes of
+     * this book do not affect it.
      * </p>
      *
-     * @param date        The String that represents a date.
-     * @param startTime   The String that represents an appointment time.
-     * @param duration    the duration, measured in minutes
-     * @param description The String containing the person’s name with who
-     *                    appointment is made.
-     * @param place       The String containing the name of a place where
-     *                    appointment is made.
-     * @return an overlapped appointment, null otherwise
-     * @throws DateTimeParseException   if the text cannot be parsed to a date or
-     *                                  appointment time
-     * @throws IllegalArgumentException if the {@code String} does not contain a
-     *                                  parsable {@code Appointment}.
-     * @see Appointment#Appointment(String, String, int, String, String)
+     * @return the current snapshot, not null
      */
-    public Appointment add(String date, String startTime, int duration, String description, String place) {
-        return add(new Appointment(date, startTime, duration, description, place));
+    public BookSnapshot snapshot() {
+        return current;
     }
 
     /**
-     * Appends a new appointment to this book.
+     * Reverts the last change of this book.
      *
-     * @param appointment the new appointment, not null
-     * @return an overlapped appointment, null otherwise
-     * @see Book#overlapsAll(Appointment)
+     * @return true if a change has been undone, false if there is nothing to
+     * undo
      */
-    public Appointment add(Appointment appointment) {
-        Appointment overlapped = overlapsAll(appointment);
-        if (overlapped == null) {
-            book.add(appointment);
+    public boolean undo() {
+        Revision revision = undoHistory.poll();
+        if (revision == null) {
+            return false;
         }
-        return overlapped;
+        current = revision.before;
+        if (revision.added != null) {
+            unindex(revision.added);
+        }
+        if (revision.removed != null) {
+            index(revision.removed);
+        }
+        redoHistory.push(revision);
+        changed(revision.removed, revision.added);
+        return true;
     }
 
     /**
-     * Checks if {@code appointment} collides with another.
+     * Applies again the last change undone.
      *
-     * @param appointment an appointment to be checked
-     * @return an overlapped appointment, null otherwise
-     * @see Book#overlaps(Appointment, Appointment)
+     * @return true if a change has been redone, false if there is nothing to
+     * redo
      */
-    public Appointment overlapsAll(Appointment appointment) {
-        for (Appointment current : book) {
-            if (overlaps(current, appointment)) {
-                return current;
-            }
+    public boolean redo() {
+        Revision revision = redoHistory.poll();
+        if (revision == null) {
+            return false;
         }
-        return null;
+        current = revision.after;
+        if (revision.removed != null) {
+            unindex(revision.removed);
+        }
+        if (revision.added != null) {
+            index(revision.added);
+        }
+        undoHistory.push(revision);
+        changed(revision.added, revision.removed);
+        return true;
     }
 
     /**
-     * Returns search result for {@code filter}.
-     *
-     * @param filter the criterion for selecting
-     * @return a list of appointments
+     * Records the change from {@code before} to the current version: the new
+     * change can be undone and nothing can be redone anymore.
      */
-    public List<Appointment> search(Predicate<Appointment> filter) {
-        List<Appointment> results = new ArrayList<>();
-        for (Appointment current : book) {
-            if (filter.test(current)) {
-                results.add(current);
-            }
+    private void record(BookSnapshot before, Appointment added, Appointment removed) {
+        if (loading || before == current) {
+            return;
         }
-        return results;
+        redoHistory.clear();
+        undoHistory.push(new Revision(before, current, added, removed));
+        if (undoHistory.size() > MAX_HISTORY) {
+            undoHistory.removeLast();
+        }
+        changed(added, removed);
     }
 
     /**
-     * Removes an {@code appointment} from this book.
+     * Registers {@code listener} to be run after every change of this book,
+     * undo and redo included, on the thread that made the change.
      *
-     * @param appointment appointment to be removed from this book, if present
-     * @return true if this book contained the specified appointment
+     * @param listener the action to be run, not null
      */
-    public boolean delete(Appointment appointment) {
-        return book.remove(appointment);
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
     }
 
     /**
-     * Returns a sorted clone of this book.
+     * Removes a listener registered with {@link Book#addChangeListener(Runnable)}.
      *
-     * @return a sorted clone of this book, not null
+     * @param listener the action to be removed
      */
-    public List<Appointment> getSortedBook() {
-        List<Appointment> sortedBook = new ArrayList<>(book);
-        Collections.sort(sortedBook);
-        return sortedBook;
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
     }
 
     /**
-     * Edits one or more field of existing appointment.
+     * Returns the feed of the changes of this book: additions, removals,
+     * edits, loads and saves, undo and redo included.
      *
      * <p>
-     * For every change it follows a check for possible overlaps.
+     * Nothing is published until this method is called the first time.
+     * Publishing never waits for the subscribers, which by default receive the
+     * changes on the common pool.
      * </p>
      *
-     * @param old         an existing appointment
-     * @param date        The String that represents a new date.
-     * @param startTime   The String that represents a new appointment time.
-     * @param duration    the new duration, measured in minutes
-     * @param description The String containing the new person’s name with who
-     *                    appointment is made.
-     * @param place       The String containing the new name of a place where
-     *                    appointment is made.
-     * @return an overlapped appointment, null otherwise
-     * @throws DateTimeParseException   if the text cannot be parsed to a date or
-     *                                  appointment time
-     * @throws IllegalArgumentException if the {@code String} does not contain a
-     *                                  parsable {@code Appointment}.
+     * @return the change feed, not null
      */
-    public Appointment edit(Appointment old, String date, String startTime, String duration, String description, String place) {
-        Appointment newAppointment = new Appointment(date.isEmpty() ? old.getDate().format(Appointment.FORMATTER_DATE) : date,
-                startTime.isEmpty() ? old.getStartTime().format(Appointment.FORMATTER_TIME) : startTime,
-                duration.isEmpty() ? (int) old.getDuration().toMinutes() : Integer.parseInt(duration),
-                description.isEmpty() ? old.getDescription() : description,
-                place.isEmpty() ? old.getPlace() : place);
-        if (old.equals(newAppointment)) {
-            return null;
+    public ChangeFeed changes() {
+        ChangeFeed changes = feed;
+        if (changes == null) {
+            synchronized (changeListeners) {
+                changes = feed;
+                if (changes == null) {
+                    feed = changes = new ChangeFeed(ChangeFeed.DEFAULT_CAPACITY, ForkJoinPool.commonPool());
+                }
+            }
         }
-        delete(old);
-        Appointment overlapped = overlapsAll(newAppointment);
-        if (overlapped != null) {
-            book.add(old);
-            return overlapped;
+        return changes;
+    }
+
+    private void changed(Appointment added, Appointment removed) {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+        publish(BookChange.of(added, removed, current));
+    }
+
+    private void publish(BookChange change) {
+        ChangeFeed changes = feed;
+        if (changes != null) {
+            changes.publish(change);
         }
-        book.add(newAppointment);
-        return null;
     }
 
     /**
-     * Returns an iterator over elements of type {@code Appointment}.
+     * Reads {@code file} and loads this book.
      *
-     * @return an Iterator.
+     * <p>
+     * A recurring appointment that collides is reported with its first
+     * occurrence.
+     * </p>
+     *
+     * @return A couple appointments that collide.
+     * @throws IOException if an I/O error occurs while reading to {@code file}
+     * @see Book#loadBookFromFile(Collection)
      */
-    @Override
-    public Iterator<Appointment> iterator() {
-        return getSortedBook().iterator();
+    public Map<Appointment, Appointment> loadBookFromFile() throws IOException {
+        return loadBookFromFile(new ArrayList<>());
+    }
+
+    /**
+     * Reads {@code file} and loads this book.
+     *
+     * <p>
+     * A line equal to an appointment already in this book is not a collision:
+     * it is logged as a duplicate and added to {@code duplicates}. A recurring
+     * appointment is reported with its first occurrence.
+     * </p>
+     *
+     * <p>
+     * Loading cannot be undone: the history of changes is cleared. A
+     * block-compressed file is recognized by its header.
+     * </p>
+     *
+     * <p>
+     * If the sidecar is enabled, loading a file into an empty book writes a
+     * sidecar next to it. As long as the file does not change, the next load
+     * into an empty book reads the sidecar instead: the appointments come
+     * already sorted and checked, so parsing and collision checks are skipped.
+     * </p>
+     *
+     * @param duplicates the collection that receives the duplicated appointments
+     * @return A couple appointments that collide.
+     * @throws IOException if an I/O error occurs while reading to {@code file}
+     * @see Book#loadBookFromFile(Collection, LoadReport)
+     */
+    public Map<Appointment, Appointment> loadBookFromFile(Collection<Appointment> duplicates) throws IOException {
+        return loadBookFromFile(duplicates, new LoadReport());
+    }
+
+    /**
+     * Reads {@code file} and loads this book, as
+     * {@link Book#loadBookFromFile(Collection)}, reporting the malformed and
+     * duplicated lines to {@code report}.
+     *
+     * <p>
+     * When the book is loaded from its sidecar no line is read: the problems
+     * found by the load that wrote the sidecar are replayed into
+     * {@code report}. If the sidecar kept fewer samples than {@code report}
+     * needs, the file is read again.
+     * </p>
+     *
+     * @param duplicates the collection that receives the duplicated appointments
+     * @param report     the report that receives the problems found
+     * @return A couple appointments that collide.
+     * @throws IOException if an I/O error occurs while reading to {@code file}
+     */
+    public Map<Appointment, Appointment> loadBookFromFile(Collection<Appointment> duplicates, LoadReport report) throws IOException {
+        boolean empty = current.isEmpty();
+        if (empty && useSidecar) {
+            BookSidecar sidecar = BookSidecar.read(file, getZone());
+            long errors = 0;
+            for (long count : sidecar == null ? new long[0] : sidecar.counts) {
+                errors += count;
+            }
+            if (sidecar != null && report.canReplay(errors, sidecar.samples.size())) {
+                report.replay(sidecar.lines, sidecar.counts, sidecar.samples);
+                load(sidecar);
+                saved = current;
+                loadCollisions = Collections.unmodifiableMap(new LinkedHashMap<>(sidecar.collisions));
+                publish(new BookChange(BookChange.Kind.LOADED, null, null, current));
+                duplicates.addAll(sidecar.duplicates);
+                return sidecar.collisions;
+            }
+        }
+        Map<Appointment, Appointment> collisions = new HashMap<>();
+        List<Appointment> found = new ArrayList<>();
+        loading = true;
+        long loaded = 0;
+        // the key of the sidecar comes from the bytes read, not from the file as it is afterwards
+        long length = file.length();
+        long modified = file.lastModified();
+        CRC32 crc = new CRC32();
+        try (BufferedReader bufferedReader = newReader(file, crc)) {
+            String line;
+            Appointment overlapped, appointment;
+            while ((line = bufferedReader.readLine()) != null) {
+                loaded++;
+                String[] values = Appointment.split(line);
+                if (values.length == Appointment.ARGC) {
+                    ParseResult parsed = Appointment.tryParse(line, values);
+                    if (!parsed.isValid()) {
+                        report.add(loaded, parsed.getKind(), parsed.getPosition(), line);
+                        continue;
+                    }
+                    appointment = parsed.getAppointment();
+                    overlapped = contains(appointment) ? appointment : add(appointment);
+                } else if (values.length == RecurringAppointment.ARGC) {
+                    ParseResult parsed = RecurringAppointment.tryParse(line, values);
+                    if (!parsed.isValid()) {
+                        report.add(loaded, parsed.getKind(), parsed.getPosition(), line);
+                        continue;
+                    }
+                    RecurringAppointment rule = parsed.getRule();
+                    appointment = rule.getFirst();
+                    overlapped = current.getRules().contains(rule) ? appointment : add(rule);
+                } else {
+                    report.add(loaded, ParseErrorKind.FIELD_COUNT, 1, line);
+                    continue;
+                }
+                if (overlapped == appointment) {
+                    found.add(appointment);
+                    report.add(loaded, ParseErrorKind.DUPLICATE, 1, line);
+                } else if (overlapped != null) {
+                    collisions.put(appointment, overlapped);
+                }
+            }
+        } finally {
+            report.finish(loaded);
+            loading = false;
+            undoHistory.clear();
+            redoHistory.clear();
+        }
+        duplicates.addAll(found);
+        loadCollisions = Collections.unmodifiableMap(new LinkedHashMap<>(collisions));
+        if (empty) {
+            saved = current;
+            writeSidecar(file, new BookSidecar.Key(length, modified, crc.getValue()), current, collisions, found, report);
+        }
+        publish(new BookChange(BookChange.Kind.LOADED, null, null, current));
+        return collisions;
+    }
+
+    /**
+     * Applies the changes made to {@code file} by another program: removals
+     * first, then additions.
+     *
+     * <p>
+     * The changes are applied as a whole, like a load: they cannot be undone
+     * and the history is cleared, since its revisions do not contain them. If
+     * this book was saved, it is still saved afterwards, so they are not
+     * written back. An addition that collides with this book is not applied,
+     * and neither is the removal of an appointment that has been changed
+     * locally since the last save: both are returned as conflicts.
+     * </p>
+     *
+     * @return a couple appointments that collide: the key comes from the file,
+     * the value belongs to this book
+     */
+    Map<Appointment, Appointment> applyExternalChanges(Collection<RecurringAppointment> removedRules, Collection<Appointment> removed,
+                                                       Collection<RecurringAppointment> addedRules, Collection<Appointment> added) {
+        Map<Appointment, Appointment> conflicts = new LinkedHashMap<>();
+        BookSnapshot base = saved;
+        boolean wasSaved = base == current;
+        loading = true;
+        try {
+            for (RecurringAppointment rule : removedRules) {
+                if (!delete(rule)) {
+                    for (RecurringAppointment local : current.getRules()) {
+                        if (local.getFirst().equals(rule.getFirst())) {
+                            conflicts.put(rule.getFirst(), local.getFirst());
+                        }
+                    }
+                }
+            }
+            for (Appointment appointment : removed) {
+                if (current.tree().contains(appointment)) {
+                    delete(appointment);
+                } else if (!contains(appointment)) {
+                    Appointment overlapped = overlapsAll(appointment);
+                    if (overlapped != null && (base == null || !base.tree().contains(overlapped))) {
+                        conflicts.put(appointment, overlapped);
+                    }
+                }
+            }
+            for (RecurringAppointment rule : addedRules) {
+                if (!current.getRules().contains(rule)) {
+                    Appointment overlapped = add(rule);
+                    if (overlapped != null) {
+                        conflicts.put(rule.getFirst(), overlapped);
+                    }
+                }
+            }
+            for (Appointment appointment : added) {
+                if (!contains(appointment)) {
+                    Appointment overlapped = add(appointment);
+                    if (overlapped != null) {
+                        conflicts.put(appointment, overlapped);
+                    }
+                }
+            }
+        } finally {
+            loading = false;
+            undoHistory.clear();
+            redoHistory.clear();
+        }
+        if (wasSaved) {
+            saved = current;
+        }
+        publish(new BookChange(BookChange.Kind.LOADED, null, null, current));
+        return conflicts;
+    }
+
+    /**
+     * Opens a reader over the lines of {@code file}, block-compressed or not.
+     */
+    static BufferedReader newReader(File file) throws IOException {
+        return newReader(file, null);
+    }
+
+    /**
+     * Opens a reader over the lines of {@code file}, as
+     * {@link Book#newReader(File)}, that updates {@code checksum}, if not null,
+     * with the text read.
+     */
+    static BufferedReader newReader(File file, Checksum checksum) throws IOException {
+        boolean block = BlockBookFile.isBlockFile(file);
+        InputStream in = block ? BlockBookFile.newInputStream(file) : new FileInputStream(file);
+        if (checksum != null) {
+            in = new CheckedInputStream(in, checksum);
+        }
+        return new BufferedReader(block ? new InputStreamReader(in, StandardCharsets.UTF_8) : new InputStreamReader(in));
+    }
+
+    /**
+     * Opens a stream over the text of {@code file}: its bytes, or the ones of
+     * its blocks decompressed if it is block-compressed. The stream updates
+     * {@code checksum}, if not null, with the bytes read.
+     */
+    static InputStream newInputStream(File file, Checksum checksum) throws IOException {
+        InputStream in = BlockBookFile.isBlockFile(file) ? BlockBookFile.newInputStream(file) : new FileInputStream(file);
+        return checksum == null ? in : new CheckedInputStream(in, checksum);
+    }
+
+    /**
+     * Replaces the content of this book with the content of {@code sidecar}.
+     */
+    private void load(BookSidecar sidecar) {
+        current = new BookSnapshot(AppointmentTree.fromSorted(sidecar.sorted), Collections.unmodifiableList(sidecar.rules));
+        index.clear();
+        for (BookIndex secondary : indexes) {
+            secondary.cleared();
+        }
+        for (Appointment appointment : sidecar.sorted) {
+            index(appointment);
+            maxDuration = Math.max(maxDuration, appointment.getDuration().toMinutes());
+        }
+        undoHistory.clear();
+        redoHistory.clear();
+    }
+
+    /**
+     * Writes the sidecar of {@code file}, whose content with {@code key} is
+     * exactly {@code snapshot}, if sidecars are enabled. A failure only costs
+     * a slower load the next time.
+     */
+    private void writeSidecar(File file, BookSidecar.Key key, BookSnapshot snapshot, Map<Appointment, Appointment> collisions,
+                              Collection<Appointment> duplicates, LoadReport report) {
+        if (!useSidecar) {
+            return;
+        }
+        try {
+            BookSidecar.write(file, key, getZone(), snapshot, collisions, duplicates, report);
+        } catch (IOException e) {
+            LOGGER.info("Cannot write the index of " + file + ": " + e.getMessage() + System.lineSeparator());
+        }
+    }
+
+    /**
+     * Appends a new appointment to this book specifying all data about an
+     * appointment.
+     *
+     * <p>
+     * The new appointment must not collide with another.
+     * </p>
+     *
+     * @param date        The String that represents a date.
+     * @param startTime   The String that represents an appointment time.
+     * @param duration    the duration, measured in minutes
+     * @param description The String containing the person’s name with who
+     *                    appointment is made.
+     * @param place       The String containing the name of a place where
+     *                    appointment is made.
+     * @return an overlapped appointment, null otherwise
+     * @throws DateTimeParseException   if the text cannot be parsed to a date or
+     *                                  appointment time
+     * @throws IllegalArgumentException if the {@code String} does not contain a
+     *                                  parsable {@code Appointment}.
+     * @see Appointment#Appointment(String, String, int, String, String)
+     */
+    public Appointment add(String date, String startTime, int duration, String description, String place) {
+        return add(new Appointment(date, startTime, duration, description, place));
+    }
+
+    /**
+     * Appends a new appointment to this book.
+     *
+     * @param appointment the new appointment, not null
+     * @return an overlapped appointment, null otherwise
+     * @see Book#overlapsAll(Appointment)
+     */
+    public Appointment add(Appointment appointment) {
+        Appointment overlapped = overlapsAll(appointment);
+        if (overlapped == null) {
+            BookSnapshot before = current;
+            insert(appointment);
+            record(before, appointment, null);
+        }
+        return overlapped;
+    }
+
+    /**
+     * Appends a new recurring appointment to this book.
+     *
+     * <p>
+     * No occurrence of the new rule may collide with another appointment.
+     * </p>
+     *
+     * @param rule the new recurring appointment, not null
+     * @return an overlapped appointment or occurrence, null otherwise
+     * @see Book#overlapsAll(RecurringAppointment)
+     */
+    public Appointment add(RecurringAppointment rule) {
+        Appointment overlapped = overlapsAll(rule);
+        if (overlapped == null) {
+            BookSnapshot before = current;
+            List<RecurringAppointment> rules = new ArrayList<>(current.getRules());
+            rules.add(rule);
+            current = current.with(rules);
+            record(before, null, null);
+        }
+        return overlapped;
+    }
+
+    /**
+     * Checks if {@code appointment} collides with another.
+     *
+     * <p>
+     * Only the appointments that start near {@code appointment} are checked:
+     * the window is widened by the longest duration in this book and by two
+     * days, more than any change of offset of a time-zone. If the occupancy
+     * layer is enabled and the minutes of {@code appointment} are free, the
+     * tree is not walked at all.
+     * </p>
+     *
+     * @param appointment an appointment to be checked
+     * @return an overlapped appointment or occurrence, null otherwise
+     * @see Book#overlaps(Appointment, Appointment)
+     */
+    public Appointment overlapsAll(Appointment appointment) {
+        ZoneOffsetTable table = offsets(appointment);
+        long start = appointment.getStartEpochSecond(table);
+        long end = appointment.getEndEpochSecond(table);
+        BookSnapshot snapshot = current;
+        LocalDateTime from = appointment.toDateTime().minusMinutes(maxDuration).minusDays(2);
+        LocalDateTime to = appointment.toEndDateTime().plusDays(2);
+        // an empty interval only collides with an identical one, which takes no minute
+        boolean free = occupancy != null && start < end && occupancy.isFree(start, end);
+        for (Iterator<Appointment> iterator = snapshot.tree().iterator(from, to); !free && iterator.hasNext(); ) {
+            Appointment current = iterator.next();
+            table = offsets(current);
+            if (overlaps(current.getStartEpochSecond(table), current.getEndEpochSecond(table), start, end)) {
+                return current;
+            }
+        }
+        for (RecurringAppointment rule : snapshot.getRules()) {
+            Appointment overlapped = rule.overlaps(appointment, offsets);
+            if (overlapped != null) {
+                return overlapped;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if an appointment or an occurrence takes the minute that
+     * starts at {@code minute}.
+     *
+     * @param minute the start of the minute, in the time-zone of this book
+     * @return true if the minute is taken
+     * @see Book#setOccupancyEnabled(boolean)
+     */
+    public boolean isBusy(LocalDateTime minute) {
+        return overlapsAll(probe(minute, 1)) != null;
+    }
+
+    /**
+     * Finds the first start, from {@code from} and before {@code to}, of
+     * {@code minutes} free minutes.
+     *
+     * <p>
+     * After every collision the search moves to the end of the overlapped
+     * appointment, so it is faster with the occupancy layer enabled.
+     * </p>
+     *
+     * @param from    the earliest start
+     * @param to      the start at which the search stops
+     * @param minutes the length of the free slot, measured in minutes
+     * @return the start of the free slot, null if there is none
+     * @throws IllegalArgumentException if {@code minutes} is not positive
+     * @see Book#setOccupancyEnabled(boolean)
+     */
+    public LocalDateTime nextFreeSlot(LocalDateTime from, LocalDateTime to, int minutes) {
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("Sorry, " + minutes + " is an invalid duration. Please enter only minutes (>0).");
+        }
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        while (start.isBefore(to)) {
+            Appointment overlapped = overlapsAll(probe(start, minutes));
+            if (overlapped == null) {
+                return start;
+            }
+            LocalDateTime end = overlapped.toEndDateTime();
+            start = end.isAfter(start) ? end : start.plusMinutes(1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns an appointment that takes {@code minutes} from {@code start}.
+     */
+    private static Appointment probe(LocalDateTime start, int minutes) {
+        return new Appointment(start.toLocalDate(), start.toLocalTime(), Duration.ofMinutes(minutes), "", "");
+    }
+
+    /**
+     * Checks if any occurrence of {@code rule} collides with another
+     * appointment.
+     *
+     * @param rule a recurring appointment to be checked
+     * @return an overlapped appointment or occurrence, null otherwise
+     * @see RecurringAppointment#overlaps(RecurringAppointment)
+     */
+    public Appointment overlapsAll(RecurringAppointment rule) {
+        ZoneOffsetTable table = offsets(rule.getFirst());
+        BookSnapshot snapshot = current;
+        for (Appointment current : snapshot) {
+            if (rule.overlaps(current, table) != null) {
+                return current;
+            }
+        }
+        for (RecurringAppointment current : snapshot.getRules()) {
+            Appointment overlapped = rule.overlaps(current, table);
+            if (overlapped != null) {
+                return overlapped;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the appointments of this book against the appointments of
+     * {@code other}, each one taken in the time-zone of its own book.
+     *
+     * <p>
+     * Both books are converted to instants and swept once in order of start.
+     * Recurring appointments are expanded over the dates of the single
+     * appointments and of the rules of both books, from the earliest first
+     * occurrence to the latest last one. Rules that go on past those dates are
+     * also checked couple by couple with
+     * {@link RecurringAppointment#overlaps(RecurringAppointment)}, over their
+     * whole common cycle, so a collision of two rules is found however far it
+     * is.
+     * </p>
+     *
+     * @param other another book, possibly in another time-zone
+     * @return a couple appointments that collide for every appointment of this
+     * book that collides: the key belongs to this book, the value to
+     * {@code other}
+     */
+    public Map<Appointment, Appointment> collisions(Book other) {
+        Map<Appointment, Appointment> collisions = new HashMap<>();
+        List<LocalDate> dates = new ArrayList<>();
+        for (Book book : Arrays.asList(this, other)) {
+            BookSnapshot snapshot = book.current;
+            if (!snapshot.tree().isEmpty()) {
+                dates.add(snapshot.tree().get(0).getDate());
+                dates.add(snapshot.tree().get(snapshot.size() - 1).getDate());
+            }
+            for (RecurringAppointment rule : snapshot.getRules()) {
+                dates.add(rule.getFirst().getDate());
+                if (rule.lastDate() != null) {
+                    dates.add(rule.lastDate());
+                }
+            }
+        }
+        LocalDate from = LocalDate.MAX, to = LocalDate.MIN;
+        for (LocalDate date : dates) {
+            from = date.isBefore(from) ? date : from;
+            to = date.isAfter(to) ? date : to;
+        }
+        if (from.isAfter(to)) {
+            return collisions;
+        }
+        List<Interval> intervals = intervals(from.minusDays(1), to.plusDays(1), true);
+        intervals.addAll(other.intervals(from.minusDays(1), to.plusDays(1), false));
+        Collections.sort(intervals);
+        Comparator<Interval> byEnd = (a, b) -> Long.compare(a.end, b.end);
+        List<PriorityQueue<Interval>> active = Arrays.asList(new PriorityQueue<>(byEnd), new PriorityQueue<>(byEnd));
+        for (Interval current : intervals) {
+            PriorityQueue<Interval> others = active.get(current.mine ? 1 : 0);
+            while (!others.isEmpty() && others.peek().end <= current.start) {
+                others.poll();
+            }
+            for (Interval overlapped : others) {
+                if (current.mine) {
+                    collisions.putIfAbsent(current.appointment, overlapped.appointment);
+                } else {
+                    collisions.putIfAbsent(overlapped.appointment, current.appointment);
+                }
+            }
+            active.get(current.mine ? 0 : 1).add(current);
+        }
+        ZoneOffsetTable table = offsets;
+        ZoneOffsetTable otherTable = other.offsets;
+        for (RecurringAppointment rule : current.getRules()) {
+            for (RecurringAppointment otherRule : other.current.getRules()) {
+                Appointment overlapped = rule.overlaps(otherRule, table, otherTable);
+                if (overlapped != null) {
+                    Appointment occurrence = rule.overlaps(overlapped, table, otherTable);
+                    if (occurrence != null) {
+                        collisions.putIfAbsent(occurrence, overlapped);
+                    }
+                }
+            }
+        }
+        return collisions;
+    }
+
+    /**
+     * Finds every couple of appointments of this book that overlap.
+     *
+     * <p>
+     * Checks on insertion keep a book free of overlaps, but its appointments
+     * may collide after a change of time-zone. Recurring appointments are
+     * expanded over the dates of the single appointments and of the first
+     * occurrences. The collisions found by the last load are reported as well,
+     * as long as the appointment kept in this book is still there and the book
+     * has not been saved since: the appointment of the file that was left out
+     * makes a couple with it.
+     * </p>
+     *
+     * <p>
+     * The appointments are converted to instants, sorted and swept once,
+     * in O(n log n + k) for k overlapping couples. A large book is split into
+     * chunks of whole days swept in parallel on the common
+     * {@link ForkJoinPool}: a chunk also receives the earlier appointments
+     * still running when it starts.
+     * </p>
+     *
+     * @return every overlapping couple, once: the key starts earlier, or at
+     * the same instant and it comes first in sorted order; couples are sorted
+     * by the start of the value
+     * @see Book#overlaps(long, long, long, long)
+     */
+    public List<Map.Entry<Appointment, Appointment>> audit() {
+        return audit(AUDIT_CHUNK);
+    }
+
+    /**
+     * Finds every couple of appointments of this book that overlap, sweeping
+     * chunks of at least {@code chunk} appointments.
+     */
+    List<Map.Entry<Appointment, Appointment>> audit(int chunk) {
+        BookSnapshot snapshot = current;
+        LocalDate from = LocalDate.MAX, to = LocalDate.MIN;
+        if (!snapshot.tree().isEmpty()) {
+            from = snapshot.tree().get(0).getDate();
+            to = snapshot.tree().get(snapshot.size() - 1).getDate();
+        }
+        for (RecurringAppointment rule : snapshot.getRules()) {
+            from = rule.getFirst().getDate().isBefore(from) ? rule.getFirst().getDate() : from;
+            to = rule.getFirst().getDate().isAfter(to) ? rule.getFirst().getDate() : to;
+        }
+        if (from.isAfter(to)) {
+            return withLoadCollisions(new ArrayList<>());
+        }
+        List<Interval> list = intervals(from.minusDays(1), to.plusDays(1), true);
+        list.sort(Audit.ORDER);
+        Interval[] intervals = list.toArray(new Interval[0]);
+        long maxLength = 0;
+        for (Interval interval : intervals) {
+            maxLength = Math.max(maxLength, interval.end - interval.start);
+        }
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int i = 1; i < intervals.length; i++) {
+            if (i - bounds.get(bounds.size() - 1) >= chunk
+                    && Math.floorDiv(intervals[i].start, SECONDS_PER_DAY) != Math.floorDiv(intervals[i - 1].start, SECONDS_PER_DAY)) {
+                bounds.add(i);
+            }
+        }
+        bounds.add(intervals.length);
+        List<Map.Entry<Appointment, Appointment>> overlaps = ForkJoinPool.commonPool().invoke(new Audit(intervals, bounds, 0, bounds.size() - 1, maxLength));
+        return withLoadCollisions(overlaps);
+    }
+
+    /**
+     * Adds to {@code overlaps}, sorted by the start of the value, the
+     * collisions of the last load whose appointment is still in this book.
+     */
+    private List<Map.Entry<Appointment, Appointment>> withLoadCollisions(List<Map.Entry<Appointment, Appointment>> overlaps) {
+        Map<Appointment, Appointment> collisions = loadCollisions;
+        if (collisions.isEmpty()) {
+            return overlaps;
+        }
+        ZoneOffsetTable table = offsets;
+        int size = overlaps.size();
+        for (Map.Entry<Appointment, Appointment> collision : collisions.entrySet()) {
+            Appointment left = collision.getKey(), kept = collision.getValue();
+            if (contains(kept)) {
+                table = table.covering(left.getDate()).covering(kept.getDate());
+                long leftStart = left.getStartEpochSecond(table), keptStart = kept.getStartEpochSecond(table);
+                boolean leftFirst = leftStart < keptStart || leftStart == keptStart && AppointmentTree.ORDER.compare(left, kept) <= 0;
+                overlaps.add(new AbstractMap.SimpleImmutableEntry<>(leftFirst ? left : kept, leftFirst ? kept : left));
+            }
+        }
+        if (overlaps.size() > size) {
+            ZoneOffsetTable sorting = table;
+            // stable: the couples of a same value keep the order of their keys
+            overlaps.sort(Comparator.comparingLong(entry -> entry.getValue().getStartEpochSecond(sorting)));
+        }
+        return overlaps;
+    }
+
+    /**
+     * Converts to instants the appointments of this book and the occurrences
+     * between {@code from} and {@code to}.
+     */
+    private List<Interval> intervals(LocalDate from, LocalDate to, boolean mine) {
+        BookSnapshot snapshot = current;
+        List<Appointment> appointments = snapshot.getSortedBook();
+        for (RecurringAppointment rule : snapshot.getRules()) {
+            appointments.addAll(rule.occurrences(from, to));
+        }
+        List<Interval> intervals = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            ZoneOffsetTable table = offsets(appointment);
+            intervals.add(new Interval(appointment, appointment.getStartEpochSecond(table), appointment.getEndEpochSecond(table), mine));
+        }
+        return intervals;
+    }
+
+    /**
+     * Returns search result for {@code filter}.
+     *
+     * @param filter the criterion for selecting
+     * @return a list of appointments
+     */
+    public List<Appointment> search(Predicate<Appointment> filter) {
+        return current.search(filter);
+    }
+
+    /**
+     * Returns search result for {@code filter} among the appointments and the
+     * occurrences that start between {@code from} and {@code to}, both included.
+     *
+     * <p>
+     * Recurring appointments are expanded only inside the window.
+     * </p>
+     *
+     * @param filter the criterion for selecting
+     * @param from   the first date of the window
+     * @param to     the last date of the window
+     * @return a list of appointments
+     */
+    public List<Appointment> search(Predicate<Appointment> filter, LocalDate from, LocalDate to) {
+        return current.search(filter, from, to);
+    }
+
+    /**
+     * Returns a page of search result for {@code filter}, occurrences
+     * excluded.
+     *
+     * <p>
+     * In order of start the search stops as soon as the page is full, so the
+     * first page costs the same whatever the number of matches. In the other
+     * orders every appointment is tested, but only the best
+     * {@code offset + limit} are kept.
+     * </p>
+     *
+     * @param filter the criterion for selecting
+     * @param order  the order of the results
+     * @param offset the number of results to be skipped
+     * @param limit  the maximum number of results
+     * @return at most {@code limit} appointments, in {@code order}
+     * @throws IllegalArgumentException if {@code offset} or {@code limit} is
+     *                                  negative
+     */
+    public List<Appointment> search(Predicate<Appointment> filter, SortOrder order, int offset, int limit) {
+        return current.search(filter, order, offset, limit);
+    }
+
+    /**
+     * Returns the page of search result for {@code filter} that follows
+     * {@code after}, in order of start, occurrences excluded. The next page
+     * follows the last appointment of this one.
+     *
+     * @param filter the criterion for selecting
+     * @param after  the last appointment of the previous page
+     * @param limit  the maximum number of results
+     * @return at most {@code limit} appointments sorted by start
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public List<Appointment> searchAfter(Predicate<Appointment> filter, Appointment after, int limit) {
+        return current.searchAfter(filter, after, limit);
+    }
+
+    /**
+     * Returns the descriptions of this book that start with {@code prefix},
+     * ignoring case and spacing, the most used first. Occurrences are not
+     * counted.
+     *
+     * @param prefix the text typed so far
+     * @param limit  the maximum number of completions
+     * @return at most {@code limit} descriptions, not null
+     */
+    public List<String> completeDescription(String prefix, int limit) {
+        return descriptions.complete(prefix, limit);
+    }
+
+    /**
+     * Returns the places of this book that start with {@code prefix},
+     * ignoring case and spacing, the most used first. Occurrences are not
+     * counted.
+     *
+     * @param prefix the text typed so far
+     * @param limit  the maximum number of completions
+     * @return at most {@code limit} places, not null
+     */
+    public List<String> completePlace(String prefix, int limit) {
+        return placeNames.complete(prefix, limit);
+    }
+
+    /**
+     * Returns the appointments whose description is similar to
+     * {@code description}, occurrences excluded.
+     *
+     * <p>
+     * A description is similar if the whole description, or one of its words,
+     * can be turned into {@code description} with at most {@code maxDistance}
+     * insertions, deletions or substitutions of a character, ignoring case.
+     * Candidates are found through an index of trigrams, so the cost depends
+     * on the similar descriptions rather than on the size of this book.
+     * </p>
+     *
+     * @param description the text to be matched, even misspelled
+     * @param maxDistance the maximum edit distance
+     * @param limit       the maximum number of results
+     * @return at most {@code limit} appointments, the closest first, then
+     * sorted by start
+     * @throws IllegalArgumentException if {@code maxDistance} or {@code limit}
+     *                                  is negative
+     * @see Book#forDescription(String)
+     */
+    public List<Appointment> fuzzySearch(String description, int maxDistance, int limit) {
+        if (maxDistance < 0 || limit < 0) {
+            throw new IllegalArgumentException("Sorry, negative distance or limit.");
+        }
+        Map<Appointment, Integer> distances = fuzzy.search(description, maxDistance);
+        Comparator<Appointment> order = Comparator.<Appointment>comparingInt(distances::get).thenComparing(AppointmentTree.ORDER);
+        PriorityQueue<Appointment> top = new PriorityQueue<>(order.reversed());
+        for (Appointment appointment : distances.keySet()) {
+            if (top.size() < limit) {
+                top.add(appointment);
+            } else if (limit > 0 && order.compare(appointment, top.peek()) < 0) {
+                top.poll();
+                top.add(appointment);
+            }
+        }
+        List<Appointment> results = new ArrayList<>(top);
+        results.sort(order);
+        return results;
+    }
+
+    /**
+     * Returns the appointments that match {@code query}.
+     *
+     * <p>
+     * Unlike {@link Book#search(Predicate)}, the query is planned: the
+     * indexes of this book select the candidates and only those are checked.
+     * Occurrences of recurring appointments are included when the query
+     * bounds the dates.
+     * </p>
+     *
+     * @param query the query to be run
+     * @return a list of appointments sorted by start, then the occurrences
+     * @see Book#explain(Query)
+     */
+    public List<Appointment> search(Query query) {
+        return new QueryPlanner(current, places, calendar).search(query);
+    }
+
+    /**
+     * Describes how {@code query} would run, without running it: the indexes
+     * used, the estimated number of candidates and whether occurrences are
+     * expanded.
+     *
+     * @param query the query to be described
+     * @return the plan, one step per line
+     * @see Book#search(Query)
+     */
+    public String explain(Query query) {
+        return new QueryPlanner(current, places, calendar).explain(query);
+    }
+
+    /**
+     * Returns the appointments at {@code place}, occurrences excluded.
+     *
+     * <p>
+     * Places are compared ignoring case and spacing, through an index:
+     * the appointments at other places are not looked at.
+     * </p>
+     *
+     * @param place the place of the appointments
+     * @return a list of appointments sorted by start
+     */
+    public List<Appointment> search(String place) {
+        List<Appointment> results = new ArrayList<>();
+        places.iterator(place, null, null).forEachRemaining(results::add);
+        return results;
+    }
+
+    /**
+     * Returns the appointments and the occurrences at {@code place} that start
+     * between {@code from} and {@code to}, both included.
+     *
+     * <p>
+     * Places are compared ignoring case and spacing, through an index:
+     * the appointments at other places are not looked at.
+     * </p>
+     *
+     * @param place the place of the appointments
+     * @param from  the first date of the window
+     * @param to    the last date of the window
+     * @return a list of appointments sorted by start
+     */
+    public List<Appointment> search(String place, LocalDate from, LocalDate to) {
+        List<Appointment> results = new ArrayList<>();
+        places.iterator(place, from.atStartOfDay(), to.plusDays(1).atStartOfDay()).forEachRemaining(results::add);
+        String key = PlaceIndex.key(place);
+        for (RecurringAppointment rule : current.getRules()) {
+            if (PlaceIndex.key(rule.getFirst().getPlace()).equals(key)) {
+                results.addAll(rule.occurrences(from, to));
+            }
+        }
+        AppointmentKeys.sort(results);
+        return results;
+    }
+
+    /**
+     * Returns how long {@code place} is booked by the appointments and the
+     * occurrences that start between {@code from} and {@code to}, both
+     * included.
+     *
+     * @param place the place of the appointments
+     * @param from  the first date of the window
+     * @param to    the last date of the window
+     * @return the sum of the durations, not null
+     * @see Book#search(String, LocalDate, LocalDate)
+     */
+    public Duration occupancy(String place, LocalDate from, LocalDate to) {
+        Duration occupancy = Duration.ZERO;
+        for (Appointment appointment : search(place, from, to)) {
+            occupancy = occupancy.plus(appointment.getDuration());
+        }
+        return occupancy;
+    }
+
+    /**
+     * Returns the number of appointments and occurrences that start between
+     * {@code from} and {@code to}, both included, and their booked minutes.
+     *
+     * <p>
+     * The totals of the appointments are kept per day and updated on every
+     * change, so they are summed in O(log n) whatever the window; recurring
+     * appointments are expanded only inside the window. An appointment counts
+     * entirely on the day it starts.
+     * </p>
+     *
+     * @param from the first date of the window
+     * @param to   the last date of the window
+     * @return the totals of the window, not null
+     */
+    public CalendarAggregate aggregate(LocalDate from, LocalDate to) {
+        CalendarAggregate aggregate = calendar.sum(from.toEpochDay(), to.toEpochDay());
+        for (RecurringAppointment rule : current.getRules()) {
+            for (Appointment occurrence : rule.occurrences(from, to)) {
+                aggregate = aggregate.plus(occurrence);
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * Returns the totals of every day, week or month between {@code from} and
+     * {@code to}, both included.
+     *
+     * <p>
+     * Weeks start on Monday. The first and the last period are cut to the
+     * window.
+     * </p>
+     *
+     * @param from the first date of the window
+     * @param to   the last date of the window
+     * @param unit {@code DAYS}, {@code WEEKS} or {@code MONTHS}
+     * @return the totals sorted by the first date of their period
+     * @throws IllegalArgumentException if {@code unit} is not supported
+     * @see Book#aggregate(LocalDate, LocalDate)
+     */
+    public SortedMap<LocalDate, CalendarAggregate> aggregates(LocalDate from, LocalDate to, ChronoUnit unit) {
+        if (unit != ChronoUnit.DAYS && unit != ChronoUnit.WEEKS && unit != ChronoUnit.MONTHS) {
+            throw new IllegalArgumentException("Unsupported unit: " + unit);
+        }
+        SortedMap<LocalDate, CalendarAggregate> aggregates = new TreeMap<>();
+        for (LocalDate start = from; !start.isAfter(to); ) {
+            LocalDate next = unit == ChronoUnit.DAYS ? start.plusDays(1)
+                    : unit == ChronoUnit.WEEKS ? start.with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                    : start.with(TemporalAdjusters.firstDayOfNextMonth());
+            LocalDate end = next.minusDays(1).isAfter(to) ? to : next.minusDays(1);
+            aggregates.put(start, calendar.sum(start.toEpochDay(), end.toEpochDay()));
+            start = next;
+        }
+        for (RecurringAppointment rule : current.getRules()) {
+            for (Appointment occurrence : rule.occurrences(from, to)) {
+                LocalDate period = aggregates.headMap(occurrence.getDate().plusDays(1)).lastKey();
+                aggregates.put(period, aggregates.get(period).plus(occurrence));
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * Removes an {@code appointment} from this book.
+     *
+     * <p>
+     * If {@code appointment} is an occurrence of a recurring appointment, the
+     * occurrence is cancelled.
+     * </p>
+     *
+     * @param appointment appointment to be removed from this book, if present
+     * @return true if this book contained the specified appointment
+     */
+    public boolean delete(Appointment appointment) {
+        BookSnapshot before = current;
+        if (remove(appointment)) {
+            record(before, null, appointment);
+            return true;
+        }
+        if (cancel(appointment, true)) {
+            record(before, null, null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if this book contains {@code appointment}, on its own or as
+     * an occurrence of a recurring appointment.
+     *
+     * @param appointment appointment whose presence in this book is to be tested
+     * @return true if this book contains the specified appointment
+     */
+    public boolean contains(Appointment appointment) {
+        if (index.contains(appointment)) {
+            return true;
+        }
+        for (RecurringAppointment rule : current.getRules()) {
+            if (rule.hasOccurrence(appointment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds {@code appointment} to a new version of this book and to the hash
+     * index.
+     */
+    private void insert(Appointment appointment) {
+        BookSnapshot next = current.with(current.tree().insert(appointment));
+        index(appointment);
+        current = next;
+        maxDuration = Math.max(maxDuration, appointment.getDuration().toMinutes());
+    }
+
+    /**
+     * Removes {@code appointment} from a new version of this book and from the
+     * hash index.
+     *
+     * @return true if {@code appointment} was in this book
+     */
+    private boolean remove(Appointment appointment) {
+        if (!unindex(appointment)) {
+            return false;
+        }
+        current = current.with(current.tree().remove(appointment));
+        return true;
+    }
+
+    /**
+     * Adds {@code appointment} to the hash index and to the secondary indexes.
+     * If an index fails, the ones already updated are rolled back.
+     */
+    private void index(Appointment appointment) {
+        if (index.add(appointment)) {
+            int added = 0;
+            try {
+                for (BookIndex secondary : indexes) {
+                    secondary.added(appointment);
+                    added++;
+                }
+            } catch (RuntimeException | Error e) {
+                for (int i = 0; i < added; i++) {
+                    indexes.get(i).removed(appointment);
+                }
+                index.remove(appointment);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Removes {@code appointment} from the hash index and from the secondary
+     * indexes.
+     *
+     * @return true if {@code appointment} was indexed
+     */
+    private boolean unindex(Appointment appointment) {
+        if (!index.remove(appointment)) {
+            return false;
+        }
+        for (BookIndex secondary : indexes) {
+            secondary.removed(appointment);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a recurring appointment, with all its occurrences, from this book.
+     *
+     * @param rule recurring appointment to be removed from this book, if present
+     * @return true if this book contained the specified recurring appointment
+     */
+    public boolean delete(RecurringAppointment rule) {
+        BookSnapshot before = current;
+        List<RecurringAppointment> rules = new ArrayList<>(current.getRules());
+        if (!rules.remove(rule)) {
+            return false;
+        }
+        current = current.with(rules);
+        record(before, null, null);
+        return true;
+    }
+
+    /**
+     * Returns the recurring appointments of this book.
+     *
+     * @return a clone of the recurring appointments, not null
+     */
+    public List<RecurringAppointment> getRules() {
+        return new ArrayList<>(current.getRules());
+    }
+
+    /**
+     * Cancels or restores the occurrence equal to {@code occurrence}.
+     *
+     * @return true if a recurring appointment has been updated
+     */
+    private boolean cancel(Appointment occurrence, boolean cancelled) {
+        List<RecurringAppointment> rules = new ArrayList<>(current.getRules());
+        for (ListIterator<RecurringAppointment> iterator = rules.listIterator(); iterator.hasNext(); ) {
+            RecurringAppointment rule = iterator.next();
+            RecurringAppointment updated = rule.withException(occurrence.getDate(), cancelled);
+            if (cancelled ? rule.hasOccurrence(occurrence)
+                    : rule.getRecurrence().getExceptions().contains(occurrence.getDate()) && updated.hasOccurrence(occurrence)) {
+                iterator.set(updated);
+                current = current.with(rules);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a sorted clone of this book.
+     *
+     * @return a sorted clone of this book, not null
+     */
+    public List<Appointment> getSortedBook() {
+        return current.getSortedBook();
+    }
+
+    /**
+     * Edits one or more field of existing appointment.
+     *
+     * <p>
+     * For every change it follows a check for possible overlaps. Editing an
+     * occurrence of a recurring appointment cancels it and adds the edited
+     * appointment on its own. The edit is undone as a single change.
+     * </p>
+     *
+     * @param old         an existing appointment
+     * @param date        The String that represents a new date.
+     * @param startTime   The String that represents a new appointment time.
+     * @param duration    the new duration, measured in minutes
+     * @param description The String containing the new person’s name with who
+     *                    appointment is made.
+     * @param place       The String containing the new name of a place where
+     *                    appointment is made.
+     * @return an overlapped appointment, null otherwise
+     * @throws DateTimeParseException   if the text cannot be parsed to a date or
+     *                                  appointment time
+     * @throws IllegalArgumentException if the {@code String} does not contain a
+     *                                  parsable {@code Appointment}.
+     */
+    public Appointment edit(Appointment old, String date, String startTime, String duration, String description, String place) {
+        Appointment newAppointment = new Appointment(date.isEmpty() ? old.getDate().format(Appointment.FORMATTER_DATE) : date,
+                startTime.isEmpty() ? old.getStartTime().format(Appointment.FORMATTER_TIME) : startTime,
+                duration.isEmpty() ? (int) old.getDuration().toMinutes() : Integer.parseInt(duration),
+                description.isEmpty() ? old.getDescription() : description,
+                place.isEmpty() ? old.getPlace() : place);
+        if (old.equals(newAppointment)) {
+            return null;
+        }
+        BookSnapshot before = current;
+        boolean single = remove(old);
+        if (!single) {
+            cancel(old, true);
+        }
+        Appointment overlapped = overlapsAll(newAppointment);
+        if (overlapped != null) {
+            if (single) {
+                index(old);
+            }
+            current = before;
+            return overlapped;
+        }
+        insert(newAppointment);
+        record(before, newAppointment, single ? old : null);
+        return null;
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Appointment}, sorted by
+     * start, on the current snapshot.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Appointment> iterator() {
+        return current.iterator();
+    }
+
+    /**
+     * The order of a paginated search.
+     */
+    public enum SortOrder {
+        START(AppointmentTree.ORDER),
+        START_DESCENDING(AppointmentTree.ORDER.reversed()),
+        DURATION(Comparator.comparing(Appointment::getDuration).thenComparing(AppointmentTree.ORDER)),
+        DESCRIPTION(Comparator.comparing(Appointment::getDescription).thenComparing(AppointmentTree.ORDER)),
+        PLACE(Comparator.comparing(Appointment::getPlace).thenComparing(AppointmentTree.ORDER));
+
+        final Comparator<Appointment> comparator;
+
+        SortOrder(Comparator<Appointment> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * A change of this book: the versions before and after it and the
+     * appointments it added to or removed from the hash index.
+     */
+    private static final class Revision {
+        private final BookSnapshot before;
+        private final BookSnapshot after;
+        private final Appointment added;
+        private final Appointment removed;
+
+        private Revision(BookSnapshot before, BookSnapshot after, Appointment added, Appointment removed) {
+            this.before = before;
+            this.after = after;
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Sweeps the chunks from {@code first} included to {@code last} excluded,
+     * splitting them in halves while there is more than one.
+     */
+    private static final class Audit extends RecursiveTask<List<Map.Entry<Appointment, Appointment>>> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The order of the intervals: by start, then in sorted order.
+         */
+        private static final Comparator<Interval> ORDER =
+                Comparator.<Interval>naturalOrder().thenComparing((a, b) -> AppointmentTree.ORDER.compare(a.appointment, b.appointment));
+        private final Interval[] intervals;
+        private final List<Integer> bounds;
+        private final int first;
+        private final int last;
+        private final long maxLength;
+
+        private Audit(Interval[] intervals, List<Integer> bounds, int first, int last, long maxLength) {
+            this.intervals = intervals;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        protected List<Map.Entry<Appointment, Appointment>> compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                Audit right = new Audit(intervals, bounds, middle, last, maxLength);
+                right.fork();
+                List<Map.Entry<Appointment, Appointment>> overlaps = new Audit(intervals, bounds, first, middle, maxLength).compute();
+                overlaps.addAll(right.join());
+                return overlaps;
+            }
+            return sweep(bounds.get(first), bounds.get(last));
+        }
+
+        /**
+         * Reports the couples whose later appointment is between {@code from}
+         * included and {@code to} excluded.
+         */
+        private List<Map.Entry<Appointment, Appointment>> sweep(int from, int to) {
+            List<Map.Entry<Appointment, Appointment>> overlaps = new ArrayList<>();
+            PriorityQueue<Interval> active = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+            List<Interval> overlapped = new ArrayList<>();
+            if (from < to) {
+                long start = intervals[from].start;
+                for (int i = from - 1; i >= 0 && intervals[i].start >= start - maxLength; i--) {
+                    if (intervals[i].end > start) {
+                        active.add(intervals[i]);
+                    }
+                }
+            }
+            for (int i = from; i < to; i++) {
+                Interval current = intervals[i];
+                while (!active.isEmpty() && active.peek().end <= current.start) {
+                    active.poll();
+                }
+                // the heap is walked in place: only the intervals that overlap are sorted
+                overlapped.clear();
+                for (Interval other : active) {
+                    if (overlaps(other.start, other.end, current.start, current.end)) {
+                        overlapped.add(other);
+                    }
+                }
+                if (overlapped.size() > 1) {
+                    overlapped.sort(ORDER);
+                }
+                for (Interval other : overlapped) {
+                    overlaps.add(new AbstractMap.SimpleImmutableEntry<>(other.appointment, current.appointment));
+                }
+                active.add(current);
+            }
+            return overlaps;
+        }
+    }
+
+    /**
+     * An appointment converted to epoch seconds, ordered by start.
+     */
+    private static final class Interval implements Comparable<Interval> {
+        private final Appointment appointment;
+        private final long start;
+        private final long end;
+        private final boolean mine;
+
+        private Interval(Appointment appointment, long start, long end, boolean mine) {
+            this.appointment = appointment;
+            this.start = start;
+            this.end = end;
+            this.mine = mine;
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            return Long.compare(start, other.start);
+        }
     }
 }
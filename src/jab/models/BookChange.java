@@ -0,0 +1,105 @@
+package jab.models;
+
+/**
+ * The {@code BookChange} is an event of the {@link ChangeFeed} of a
+ * {@link Book}: what changed and the version of the book right after the
+ * change.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#changes()
+ */
+public final class BookChange {
+    private final Kind kind;
+    private final Appointment added;
+    private final Appointment removed;
+    private final BookSnapshot snapshot;
+
+    BookChange(Kind kind, Appointment added, Appointment removed, BookSnapshot snapshot) {
+        this.kind = kind;
+        this.added = added;
+        this.removed = removed;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns the change of a book from the appointments added and removed.
+     */
+    static BookChange of(Appointment added, Appointment removed, BookSnapshot snapshot) {
+        Kind kind = added == null ? removed == null ? Kind.RULES : Kind.REMOVED : removed == null ? Kind.ADDED : Kind.EDITED;
+        return new BookChange(kind, added, removed, snapshot);
+    }
+
+    /**
+     * Gets the kind field.
+     *
+     * @return the kind of the change, not null
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the added field.
+     *
+     * @return the appointment added, or the new version of the appointment
+     * edited, null if none
+     */
+    public Appointment getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the removed field.
+     *
+     * @return the appointment removed, or the old version of the appointment
+     * edited, null if none
+     */
+    public Appointment getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the snapshot field.
+     *
+     * @return the version of the book right after the change, not null
+     */
+    public BookSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (removed != null ? " -" + removed : "") + (added != null ? " +" + added : "");
+    }
+
+    /**
+     * The kind of a {@code BookChange}.
+     */
+    public enum Kind {
+        /**
+         * An appointment has been added.
+         */
+        ADDED,
+        /**
+         * An appointment has been removed.
+         */
+        REMOVED,
+        /**
+         * An appointment has been replaced by another one.
+         */
+        EDITED,
+        /**
+         * The recurring appointments have changed.
+         */
+        RULES,
+        /**
+         * The book has been loaded from its file.
+         */
+        LOADED,
+        /**
+         * The snapshot has been written on the file of the book.
+         */
+        SAVED
+    }
+}
@@ -0,0 +1,280 @@
+package jab.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@code BookEncoder} writes the lines of a book file into a reusable
+ * byte buffer.
+ *
+ * <p>
+ * Digits and UTF-8 bytes are written directly into the buffer, without
+ * formatters and without intermediate strings, so encoding an appointment
+ * allocates nothing. The bytes are the same as the ones of
+ * {@code Appointment.toString()} followed by the line separator and written
+ * in UTF-8; the rare years outside 0-9999 are formatted through
+ * {@code toString()}.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookSnapshot#saveToFile(File)
+ */
+final class BookEncoder {
+    /**
+     * The number of bytes encoded before they are written on the file
+     */
+    static final int FLUSH_SIZE = 1 << 16;
+    /**
+     * The number of appointments encoded by a task of a parallel save
+     */
+    static final int CHUNK_SIZE = 1 << 14;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final byte SEPARATOR = (byte) Appointment.SEPARATOR.charAt(0);
+    private static final byte DASH = '-';
+
+    private byte[] bytes;
+    private ByteBuffer view;
+    private int size;
+
+    /**
+     * Constructs an encoder whose buffer initially holds {@code capacity}
+     * bytes.
+     */
+    BookEncoder(int capacity) {
+        bytes = new byte[Math.max(capacity, 64)];
+        view = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Writes {@code snapshot} on {@code file}: appointments first, then
+     * recurring appointments.
+     *
+     * @throws IOException if an I/O error occurs while writing to {@code file}
+     */
+    static void write(BookSnapshot snapshot, File file) throws IOException {
+        BookEncoder encoder = new BookEncoder(FLUSH_SIZE + (FLUSH_SIZE >> 2));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Appointment appointment : snapshot.tree()) {
+                encoder.encode(appointment);
+                if (encoder.size >= FLUSH_SIZE) {
+                    encoder.flush(channel);
+                }
+            }
+            for (RecurringAppointment rule : snapshot.getRules()) {
+                encoder.encode(rule);
+            }
+            encoder.flush(channel);
+        }
+    }
+
+    /**
+     * Writes {@code snapshot} on {@code file} as {@link BookEncoder#write(BookSnapshot, File)},
+     * encoding chunks of {@code chunkSize} appointments in parallel.
+     *
+     * <p>
+     * The chunks are encoded in waves of one chunk per processor, each into
+     * its own buffer, and every wave is written in order with a single
+     * gathering write. So the file is the same as the one of a sequential
+     * save, and the memory used is bounded by a wave.
+     * </p>
+     *
+     * @throws IOException if an I/O error occurs while writing to {@code file}
+     */
+    static void write(BookSnapshot snapshot, File file, int chunkSize) throws IOException {
+        AppointmentTree tree = snapshot.tree();
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (tree.size() <= chunkSize) {
+            write(snapshot, file);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int wave = 0; wave < tree.size(); wave += parallelism * chunkSize) {
+                List<Callable<ByteBuffer>> tasks = new ArrayList<>(parallelism);
+                for (int first = wave; first < tree.size() && first < wave + parallelism * chunkSize; first += chunkSize) {
+                    int start = first;
+                    int end = Math.min(first + chunkSize, tree.size());
+                    boolean last = end == tree.size();
+                    tasks.add(() -> {
+                        BookEncoder encoder = new BookEncoder(64 * (end - start));
+                        Iterator<Appointment> iterator = tree.iterator(start);
+                        for (int i = start; i < end; i++) {
+                            encoder.encode(iterator.next());
+                        }
+                        if (last) {
+                            for (RecurringAppointment rule : snapshot.getRules()) {
+                                encoder.encode(rule);
+                            }
+                        }
+                        return encoder.buffer();
+                    });
+                }
+                ByteBuffer[] buffers = Parallel.invokeAll(tasks).toArray(new ByteBuffer[0]);
+                for (ByteBuffer tail = buffers[buffers.length - 1]; tail.hasRemaining(); ) {
+                    channel.write(buffers);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the line of {@code appointment}.
+     *
+     * @throws MalformedInputException if a field contains an unpaired
+     *                                 surrogate
+     */
+    void encode(Appointment appointment) throws MalformedInputException {
+        fields(appointment);
+        put(LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends the line of {@code rule}.
+     *
+     * @throws MalformedInputException if a field contains an unpaired
+     *                                 surrogate
+     */
+    void encode(RecurringAppointment rule) throws MalformedInputException {
+        fields(rule.getFirst());
+        put(SEPARATOR);
+        put(rule.getRecurrence().toString());
+        put(LINE_SEPARATOR);
+    }
+
+    /**
+     * Returns the bytes encoded so far.
+     *
+     * @return a view of the buffer from 0 to the number of bytes encoded
+     */
+    ByteBuffer buffer() {
+        view.limit(size).position(0);
+        return view;
+    }
+
+    /**
+     * Writes the bytes encoded so far on {@code channel} and empties the
+     * buffer.
+     */
+    void flush(FileChannel channel) throws IOException {
+        ByteBuffer buffer = buffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        size = 0;
+    }
+
+    private void fields(Appointment appointment) throws MalformedInputException {
+        int year = appointment.getDate().getYear();
+        if (year < 0 || year > 9999) {
+            put(appointment.toString());
+            return;
+        }
+        String description = appointment.getDescription();
+        String place = appointment.getPlace();
+        ensure(40 + 3 * (description.length() + place.length()));
+        twoDigits(appointment.getDate().getDayOfMonth());
+        bytes[size++] = DASH;
+        twoDigits(appointment.getDate().getMonthValue());
+        bytes[size++] = DASH;
+        twoDigits(year / 100);
+        twoDigits(year % 100);
+        bytes[size++] = SEPARATOR;
+        twoDigits(appointment.getStartTime().getHour());
+        bytes[size++] = DASH;
+        twoDigits(appointment.getStartTime().getMinute());
+        bytes[size++] = SEPARATOR;
+        number(appointment.getDuration().toMinutes());
+        bytes[size++] = SEPARATOR;
+        put(description);
+        put(SEPARATOR);
+        put(place);
+    }
+
+    private void twoDigits(int value) {
+        bytes[size++] = (byte) ('0' + value / 10);
+        bytes[size++] = (byte) ('0' + value % 10);
+    }
+
+    /**
+     * Appends the decimal digits of the non-negative {@code value}.
+     */
+    private void number(long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    private void put(byte value) {
+        ensure(1);
+        bytes[size++] = value;
+    }
+
+    private void put(byte[] values) {
+        ensure(values.length);
+        System.arraycopy(values, 0, bytes, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Appends {@code text} in UTF-8.
+     *
+     * @throws MalformedInputException if {@code text} contains an unpaired
+     *                                 surrogate, as the encoder of a writer
+     */
+    private void put(String text) throws MalformedInputException {
+        ensure(3 * text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c) || i + 1 == text.length() || !Character.isLowSurrogate(text.charAt(i + 1))) {
+                    throw new MalformedInputException(1);
+                }
+                int code = Character.toCodePoint(c, text.charAt(++i));
+                bytes[size++] = (byte) (0xF0 | code >> 18);
+                bytes[size++] = (byte) (0x80 | code >> 12 & 0x3F);
+                bytes[size++] = (byte) (0x80 | code >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | code & 0x3F);
+            } else {
+                bytes[size++] = (byte) (0xE0 | c >> 12);
+                bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Grows the buffer, if needed, so that it can hold {@code more} bytes.
+     */
+    private void ensure(int more) {
+        if (size + more > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+            view = ByteBuffer.wrap(bytes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package jab.models;
+
+import java.util.Locale;
+
+/**
+ * The {@code BookIndex} is a secondary index over the appointments of a
+ * {@link Book}, kept up to date by the book itself.
+ *
+ * <p>
+ * The book notifies every change of its appointments, occurrences excluded:
+ * insertions, deletions, edits, undo, redo and loads. Notifications come from
+ * the thread that changes the book.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ */
+interface BookIndex {
+    /**
+     * Returns {@code text} in lower case, without leading and trailing spaces
+     * and with the inner ones collapsed, so that it can be used as a key.
+     */
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Called after {@code appointment} has been added to the book.
+     */
+    void added(Appointment appointment);
+
+    /**
+     * Called after {@code appointment} has been removed from the book.
+     */
+    void removed(Appointment appointment);
+
+    /**
+     * Called after all the appointments have been removed from the book.
+     */
+    void cleared();
+}
@@ -0,0 +1,273 @@
+package jab.models;
+
+import jab.models.format.ParseErrorKind;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code BookSidecar} stores next to a book file the result of loading it,
+ * so that the next load of the same file can skip parsing, sorting and
+ * collision checks.
+ *
+ * <p>
+ * The sidecar holds the appointments in sorted order, in a binary form that
+ * needs no text parsing, the recurring appointments, the collisions and the
+ * duplicates found by the last full load, and the problems it reported: the
+ * number of lines, the count of every kind and the samples kept. It is keyed by the size, the last
+ * modified time and the CRC-32 of the text of the book file and by the
+ * time-zone of the book: if any of them changed, the sidecar is ignored. The
+ * key is taken from the bytes actually read by the load, or written by the
+ * save, so a change made by another program in the meantime never gets the
+ * old content.
+ * </p>
+ *
+ * <p>
+ * The secondary indexes of the book ({@link BookIndex}) are not stored: they
+ * are rebuilt with a single pass over the sorted appointments, which is
+ * linear and needs no parsing, while storing them would tie the format of
+ * the sidecar to the layout of every index.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#loadBookFromFile(Collection)
+ */
+final class BookSidecar {
+    /**
+     * The suffix appended to the name of the book file
+     */
+    static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4A414249;
+    private static final int VERSION = 3;
+
+    final List<Appointment> sorted;
+    final List<RecurringAppointment> rules;
+    final Map<Appointment, Appointment> collisions;
+    final List<Appointment> duplicates;
+    final long lines;
+    final long[] counts;
+    final List<LoadReport.Sample> samples;
+
+    private BookSidecar(List<Appointment> sorted, List<RecurringAppointment> rules, Map<Appointment, Appointment> collisions,
+                        List<Appointment> duplicates, long lines, long[] counts, List<LoadReport.Sample> samples) {
+        this.sorted = sorted;
+        this.rules = rules;
+        this.collisions = collisions;
+        this.duplicates = duplicates;
+        this.lines = lines;
+        this.counts = counts;
+        this.samples = samples;
+    }
+
+    /**
+     * Returns the sidecar file of {@code book}.
+     */
+    static File of(File book) {
+        return new File(book.getPath() + SUFFIX);
+    }
+
+    /**
+     * Writes the sidecar of {@code book}, whose content with {@code key} is
+     * exactly {@code snapshot}.
+     *
+     * @param report the report of the load of {@code book}, null if
+     *               {@code book} has just been written from {@code snapshot}
+     * @throws IOException if an I/O error occurs while writing the sidecar
+     */
+    static void write(File book, Key key, ZoneId zone, BookSnapshot snapshot, Map<Appointment, Appointment> collisions,
+                      Collection<Appointment> duplicates, LoadReport report) throws IOException {
+        File sidecar = of(book);
+        File temporary = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(key.length);
+            out.writeLong(key.modified);
+            out.writeUTF(zone.getId());
+            out.writeLong(key.checksum);
+            out.writeInt(snapshot.size());
+            for (Appointment appointment : snapshot) {
+                write(out, appointment);
+            }
+            out.writeInt(snapshot.getRules().size());
+            for (RecurringAppointment rule : snapshot.getRules()) {
+                out.writeUTF(rule.toString());
+            }
+            out.writeInt(collisions.size());
+            for (Map.Entry<Appointment, Appointment> entry : collisions.entrySet()) {
+                write(out, entry.getKey());
+                write(out, entry.getValue());
+            }
+            out.writeInt(duplicates.size());
+            for (Appointment duplicate : duplicates) {
+                write(out, duplicate);
+            }
+            if (report == null) {
+                out.writeLong(snapshot.size() + snapshot.getRules().size());
+                out.writeInt(0);
+                out.writeInt(0);
+            } else {
+                out.writeLong(report.getLines());
+                out.writeInt(ParseErrorKind.values().length);
+                for (ParseErrorKind kind : ParseErrorKind.values()) {
+                    out.writeUTF(kind.name());
+                    out.writeLong(report.getCount(kind));
+                }
+                out.writeInt(report.getSamples().size());
+                for (LoadReport.Sample sample : report.getSamples()) {
+                    out.writeLong(sample.getLine());
+                    out.writeUTF(sample.getKind().name());
+                    out.writeInt(sample.getColumn());
+                    writeText(out, sample.getText());
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        Files.deleteIfExists(sidecar.toPath());
+        if (!temporary.renameTo(sidecar)) {
+            Files.deleteIfExists(temporary.toPath());
+            throw new IOException("Cannot write " + sidecar);
+        }
+    }
+
+    /**
+     * Reads the sidecar of {@code book}.
+     *
+     * @return the content of the sidecar, null if there is no sidecar or it
+     * does not match {@code book} and {@code zone}
+     */
+    static BookSidecar read(File book, ZoneId zone) {
+        File sidecar = of(book);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != book.length()
+                    || in.readLong() != book.lastModified() || !in.readUTF().equals(zone.getId())
+                    || in.readLong() != checksum(book)) {
+                return null;
+            }
+            int size = in.readInt();
+            List<Appointment> sorted = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                sorted.add(read(in));
+            }
+            size = in.readInt();
+            List<RecurringAppointment> rules = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rules.add(RecurringAppointment.parse(in.readUTF()));
+            }
+            size = in.readInt();
+            Map<Appointment, Appointment> collisions = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                collisions.put(read(in), read(in));
+            }
+            size = in.readInt();
+            List<Appointment> duplicates = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                duplicates.add(read(in));
+            }
+            long lines = in.readLong();
+            long[] counts = new long[ParseErrorKind.values().length];
+            size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                counts[ParseErrorKind.valueOf(in.readUTF()).ordinal()] = in.readLong();
+            }
+            size = in.readInt();
+            List<LoadReport.Sample> samples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                samples.add(new LoadReport.Sample(in.readLong(), ParseErrorKind.valueOf(in.readUTF()), in.readInt(), readText(in)));
+            }
+            return new BookSidecar(sorted, rules, collisions, duplicates, lines, counts, samples);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the CRC-32 of the text of {@code book}: the bytes of the file,
+     * or of its blocks decompressed if it is block-compressed.
+     */
+    private static long checksum(File book) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Book.newInputStream(book, crc)) {
+            byte[] buffer = new byte[1 << 16];
+            while (in.read(buffer) >= 0) {
+                // the checksum is updated by the stream
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The identity of the content of a book file.
+     */
+    static final class Key {
+        private final long length;
+        private final long modified;
+        private final long checksum;
+
+        /**
+         * Constructs a key.
+         *
+         * @param length   the size of the file
+         * @param modified the last modified time of the file
+         * @param checksum the CRC-32 of the text of the file
+         */
+        Key(long length, long modified, long checksum) {
+            this.length = length;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Returns the key of {@code book} as it is now.
+         *
+         * @throws IOException if an I/O error occurs while reading {@code book}
+         */
+        static Key of(File book) throws IOException {
+            long length = book.length();
+            long modified = book.lastModified();
+            return new Key(length, modified, checksum(book));
+        }
+    }
+
+    /**
+     * Writes {@code text}, which may be longer than {@code writeUTF} allows.
+     */
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void write(DataOutputStream out, Appointment appointment) throws IOException {
+        out.writeLong(appointment.getDate().toEpochDay());
+        out.writeInt(appointment.getStartTime().toSecondOfDay());
+        out.writeLong(appointment.getDuration().toMinutes());
+        out.writeUTF(appointment.getDescription());
+        out.writeUTF(appointment.getPlace());
+    }
+
+    private static Appointment read(DataInputStream in) throws IOException {
+        return new Appointment(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofSecondOfDay(in.readInt()),
+                Duration.ofMinutes(in.readLong()), in.readUTF(), in.readUTF());
+    }
+}
@@ -0,0 +1,284 @@
+package jab.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * The {@code BookSnapshot} is an immutable version of a {@link Book}.
+ *
+ * <p>
+ * Taking a snapshot costs O(1): the appointments are kept in a persistent
+ * tree, so every change of the book creates a new version that shares almost
+ * all of its nodes with the previous one. A snapshot can be printed, searched
+ * or saved by any thread, without locks, while the book keeps changing.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#snapshot()
+ */
+public final class BookSnapshot implements Iterable<Appointment> {
+    static final BookSnapshot EMPTY = new BookSnapshot(AppointmentTree.EMPTY, Collections.emptyList());
+
+    private final AppointmentTree tree;
+    private final List<RecurringAppointment> rules;
+
+    BookSnapshot(AppointmentTree tree, List<RecurringAppointment> rules) {
+        this.tree = tree;
+        this.rules = rules;
+    }
+
+    AppointmentTree tree() {
+        return tree;
+    }
+
+    /**
+     * Returns a snapshot with {@code tree} and the rules of this one.
+     */
+    BookSnapshot with(AppointmentTree tree) {
+        return tree == this.tree ? this : new BookSnapshot(tree, rules);
+    }
+
+    /**
+     * Returns a snapshot with {@code rules}, which must not be modified
+     * anymore, and the appointments of this one.
+     */
+    BookSnapshot with(List<RecurringAppointment> rules) {
+        return new BookSnapshot(tree, Collections.unmodifiableList(rules));
+    }
+
+    /**
+     * Returns the number of appointments, occurrences excluded.
+     *
+     * @return the number of appointments
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Returns true if this snapshot contains no appointment and no recurring
+     * appointment.
+     *
+     * @return true if this snapshot is empty
+     */
+    public boolean isEmpty() {
+        return tree.isEmpty() && rules.isEmpty();
+    }
+
+    /**
+     * Returns the appointments sorted by start.
+     *
+     * @return a sorted list of appointments, not null
+     */
+    public List<Appointment> getSortedBook() {
+        List<Appointment> sortedBook = new ArrayList<>(tree.size());
+        for (Appointment appointment : tree) {
+            sortedBook.add(appointment);
+        }
+        return sortedBook;
+    }
+
+    /**
+     * Returns the recurring appointments.
+     *
+     * @return an unmodifiable list of recurring appointments, not null
+     */
+    public List<RecurringAppointment> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns search result for {@code filter}.
+     *
+     * @param filter the criterion for selecting
+     * @return a list of appointments sorted by start
+     * @see Book#search(Predicate)
+     */
+    public List<Appointment> search(Predicate<Appointment> filter) {
+        List<Appointment> results = new ArrayList<>();
+        for (Appointment current : tree) {
+            if (filter.test(current)) {
+                results.add(current);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns a page of search result for {@code filter}, occurrences
+     * excluded.
+     *
+     * <p>
+     * In order of start, forward or backward, the tree is walked and the walk
+     * stops as soon as the page is full. In the other orders every appointment
+     * is tested, but only the best {@code offset + limit} are kept, in a
+     * bounded heap.
+     * </p>
+     *
+     * @param filter the criterion for selecting
+     * @param order  the order of the results
+     * @param offset the number of results to be skipped
+     * @param limit  the maximum number of results
+     * @return at most {@code limit} appointments, in {@code order}
+     * @throws IllegalArgumentException if {@code offset} or {@code limit} is
+     *                                  negative
+     * @see Book#search(Predicate, Book.SortOrder, int, int)
+     */
+    public List<Appointment> search(Predicate<Appointment> filter, Book.SortOrder order, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Sorry, negative offset or limit.");
+        }
+        if (order == Book.SortOrder.START || order == Book.SortOrder.START_DESCENDING) {
+            return page(order == Book.SortOrder.START ? tree.iterator() : tree.descendingIterator(), filter, offset, limit);
+        }
+        int size = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Appointment> top = new PriorityQueue<>(order.comparator.reversed());
+        for (Appointment current : tree) {
+            if (size > 0 && filter.test(current) && (top.size() < size || order.comparator.compare(current, top.peek()) < 0)) {
+                if (top.size() == size) {
+                    top.poll();
+                }
+                top.add(current);
+            }
+        }
+        List<Appointment> results = new ArrayList<>(top);
+        results.sort(order.comparator);
+        return results.subList(Math.min(offset, results.size()), results.size());
+    }
+
+    /**
+     * Returns the page of search result for {@code filter} that follows
+     * {@code after}, in order of start, occurrences excluded.
+     *
+     * <p>
+     * Unlike an offset, the cursor costs O(log n) however far the page is,
+     * and it stays valid when earlier appointments are added or removed.
+     * </p>
+     *
+     * @param filter the criterion for selecting
+     * @param after  the last appointment of the previous page
+     * @param limit  the maximum number of results
+     * @return at most {@code limit} appointments sorted by start
+     * @throws IllegalArgumentException if {@code limit} is negative
+     * @see Book#searchAfter(Predicate, Appointment, int)
+     */
+    public List<Appointment> searchAfter(Predicate<Appointment> filter, Appointment after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Sorry, negative limit.");
+        }
+        List<Appointment> results = new ArrayList<>(Math.min(limit, tree.size()));
+        Iterator<Appointment> iterator = tree.iterator(after.toDateTime(), null);
+        while (results.size() < limit && iterator.hasNext()) {
+            Appointment current = iterator.next();
+            if (AppointmentTree.ORDER.compare(current, after) > 0 && filter.test(current)) {
+                results.add(current);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Skips the first {@code offset} matches of {@code iterator}, then returns
+     * the next {@code limit} ones without reading further.
+     */
+    private static List<Appointment> page(Iterator<Appointment> iterator, Predicate<Appointment> filter, int offset, int limit) {
+        List<Appointment> results = new ArrayList<>(Math.min(limit, 1 << 10));
+        for (int skipped = 0; results.size() < limit && iterator.hasNext(); ) {
+            Appointment current = iterator.next();
+            if (filter.test(current)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    results.add(current);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns search result for {@code filter} among the appointments and the
+     * occurrences that start between {@code from} and {@code to}, both included.
+     *
+     * <p>
+     * Only the part of the tree inside the window is visited and recurring
+     * appointments are expanded only inside the window.
+     * </p>
+     *
+     * @param filter the criterion for selecting
+     * @param from   the first date of the window
+     * @param to     the last date of the window
+     * @return a list of appointments
+     * @see Book#search(Predicate, LocalDate, LocalDate)
+     */
+    public List<Appointment> search(Predicate<Appointment> filter, LocalDate from, LocalDate to) {
+        List<Appointment> results = new ArrayList<>();
+        for (Iterator<Appointment> iterator = tree.iterator(from.atStartOfDay(), to.plusDays(1).atStartOfDay()); iterator.hasNext(); ) {
+            Appointment current = iterator.next();
+            if (filter.test(current)) {
+                results.add(current);
+            }
+        }
+        for (RecurringAppointment rule : rules) {
+            for (Appointment occurrence : rule.occurrences(from, to)) {
+                if (filter.test(occurrence)) {
+                    results.add(occurrence);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes this snapshot on {@code file}: appointments first, then recurring
+     * appointments.
+     *
+     * <p>
+     * The lines are encoded straight into a reusable buffer, which is written
+     * through a {@code FileChannel}: saving allocates almost nothing per
+     * appointment.
+     * </p>
+     *
+     * @param file the destination file, not null
+     * @throws IOException if an I/O error occurs while writing to {@code file}
+     */
+    public void saveToFile(File file) throws IOException {
+        BookEncoder.write(this, file);
+    }
+
+    /**
+     * Writes this snapshot on {@code file}, as {@link BookSnapshot#saveToFile(File)}.
+     *
+     * <p>
+     * With {@code parallel}, chunks of the sorted appointments are encoded in
+     * parallel, each into its own buffer, and written in order with gathering
+     * writes: the file is the same, but encoding scales with the number of
+     * processors.
+     * </p>
+     *
+     * @param file     the destination file, not null
+     * @param parallel true to encode the chunks in parallel
+     * @throws IOException if an I/O error occurs while writing to {@code file}
+     */
+    public void saveToFile(File file, boolean parallel) throws IOException {
+        if (parallel) {
+            BookEncoder.write(this, file, BookEncoder.CHUNK_SIZE);
+        } else {
+            BookEncoder.write(this, file);
+        }
+    }
+
+    /**
+     * Returns an iterator over the appointments sorted by start.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Appointment> iterator() {
+        return tree.iterator();
+    }
+}
@@ -0,0 +1,469 @@
+package jab.models;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code BookValidator} checks a book file without loading it into a
+ * {@link Book}.
+ *
+ * <p>
+ * The file is read as a stream: every line is parsed, reported if malformed,
+ * and reduced to its start/end instants. While the lines come sorted by start,
+ * overlaps are found with a sliding window that only keeps the appointments
+ * still running. As soon as a line is out of order the validator switches to
+ * an external sort: the intervals are written to sorted runs of
+ * {@code runSize} records, merged back and swept in the same way. Memory
+ * stays bounded by {@code runSize} and by the number of concurrent
+ * appointments, whatever the size of the file.
+ * </p>
+ *
+ * <p>
+ * Recurring appointments are few and are kept in memory as rules. Once the
+ * sweep is over they are checked against each other and, with a second read
+ * of the file, against every appointment, without expanding their
+ * occurrences.
+ * </p>
+ *
+ * <p>
+ * Two appointments overlap according to the same rule used by {@link Book}.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#loadBookFromFile()
+ */
+public class BookValidator {
+    /**
+     * The default maximum number of intervals kept in memory while sorting
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 20;
+
+    private final File file;
+    private final int runSize;
+    private ZoneOffsetTable offsets;
+
+    /**
+     * Constructs a validator for {@code file} with the default run size.
+     *
+     * @param file the book file to be validated
+     */
+    public BookValidator(File file) {
+        this(file, DEFAULT_RUN_SIZE);
+    }
+
+    /**
+     * Constructs a validator for {@code file}.
+     *
+     * @param file    the book file to be validated
+     * @param runSize the maximum number of intervals kept in memory while sorting
+     * @throws IllegalArgumentException if {@code runSize} is not positive
+     */
+    public BookValidator(File file, int runSize) {
+        this(file, runSize, Appointment.DEFAULT_ZONE);
+    }
+
+    /**
+     * Constructs a validator for {@code file} whose appointments are in
+     * {@code zone}.
+     *
+     * @param file    the book file to be validated
+     * @param runSize the maximum number of intervals kept in memory while sorting
+     * @param zone    the time-zone of the book, not null
+     * @throws IllegalArgumentException if {@code runSize} is not positive
+     */
+    public BookValidator(File file, int runSize, ZoneId zone) {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("Sorry, " + runSize + " is an invalid run size (>0).");
+        }
+        this.file = file;
+        this.runSize = runSize;
+        this.offsets = zone.equals(Appointment.DEFAULT_ZONE) ? Book.DEFAULT_OFFSETS : ZoneOffsetTable.of(zone);
+    }
+
+    /**
+     * Reads {@code file} once and reports every problem to {@code listener}.
+     *
+     * @param listener the receiver of parse errors and overlaps
+     * @return a summary of the validation
+     * @throws IOException if an I/O error occurs while reading {@code file} or
+     *                     writing the temporary runs
+     */
+    public Result validate(Listener listener) throws IOException {
+        Result result = new Result();
+        List<RuleLine> rules = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
+            Sweep sweep = new Sweep(listener, result, 0);
+            Interval previous = null;
+            String line;
+            long loaded = 0;
+            while ((line = bufferedReader.readLine()) != null) {
+                loaded++;
+                Interval current = toInterval(line, loaded, listener, result, rules);
+                if (current == null) {
+                    continue;
+                }
+                if (previous != null && current.start < previous.start) {
+                    result.sorted = false;
+                    externalSort(bufferedReader, current, loaded, listener, result, rules);
+                    break;
+                }
+                sweep.accept(current);
+                previous = current;
+            }
+            result.lines = Math.max(result.lines, loaded);
+        }
+        if (!rules.isEmpty()) {
+            checkRules(rules, listener, result);
+        }
+        return result;
+    }
+
+    /**
+     * Parses {@code line} and reports a parse error, if any. A recurring
+     * appointment is added to {@code rules}, unless they are null.
+     *
+     * @return the interval of the appointment, null if the line is malformed
+     * or holds a recurring appointment
+     */
+    private Interval toInterval(String line, long loaded, Listener listener, Result result, List<RuleLine> rules) {
+        String[] values = Appointment.split(line);
+        boolean recurring = values.length == RecurringAppointment.ARGC;
+        ParseResult parsed = recurring ? RecurringAppointment.tryParse(line, values) : Appointment.tryParse(line, values);
+        if (!parsed.isValid()) {
+            result.errors++;
+            listener.parseError(loaded, parsed.toString());
+            return null;
+        }
+        if (recurring) {
+            if (rules != null) {
+                rules.add(new RuleLine(parsed.getRule(), loaded));
+            }
+            return null;
+        }
+        Appointment appointment = parsed.getAppointment();
+        offsets = offsets.covering(appointment.getDate()).covering(appointment.toEndDateTime().toLocalDate());
+        return new Interval(appointment.getStartEpochSecond(offsets), appointment.getEndEpochSecond(offsets), loaded);
+    }
+
+    /**
+     * Reports the overlaps of the recurring appointments with each other and
+     * with the appointments of the file, read a second time with parse errors
+     * already reported.
+     */
+    private void checkRules(List<RuleLine> rules, Listener listener, Result result) throws IOException {
+        for (int i = 1; i < rules.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (rules.get(i).rule.overlaps(rules.get(j).rule, offsets) != null) {
+                    result.overlaps++;
+                    listener.overlap(rules.get(i).line, rules.get(j).line);
+                }
+            }
+        }
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
+            String line;
+            long loaded = 0;
+            while ((line = bufferedReader.readLine()) != null) {
+                loaded++;
+                String[] values = Appointment.split(line);
+                ParseResult parsed = values.length == Appointment.ARGC ? Appointment.tryParse(line, values) : null;
+                if (parsed == null || !parsed.isValid()) {
+                    continue;
+                }
+                Appointment appointment = parsed.getAppointment();
+                offsets = offsets.covering(appointment.getDate()).covering(appointment.toEndDateTime().toLocalDate());
+                for (RuleLine rule : rules) {
+                    if (rule.rule.overlaps(appointment, offsets) != null) {
+                        result.overlaps++;
+                        listener.overlap(Math.max(loaded, rule.line), Math.min(loaded, rule.line));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts every interval of the file into runs and sweeps their merge.
+     *
+     * <p>
+     * Overlaps between lines before {@code firstUnsorted} have already been
+     * reported by the sliding window, so only pairs involving a later line are
+     * reported again. The sorted prefix is read a second time with parse errors
+     * suppressed, the rest of the file is consumed from {@code bufferedReader}.
+     * </p>
+     */
+    private void externalSort(BufferedReader bufferedReader, Interval first, long firstUnsorted,
+                              Listener listener, Result result, List<RuleLine> rules) throws IOException {
+        List<File> runs = new ArrayList<>();
+        Interval[] buffer = new Interval[runSize];
+        int size = 0;
+        Listener silent = new Listener() {
+            @Override
+            public void parseError(long line, String message) {
+            }
+
+            @Override
+            public void overlap(long line, long otherLine) {
+            }
+        };
+        Result ignored = new Result();
+        try {
+            try (BufferedReader prefix = new BufferedReader(new FileReader(file))) {
+                String line;
+                for (long loaded = 1; loaded < firstUnsorted && (line = prefix.readLine()) != null; loaded++) {
+                    Interval current = toInterval(line, loaded, silent, ignored, null);
+                    if (current != null) {
+                        if (size == buffer.length) {
+                            runs.add(spill(buffer, size));
+                            size = 0;
+                        }
+                        buffer[size++] = current;
+                    }
+                }
+            }
+            String line;
+            long loaded = firstUnsorted;
+            Interval current = first;
+            do {
+                if (current != null) {
+                    if (size == buffer.length) {
+                        runs.add(spill(buffer, size));
+                        size = 0;
+                    }
+                    buffer[size++] = current;
+                }
+                line = bufferedReader.readLine();
+                if (line != null) {
+                    loaded++;
+                    current = toInterval(line, loaded, listener, result, rules);
+                }
+            } while (line != null);
+            result.lines = loaded;
+            Arrays.sort(buffer, 0, size);
+            merge(runs, buffer, size, new Sweep(listener, result, firstUnsorted));
+        } finally {
+            for (File run : runs) {
+                Files.deleteIfExists(run.toPath());
+            }
+        }
+    }
+
+    private static File spill(Interval[] buffer, int size) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        File run = File.createTempFile("jab-run", ".bin");
+        run.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(buffer[i].start);
+                out.writeLong(buffer[i].end);
+                out.writeLong(buffer[i].line);
+                buffer[i] = null;
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the runs on disk and the last in-memory run with a k-way merge.
+     */
+    private static void merge(List<File> runs, Interval[] tail, int tailSize, Sweep sweep) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>();
+        List<DataInputStream> streams = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+                streams.add(in);
+                RunCursor cursor = new RunCursor(in, null, 0);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+            RunCursor memory = new RunCursor(null, tail, tailSize);
+            if (memory.advance()) {
+                heap.add(memory);
+            }
+            while (!heap.isEmpty()) {
+                RunCursor cursor = heap.poll();
+                sweep.accept(cursor.head);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+        } finally {
+            for (DataInputStream in : streams) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * The receiver of the problems found by a {@code BookValidator}.
+     */
+    public interface Listener {
+        /**
+         * Invoked for every line that cannot be parsed as an appointment or a
+         * recurring appointment.
+         *
+         * @param line    the number of the line, starting from 1
+         * @param message the error message
+         */
+        void parseError(long line, String message);
+
+        /**
+         * Invoked for every couple of lines whose appointments overlap.
+         *
+         * <p>
+         * If one of them is a recurring appointment, {@code line} is simply
+         * the one that comes later in the file.
+         * </p>
+         *
+         * @param line      the number of the line that starts later
+         * @param otherLine the number of the line that starts earlier
+         */
+        void overlap(long line, long otherLine);
+    }
+
+    /**
+     * The summary of a validation.
+     */
+    public static final class Result {
+        private long lines;
+        private long errors;
+        private long overlaps;
+        private boolean sorted = true;
+
+        private Result() {
+        }
+
+        /**
+         * @return the number of lines read
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * @return the number of malformed lines
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return the number of overlapping couples
+         */
+        public long getOverlaps() {
+            return overlaps;
+        }
+
+        /**
+         * @return true if the valid lines are sorted by start
+         */
+        public boolean isSorted() {
+            return sorted;
+        }
+
+        /**
+         * @return true if no parse error and no overlap has been found
+         */
+        public boolean isValid() {
+            return errors == 0 && overlaps == 0;
+        }
+    }
+
+    private static final class RuleLine {
+        private final RecurringAppointment rule;
+        private final long line;
+
+        private RuleLine(RecurringAppointment rule, long line) {
+            this.rule = rule;
+            this.line = line;
+        }
+    }
+
+    private static final class Interval implements Comparable<Interval> {
+        private final long start;
+        private final long end;
+        private final long line;
+
+        private Interval(long start, long end, long line) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            int result = Long.compare(start, other.start);
+            return result != 0 ? result : Long.compare(line, other.line);
+        }
+    }
+
+    /**
+     * The sliding window over intervals sorted by start: it keeps only the
+     * intervals that have not ended yet, ordered by end.
+     */
+    private static final class Sweep {
+        private final PriorityQueue<Interval> active = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+        private final Listener listener;
+        private final Result result;
+        private final long reportedBefore;
+
+        private Sweep(Listener listener, Result result, long reportedBefore) {
+            this.listener = listener;
+            this.result = result;
+            this.reportedBefore = reportedBefore;
+        }
+
+        private void accept(Interval current) {
+            while (!active.isEmpty() && active.peek().end <= current.start) {
+                active.poll();
+            }
+            for (Interval other : active) {
+                if (current.line >= reportedBefore || other.line >= reportedBefore) {
+                    result.overlaps++;
+                    listener.overlap(current.line, other.line);
+                }
+            }
+            active.add(current);
+        }
+    }
+
+    private static final class RunCursor implements Comparable<RunCursor> {
+        private final DataInputStream in;
+        private final Interval[] memory;
+        private final int memorySize;
+        private int position;
+        private Interval head;
+
+        private RunCursor(DataInputStream in, Interval[] memory, int memorySize) {
+            this.in = in;
+            this.memory = memory;
+            this.memorySize = memorySize;
+        }
+
+        private boolean advance() throws IOException {
+            if (in == null) {
+                head = position < memorySize ? memory[position++] : null;
+                return head != null;
+            }
+            try {
+                head = new Interval(in.readLong(), in.readLong(), in.readLong());
+                return true;
+            } catch (EOFException e) {
+                head = null;
+                return false;
+            }
+        }
+
+        @Override
+        public int compareTo(RunCursor other) {
+            return head.compareTo(other.head);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package jab.models;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The {@code BookViewer} is a read-only view of a book file.
+ *
+ * <p>
+ * Opening a viewer only maps the file in memory: no line is parsed and no
+ * collision is checked. The offsets of the lines are found lazily, as far as
+ * the requested line, and a line is decoded into an {@code Appointment} only
+ * when it is read or matched. So opening takes the same time whatever the size
+ * of the file.
+ * </p>
+ *
+ * <p>
+ * The first search in a window of dates builds an index of packed keys over
+ * the appointments of the file, sorted by a radix sort: later searches in a
+ * window find the matching lines by binary search, without reading the others.
+ * </p>
+ *
+ * <p>
+ * Lines are numbered from 0 in the order of the file. Block-compressed files
+ * are not supported.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#loadBookFromFile()
+ */
+public class BookViewer implements Closeable {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final File file;
+    private final long length;
+    private MappedByteBuffer[] segments;
+    /**
+     * The offsets of the lines found so far: {@code starts[i]} is where the
+     * line {@code i} begins.
+     */
+    private long[] starts;
+    private int count;
+    private long scanned;
+    /**
+     * The sorted keys of the appointments, whose sequence numbers are their
+     * lines, null until the first search in a window.
+     */
+    private long[] keys;
+    private long base;
+    private int[] ruleLines;
+
+    /**
+     * Opens a viewer on {@code file}.
+     *
+     * @param file the book file to be viewed
+     * @throws IOException if an I/O error occurs while mapping {@code file} or
+     *                     the file is block-compressed
+     */
+    public BookViewer(File file) throws IOException {
+        if (BlockBookFile.isBlockFile(file)) {
+            throw new IOException("Block-compressed books cannot be viewed");
+        }
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            length = channel.size();
+            segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_MASK + 1, length - position));
+            }
+        }
+        starts = new long[1024];
+    }
+
+    /**
+     * Gets the file field.
+     *
+     * @return the file, not null
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of lines of the file. The first call scans the whole
+     * file.
+     *
+     * @return the number of lines
+     */
+    public int size() {
+        while (scanNext()) {
+            // scans up to the end of the file
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the file has a line {@code index}, scanning the file only
+     * as far as that line.
+     *
+     * @param index the number of the line
+     * @return true if the line exists
+     */
+    public boolean hasLine(int index) {
+        while (count <= index && scanNext()) {
+            // scans up to the requested line
+        }
+        return index >= 0 && index < count;
+    }
+
+    /**
+     * Returns the text of the line {@code index}.
+     *
+     * @param index the number of the line
+     * @return the line without its terminator
+     * @throws IndexOutOfBoundsException if the line does not exist
+     */
+    public String line(int index) {
+        if (!hasLine(index)) {
+            throw new IndexOutOfBoundsException("Line: " + index);
+        }
+        long start = starts[index];
+        long end = index + 1 < count ? starts[index + 1] : scanned;
+        while (end > start && (get(end - 1) == '\n' || get(end - 1) == '\r')) {
+            end--;
+        }
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns true if the line {@code index} holds a recurring appointment.
+     *
+     * @param index the number of the line
+     * @return true if the line has the fields of a recurring appointment
+     * @throws IndexOutOfBoundsException if the line does not exist
+     */
+    public boolean isRule(int index) {
+        return Appointment.split(line(index)).length == RecurringAppointment.ARGC;
+    }
+
+    /**
+     * Decodes the appointment of the line {@code index}.
+     *
+     * @param index the number of the line
+     * @return the appointment of the line, not null
+     * @throws IndexOutOfBoundsException if the line does not exist
+     * @throws DateTimeParseException    if the line contains an invalid date or
+     *                                   time
+     * @throws IllegalArgumentException  if the line does not contain a parsable
+     *                                   {@code Appointment}
+     */
+    public Appointment get(int index) {
+        return Appointment.parse(line(index));
+    }
+
+    /**
+     * Decodes the recurring appointment of the line {@code index}.
+     *
+     * @param index the number of the line
+     * @return the recurring appointment of the line, not null
+     * @throws IndexOutOfBoundsException if the line does not exist
+     * @throws DateTimeParseException    if the line contains an invalid date or
+     *                                   time
+     * @throws IllegalArgumentException  if the line does not contain a parsable
+     *                                   {@code RecurringAppointment}
+     */
+    public RecurringAppointment getRule(int index) {
+        return RecurringAppointment.parse(line(index));
+    }
+
+    /**
+     * Returns search result for {@code filter} among the appointments of the
+     * file, occurrences excluded. Malformed lines are skipped.
+     *
+     * @param filter the criterion for selecting
+     * @return a list of appointments in the order of the file
+     * @see Book#search(Predicate)
+     */
+    public List<Appointment> search(Predicate<Appointment> filter) {
+        List<Appointment> results = new ArrayList<>();
+        for (int i = 0; hasLine(i); i++) {
+            String line = line(i);
+            String[] values = Appointment.split(line);
+            if (values.length == Appointment.ARGC) {
+                ParseResult parsed = Appointment.tryParse(line, values);
+                if (parsed.isValid() && filter.test(parsed.getAppointment())) {
+                    results.add(parsed.getAppointment());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns search result for {@code filter} among the appointments and the
+     * occurrences that start between {@code from} and {@code to}, both included.
+     * Malformed lines are skipped.
+     *
+     * @param filter the criterion for selecting
+     * @param from   the first date of the window
+     * @param to     the last date of the window
+     * @return a list of appointments
+     * @see Book#search(Predicate, LocalDate, LocalDate)
+     */
+    public List<Appointment> search(Predicate<Appointment> filter, LocalDate from, LocalDate to) {
+        if (index()) {
+            return indexedSearch(filter, from, to);
+        }
+        List<Appointment> results = new ArrayList<>();
+        for (int i = 0; hasLine(i); i++) {
+            String line = line(i);
+            String[] values = Appointment.split(line);
+            if (values.length == RecurringAppointment.ARGC) {
+                try {
+                    for (Appointment occurrence : RecurringAppointment.parse(values).occurrences(from, to)) {
+                        if (filter.test(occurrence)) {
+                            results.add(occurrence);
+                        }
+                    }
+                } catch (DateTimeParseException | IllegalArgumentException ignored) {
+                }
+            } else if (values.length == Appointment.ARGC) {
+                ParseResult parsed = Appointment.tryParse(line, values);
+                Appointment current = parsed.getAppointment();
+                if (parsed.isValid() && !current.getDate().isBefore(from) && !current.getDate().isAfter(to) && filter.test(current)) {
+                    results.add(current);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns search result for {@code filter} through the index: the
+     * appointments sorted by start, then the occurrences.
+     */
+    private List<Appointment> indexedSearch(Predicate<Appointment> filter, LocalDate from, LocalDate to) {
+        List<Appointment> results = new ArrayList<>();
+        long first = AppointmentKeys.minute(from.atStartOfDay()) - base;
+        long end = AppointmentKeys.minute(to.plusDays(1).atStartOfDay()) - base;
+        int low = first <= 0 ? 0 : first > AppointmentKeys.MAX_MINUTE ? keys.length
+                : AppointmentKeys.lowerBound(keys, keys.length, AppointmentKeys.first(first));
+        int high = end <= 0 ? 0 : end > AppointmentKeys.MAX_MINUTE ? keys.length
+                : AppointmentKeys.lowerBound(keys, keys.length, AppointmentKeys.first(end));
+        for (int i = low; i < high; i++) {
+            Appointment current = get(AppointmentKeys.sequence(keys[i]));
+            if (filter.test(current)) {
+                results.add(current);
+            }
+        }
+        for (int line : ruleLines) {
+            for (Appointment occurrence : getRule(line).occurrences(from, to)) {
+                if (filter.test(occurrence)) {
+                    results.add(occurrence);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Builds the index, if it does not exist yet.
+     *
+     * @return false if the file is too large or too spread in time for the
+     * keys
+     */
+    private boolean index() {
+        if (keys != null) {
+            return true;
+        }
+        int size = size();
+        if (size >= AppointmentKeys.MAX_SEQUENCE) {
+            return false;
+        }
+        long[] minutes = new long[size];
+        long[] durations = new long[size];
+        int[] lines = new int[size];
+        int[] rules = new int[size];
+        int singles = 0, ruleCount = 0;
+        long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            String line = line(i);
+            String[] values = Appointment.split(line);
+            if (values.length == RecurringAppointment.ARGC) {
+                try {
+                    RecurringAppointment.parse(values);
+                    rules[ruleCount++] = i;
+                } catch (DateTimeParseException | IllegalArgumentException ignored) {
+                }
+            } else if (values.length == Appointment.ARGC) {
+                ParseResult parsed = Appointment.tryParse(line, values);
+                if (parsed.isValid()) {
+                    Appointment current = parsed.getAppointment();
+                    minutes[singles] = AppointmentKeys.minute(current.toDateTime());
+                    durations[singles] = current.getDuration().toMinutes();
+                    lines[singles++] = i;
+                    first = Math.min(first, minutes[singles - 1]);
+                    last = Math.max(last, minutes[singles - 1]);
+                }
+            }
+        }
+        if (singles > 0 && last - first > AppointmentKeys.MAX_MINUTE) {
+            return false;
+        }
+        long[] packed = new long[singles];
+        for (int i = 0; i < singles; i++) {
+            packed[i] = AppointmentKeys.pack(minutes[i] - first, durations[i], lines[i]);
+        }
+        AppointmentKeys.radixSort(packed, singles);
+        base = first;
+        ruleLines = Arrays.copyOf(rules, ruleCount);
+        keys = packed;
+        return true;
+    }
+
+    /**
+     * Releases the mapping of the file. The viewer cannot be used anymore.
+     */
+    @Override
+    public void close() {
+        segments = new MappedByteBuffer[0];
+    }
+
+    private byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Finds the next line of the file.
+     *
+     * @return false if the whole file has already been scanned
+     */
+    private boolean scanNext() {
+        if (scanned >= length) {
+            return false;
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        starts[count++] = scanned;
+        while (scanned < length && get(scanned++) != '\n') {
+            // looks for the end of the line
+        }
+        return true;
+    }
+}
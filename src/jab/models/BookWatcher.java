@@ -0,0 +1,305 @@
+package jab.models;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The {@code BookWatcher} notices when another process rewrites the file of
+ * a {@link Book} and reloads it incrementally.
+ *
+ * <p>
+ * The file is watched with a {@link WatchService} on a background thread.
+ * Only a 64-bit hash of the fields of every line is kept. When the file
+ * changes, only the lines whose hash is new are parsed; the lines that
+ * disappeared are found by their hash among the appointments of the book and
+ * of its last saved version.
+ * The difference is queued and {@link BookWatcher#applyPending()} applies it
+ * to the book on the caller's thread, removing first and adding later, so the
+ * content of the book is never replaced as a whole and local changes not
+ * saved yet are kept.
+ * </p>
+ *
+ * <p>
+ * The differences produced by the saves of the book itself are ignored.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ */
+public class BookWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(BookWatcher.class.getName());
+    /**
+     * The time waited for a writer to finish before reading the file, measured
+     * in milliseconds
+     */
+    private static final long SETTLE_DELAY = 100;
+
+    private final Book book;
+    private final Path path;
+    private final WatchService watchService;
+    private final Queue<Diff> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * The sorted hashes of the lines of the file read the last time.
+     */
+    private long[] hashes;
+
+    /**
+     * Starts watching the file of {@code book}.
+     *
+     * @param book the book whose file is watched
+     * @throws IOException if an I/O error occurs while reading the file or
+     *                     registering the watch
+     */
+    public BookWatcher(Book book) throws IOException {
+        this.book = book;
+        this.path = book.getFile().toPath().toAbsolutePath();
+        this.hashes = readHashes(path.toFile(), null);
+        this.watchService = path.getFileSystem().newWatchService();
+        path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this::watch, "jab-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns true if the file changed and the changes have not been applied
+     * yet.
+     *
+     * @return true if there are changes to be applied
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Applies to the book the changes of the file found so far.
+     *
+     * <p>
+     * Appointments removed from the file are removed from the book, then the
+     * appointments added to the file are added to the book. The changes cannot
+     * be undone and, if the book was saved, are not written back. An added
+     * appointment that collides with the book, for instance with a local
+     * change not saved yet, is not added and is returned as a conflict, and so
+     * is a removed appointment that has been changed locally.
+     * </p>
+     *
+     * @return a couple appointments that collide: the key comes from the file,
+     * the value belongs to the book
+     * @see Book#applyExternalChanges(Collection, Collection, Collection, Collection)
+     */
+    public Map<Appointment, Appointment> applyPending() {
+        Map<Appointment, Appointment> conflicts = new LinkedHashMap<>();
+        for (Diff diff; (diff = pending.poll()) != null; ) {
+            conflicts.putAll(book.applyExternalChanges(diff.removedRules, diff.removed, diff.addedRules, diff.added));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Stops watching the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = changed(key);
+                // a writer may touch the file more times: waits for it to finish
+                for (WatchKey next; (next = watchService.poll(SETTLE_DELAY, TimeUnit.MILLISECONDS)) != null; ) {
+                    changed |= changed(next);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stops watching
+        }
+    }
+
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= path.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Compares the file with its previous lines and queues the difference.
+     */
+    private void reload() {
+        Diff diff = new Diff();
+        long[] current;
+        try {
+            current = readHashes(path.toFile(), diff);
+        } catch (IOException e) {
+            LOGGER.info("Cannot read " + path + ": " + e.getMessage() + System.lineSeparator());
+            return;
+        }
+        long[] gone = missing(hashes, current);
+        hashes = current;
+        BookSnapshot saved = book.lastSaved();
+        if (gone.length > 0) {
+            // the last saved version still has the appointments changed locally since
+            for (BookSnapshot snapshot : new BookSnapshot[]{book.snapshot(), saved}) {
+                if (snapshot == null) {
+                    continue;
+                }
+                for (Appointment appointment : snapshot.tree()) {
+                    if (Arrays.binarySearch(gone, hash(appointment.toString())) >= 0) {
+                        diff.removed.add(appointment);
+                    }
+                }
+                for (RecurringAppointment rule : snapshot.getRules()) {
+                    if (Arrays.binarySearch(gone, hash(rule.toString())) >= 0) {
+                        diff.removedRules.add(rule);
+                    }
+                }
+            }
+        }
+        if (diff.normalize() && (saved == null || !diff.isWrittenFrom(saved))) {
+            pending.add(diff);
+        }
+    }
+
+    /**
+     * Reads the sorted hashes of the lines of {@code file}. If {@code diff} is
+     * not null, the lines whose hash is not in {@code hashes} are parsed into
+     * it.
+     */
+    private long[] readHashes(File file, Diff diff) throws IOException {
+        long[] read = new long[16];
+        int size = 0;
+        if (!file.exists()) {
+            return new long[0];
+        }
+        try (BufferedReader bufferedReader = Book.newReader(file)) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                long hash = hash(line);
+                if (diff != null && Arrays.binarySearch(hashes, hash) < 0) {
+                    diff.parse(line);
+                }
+                if (size == read.length) {
+                    read = Arrays.copyOf(read, size * 2);
+                }
+                read[size++] = hash;
+            }
+        }
+        read = Arrays.copyOf(read, size);
+        Arrays.sort(read);
+        return read;
+    }
+
+    /**
+     * Returns the hashes of {@code before} that are not in {@code after}, both
+     * sorted.
+     */
+    private static long[] missing(long[] before, long[] after) {
+        long[] missing = new long[before.length];
+        int size = 0;
+        for (int i = 0, j = 0; i < before.length; i++) {
+            while (j < after.length && after[j] < before[i]) {
+                j++;
+            }
+            if (j == after.length || after[j] != before[i]) {
+                missing[size++] = before[i];
+            }
+        }
+        return Arrays.copyOf(missing, size);
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the fields of {@code line}, so that a
+     * line written by hand and the line of the same appointment written by the
+     * book have the same hash.
+     */
+    private static long hash(String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : Appointment.split(line)) {
+            for (int i = 0; i < field.length(); i++) {
+                hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ Appointment.SEPARATOR.charAt(0)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The appointments added to and removed from the file.
+     */
+    private static final class Diff {
+        private final Set<Appointment> added = new LinkedHashSet<>();
+        private final Set<Appointment> removed = new LinkedHashSet<>();
+        private final Set<RecurringAppointment> addedRules = new LinkedHashSet<>();
+        private final Set<RecurringAppointment> removedRules = new LinkedHashSet<>();
+
+        /**
+         * Adds the appointment of a new line; malformed lines are reported when
+         * the book is loaded.
+         */
+        private void parse(String line) {
+            String[] values = Appointment.split(line);
+            if (values.length == RecurringAppointment.ARGC) {
+                ParseResult parsed = RecurringAppointment.tryParse(line, values);
+                if (parsed.isValid()) {
+                    addedRules.add(parsed.getRule());
+                }
+            } else if (values.length == Appointment.ARGC) {
+                ParseResult parsed = Appointment.tryParse(line, values);
+                if (parsed.isValid()) {
+                    added.add(parsed.getAppointment());
+                }
+            }
+        }
+
+        /**
+         * Drops the lines that only changed their format.
+         *
+         * @return true if something changed
+         */
+        private boolean normalize() {
+            Set<Appointment> same = new HashSet<>(added);
+            same.retainAll(removed);
+            added.removeAll(same);
+            removed.removeAll(same);
+            Set<RecurringAppointment> sameRules = new HashSet<>(addedRules);
+            sameRules.retainAll(removedRules);
+            addedRules.removeAll(sameRules);
+            removedRules.removeAll(sameRules);
+            return !(added.isEmpty() && removed.isEmpty() && addedRules.isEmpty() && removedRules.isEmpty());
+        }
+
+        /**
+         * Returns true if this difference leads the file to {@code snapshot}.
+         */
+        private boolean isWrittenFrom(BookSnapshot snapshot) {
+            for (Appointment appointment : added) {
+                if (!snapshot.tree().contains(appointment)) {
+                    return false;
+                }
+            }
+            for (Appointment appointment : removed) {
+                if (snapshot.tree().contains(appointment)) {
+                    return false;
+                }
+            }
+            return snapshot.getRules().containsAll(addedRules) && Collections.disjoint(snapshot.getRules(), removedRules);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jab.models;
+
+/**
+ * The {@code CalendarAggregate} is the number of appointments and the booked
+ * minutes of a period of a {@link Book}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#aggregate(java.time.LocalDate, java.time.LocalDate)
+ */
+public final class CalendarAggregate {
+    static final CalendarAggregate ZERO = new CalendarAggregate(0, 0);
+
+    private final long count;
+    private final long minutes;
+
+    CalendarAggregate(long count, long minutes) {
+        this.count = count;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Gets the count field.
+     *
+     * @return the number of appointments and occurrences
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the minutes field.
+     *
+     * @return the sum of the durations, measured in minutes
+     */
+    public long getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Returns an aggregate with {@code appointment} added to this one.
+     */
+    CalendarAggregate plus(Appointment appointment) {
+        return new CalendarAggregate(count + 1, minutes + appointment.getDuration().toMinutes());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof CalendarAggregate) {
+            final CalendarAggregate other = (CalendarAggregate) obj;
+            return this.count == other.count && this.minutes == other.minutes;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(count) + Long.hashCode(minutes);
+    }
+
+    @Override
+    public String toString() {
+        return count + " appointments, " + minutes + " minutes";
+    }
+}
@@ -0,0 +1,133 @@
+package jab.models;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The {@code CalendarIndex} keeps the number of appointments and the booked
+ * minutes of every day of a {@link Book}.
+ *
+ * <p>
+ * The totals are kept in a sparse segment tree over all the epoch days of
+ * {@link LocalDate}: only the nodes on the paths to the days holding an
+ * appointment are allocated, so the memory depends on the number of
+ * appointments and not on how far apart their dates are. Every change and
+ * the totals of any window of days cost O(log d), where d is the number of
+ * days of {@code LocalDate}, about 40 levels. An appointment counts entirely
+ * on the day it starts.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#aggregate(java.time.LocalDate, java.time.LocalDate)
+ */
+final class CalendarIndex implements BookIndex {
+    private static final long MIN_DAY = LocalDate.MIN.toEpochDay();
+    private static final long MAX_DAY = LocalDate.MAX.toEpochDay();
+    private static final int INITIAL_NODES = 1 << 6;
+
+    /**
+     * The children of every node, 0 if absent: the root, node 0, is never a
+     * child
+     */
+    private int[] left;
+    private int[] right;
+    private long[] counts;
+    private long[] minutes;
+    private int size;
+
+    CalendarIndex() {
+        cleared();
+    }
+
+    @Override
+    public void added(Appointment appointment) {
+        update(appointment, 1);
+    }
+
+    @Override
+    public void removed(Appointment appointment) {
+        update(appointment, -1);
+    }
+
+    @Override
+    public void cleared() {
+        left = new int[INITIAL_NODES];
+        right = new int[INITIAL_NODES];
+        counts = new long[INITIAL_NODES];
+        minutes = new long[INITIAL_NODES];
+        size = 1;
+    }
+
+    /**
+     * Returns the totals of the days from {@code fromDay} to {@code toDay},
+     * both included, as epoch days.
+     */
+    CalendarAggregate sum(long fromDay, long toDay) {
+        long from = Math.max(fromDay, MIN_DAY);
+        long to = Math.min(toDay, MAX_DAY);
+        if (from > to) {
+            return CalendarAggregate.ZERO;
+        }
+        long[] totals = new long[2];
+        sum(0, MIN_DAY, MAX_DAY, from, to, totals);
+        return new CalendarAggregate(totals[0], totals[1]);
+    }
+
+    private void sum(int node, long low, long high, long from, long to, long[] totals) {
+        if (from <= low && high <= to) {
+            totals[0] += counts[node];
+            totals[1] += minutes[node];
+            return;
+        }
+        long middle = low + (high - low) / 2;
+        if (from <= middle && left[node] != 0) {
+            sum(left[node], low, middle, from, to, totals);
+        }
+        if (to > middle && right[node] != 0) {
+            sum(right[node], middle + 1, high, from, to, totals);
+        }
+    }
+
+    private void update(Appointment appointment, int sign) {
+        long day = appointment.getDate().toEpochDay();
+        long duration = sign * appointment.getDuration().toMinutes();
+        // allocates the whole path first, so that a failure leaves the totals untouched
+        ensure(64);
+        int node = 0;
+        for (long low = MIN_DAY, high = MAX_DAY; ; ) {
+            counts[node] += sign;
+            minutes[node] += duration;
+            if (low == high) {
+                return;
+            }
+            long middle = low + (high - low) / 2;
+            if (day <= middle) {
+                if (left[node] == 0) {
+                    left[node] = size++;
+                }
+                node = left[node];
+                high = middle;
+            } else {
+                if (right[node] == 0) {
+                    right[node] = size++;
+                }
+                node = right[node];
+                low = middle + 1;
+            }
+        }
+    }
+
+    /**
+     * Grows the nodes, if needed, so that {@code more} of them can be added.
+     */
+    private void ensure(int more) {
+        if (size + more > left.length) {
+            int length = Math.max(left.length * 2, size + more);
+            left = Arrays.copyOf(left, length);
+            right = Arrays.copyOf(right, length);
+            counts = Arrays.copyOf(counts, length);
+            minutes = Arrays.copyOf(minutes, length);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package jab.models;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The {@code ChangeFeed} publishes the changes of a {@link Book} to any number
+ * of subscribers, so that they do not need to copy the book to find out what
+ * changed.
+ *
+ * <p>
+ * The contract is the one of {@code java.util.concurrent.Flow}: a subscriber
+ * receives nothing until it requests it, and then at most as many changes as
+ * requested, in order, on the executor of its subscription. A subscriber
+ * receives the changes published after its subscription.
+ * </p>
+ *
+ * <p>
+ * The changes are kept in a bounded ring buffer shared by all the
+ * subscribers. Publishing never waits for a subscriber: a subscriber that
+ * falls behind by more than the capacity of the buffer loses its
+ * subscription and receives an {@code IllegalStateException}; it can
+ * subscribe again and start from {@link BookChange#getSnapshot()} of the next
+ * change, or from {@link Book#snapshot()}.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#changes()
+ */
+public class ChangeFeed {
+    /**
+     * The default number of changes kept for the subscribers
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeFeed.class.getName());
+
+    private final BookChange[] ring;
+    private final int mask;
+    private final Executor executor;
+    private final List<Feed> feeds = new CopyOnWriteArrayList<>();
+    /**
+     * The number of changes published so far: the next change goes in
+     * {@code ring[tail & mask]}.
+     */
+    private volatile long tail;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a feed that keeps at least {@code capacity} changes and
+     * delivers them on {@code executor}.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not between 1
+     *                                  and 2^30
+     */
+    ChangeFeed(int capacity, Executor executor) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Sorry, " + capacity + " is an invalid capacity (1-2^30).");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        ring = new BookChange[size];
+        mask = ring.length - 1;
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes {@code subscriber} to the changes published from now on,
+     * which are delivered on the default executor.
+     *
+     * @param subscriber the subscriber, not null
+     */
+    public void subscribe(Subscriber subscriber) {
+        subscribe(subscriber, executor);
+    }
+
+    /**
+     * Subscribes {@code subscriber} to the changes published from now on,
+     * which are delivered on {@code executor}. With an executor that runs
+     * tasks on the calling thread, the changes are delivered on the thread
+     * that changes the book.
+     *
+     * @param subscriber the subscriber, not null
+     * @param executor   the executor that runs the methods of the subscriber
+     */
+    public void subscribe(Subscriber subscriber, Executor executor) {
+        Feed feed = new Feed(subscriber, executor, tail);
+        feeds.add(feed);
+        feed.signal();
+    }
+
+    /**
+     * Returns the number of subscriptions not cancelled yet.
+     *
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return feeds.size();
+    }
+
+    /**
+     * Publishes {@code change} to all the subscribers, without waiting for
+     * them.
+     */
+    void publish(BookChange change) {
+        synchronized (ring) {
+            long next = tail;
+            ring[(int) (next & mask)] = change;
+            tail = next + 1;
+        }
+        for (Feed feed : feeds) {
+            feed.signal();
+        }
+    }
+
+    /**
+     * Completes all the subscriptions after their pending changes. Nothing can
+     * be published anymore.
+     */
+    void close() {
+        closed = true;
+        for (Feed feed : feeds) {
+            feed.signal();
+        }
+    }
+
+    /**
+     * Receives the changes of a book, as {@code Flow.Subscriber}. The methods
+     * of a subscriber are never run concurrently.
+     */
+    public interface Subscriber {
+        /**
+         * Runs before any other method, with the subscription through which
+         * the changes are requested.
+         *
+         * @param subscription the new subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Runs for each change requested.
+         *
+         * @param change the next change, not null
+         */
+        void onNext(BookChange change);
+
+        /**
+         * Runs when the subscription ends because of {@code throwable}: an
+         * {@code IllegalStateException} if the subscriber fell behind, an
+         * {@code IllegalArgumentException} if it requested a non-positive
+         * number of changes.
+         *
+         * @param throwable the cause
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Runs when the feed is closed and every change has been delivered.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a {@code Subscriber} to the feed, as {@code Flow.Subscription}.
+     */
+    public interface Subscription {
+        /**
+         * Adds {@code n} to the number of changes the subscriber is ready to
+         * receive.
+         *
+         * @param n the number of changes, {@code Long.MAX_VALUE} for unbounded
+         */
+        void request(long n);
+
+        /**
+         * Stops the delivery of changes. Some changes may still be delivered.
+         */
+        void cancel();
+    }
+
+    /**
+     * A subscription: its cursor in the ring buffer and its demand.
+     */
+    private final class Feed implements Subscription {
+        private final Subscriber subscriber;
+        private final Executor executor;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private long cursor;
+        private boolean started;
+        private volatile boolean cancelled;
+        private volatile Throwable invalid;
+
+        private Feed(Subscriber subscriber, Executor executor, long cursor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalid = new IllegalArgumentException("Sorry, " + n + " is an invalid request (>0).");
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            feeds.remove(this);
+        }
+
+        /**
+         * Schedules a delivery, unless one is already running: the running one
+         * will loop once more.
+         */
+        private void signal() {
+            if (work.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.warning("Cannot deliver the changes: " + e.getMessage() + System.lineSeparator());
+                    cancel();
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            try {
+                do {
+                    if (!started) {
+                        started = true;
+                        subscriber.onSubscribe(this);
+                    }
+                    long demand = requested.get();
+                    long emitted = 0;
+                    while (!cancelled) {
+                        if (invalid != null) {
+                            cancel();
+                            subscriber.onError(invalid);
+                            return;
+                        }
+                        boolean done = closed;
+                        if (cursor == tail) {
+                            if (done) {
+                                cancel();
+                                subscriber.onComplete();
+                                return;
+                            }
+                            break;
+                        }
+                        if (emitted == demand) {
+                            break;
+                        }
+                        BookChange change;
+                        synchronized (ring) {
+                            if (tail - cursor > ring.length) {
+                                change = null;
+                            } else {
+                                change = ring[(int) (cursor & mask)];
+                            }
+                        }
+                        if (change == null) {
+                            cancel();
+                            subscriber.onError(new IllegalStateException("Sorry, the subscriber missed "
+                                    + (tail - cursor - ring.length) + " changes."));
+                            return;
+                        }
+                        cursor++;
+                        emitted++;
+                        subscriber.onNext(change);
+                    }
+                    if (emitted != 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                    missed = work.addAndGet(-missed);
+                } while (missed != 0);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Subscriber failed: " + e.getMessage() + System.lineSeparator());
+                cancel();
+            }
+        }
+    }
+}
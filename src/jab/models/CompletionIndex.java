@@ -0,0 +1,113 @@
+package jab.models;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The {@code CompletionIndex} completes a prefix with the values of a field,
+ * such as the description or the place, of the appointments of a
+ * {@link Book}.
+ *
+ * <p>
+ * The distinct values are kept in a sorted map by their normalized form,
+ * with the number of appointments that use them: the values that start with
+ * a prefix are a contiguous range of the map, found by binary search, and
+ * only the {@code limit} most frequent ones are kept while the range is read.
+ * Values that differ only in case or spacing are merged, and shown as they
+ * are written most often.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#completeDescription(String, int)
+ * @see Book#completePlace(String, int)
+ */
+final class CompletionIndex implements BookIndex {
+    private final Function<Appointment, String> field;
+    /**
+     * The ways every normalized value is written, with their frequency
+     */
+    private final NavigableMap<String, Map<String, Integer>> values = new TreeMap<>();
+
+    /**
+     * Constructs an empty index over the values of {@code field}.
+     */
+    CompletionIndex(Function<Appointment, String> field) {
+        this.field = field;
+    }
+
+    @Override
+    public void added(Appointment appointment) {
+        String value = field.apply(appointment).trim();
+        values.computeIfAbsent(BookIndex.normalize(value), key -> new HashMap<>()).merge(value, 1, Integer::sum);
+    }
+
+    @Override
+    public void removed(Appointment appointment) {
+        String value = field.apply(appointment).trim();
+        String key = BookIndex.normalize(value);
+        Map<String, Integer> spellings = values.get(key);
+        if (spellings != null && spellings.computeIfPresent(value, (ignored, count) -> count == 1 ? null : count - 1) == null
+                && spellings.isEmpty()) {
+            values.remove(key);
+        }
+    }
+
+    @Override
+    public void cleared() {
+        values.clear();
+    }
+
+    /**
+     * Returns at most {@code limit} values that start with {@code prefix},
+     * ignoring case and spacing, the most frequent first.
+     */
+    List<String> complete(String prefix, int limit) {
+        String key = BookIndex.normalize(prefix);
+        // a trailing space asks for the next word
+        if (!key.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key += " ";
+        }
+        Comparator<Completion> order = Comparator.<Completion>comparingInt(completion -> completion.count).reversed()
+                .thenComparing(completion -> completion.value);
+        PriorityQueue<Completion> top = new PriorityQueue<>(order.reversed());
+        for (Map<String, Integer> spellings : values.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            Completion completion = new Completion(spellings);
+            if (top.size() < limit) {
+                top.add(completion);
+            } else if (limit > 0 && order.compare(completion, top.peek()) < 0) {
+                top.poll();
+                top.add(completion);
+            }
+        }
+        List<Completion> sorted = new ArrayList<>(top);
+        sorted.sort(order);
+        List<String> completions = new ArrayList<>(sorted.size());
+        for (Completion completion : sorted) {
+            completions.add(completion.value);
+        }
+        return completions;
+    }
+
+    /**
+     * A normalized value, as written most often, and its frequency.
+     */
+    private static final class Completion {
+        private final String value;
+        private final int count;
+
+        private Completion(Map<String, Integer> spellings) {
+            String best = null;
+            int total = 0, most = 0;
+            for (Map.Entry<String, Integer> entry : spellings.entrySet()) {
+                total += entry.getValue();
+                if (entry.getValue() > most || entry.getValue() == most && entry.getKey().compareTo(best) < 0) {
+                    best = entry.getKey();
+                    most = entry.getValue();
+                }
+            }
+            this.value = best;
+            this.count = total;
+        }
+    }
+}
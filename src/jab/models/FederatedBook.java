@@ -0,0 +1,236 @@
+package jab.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The {@code FederatedBook} answers searches over many book files, for
+ * instance one for each person, as if they were a single book.
+ *
+ * <p>
+ * Every file is loaded into its own {@link Book} the first time it is
+ * searched, and never again. A search runs on all the books in parallel and
+ * each one sorts its own results; the sorted results are then merged with a
+ * heap and returned by an iterator, one at a time, so the cost of reading the
+ * first results does not depend on the total number of results.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#search(Predicate)
+ */
+public class FederatedBook {
+    private final List<Member> members;
+
+    /**
+     * Constructs a federated book over {@code files}, whose appointments are
+     * in the default time-zone. No file is read until the first search.
+     *
+     * @param files the book files
+     */
+    public FederatedBook(List<File> files) {
+        this(files, Appointment.DEFAULT_ZONE);
+    }
+
+    /**
+     * Constructs a federated book over {@code files}, whose appointments are
+     * in {@code zone}. No file is read until the first search.
+     *
+     * @param files the book files
+     * @param zone  the time-zone of the books, not null
+     */
+    public FederatedBook(List<File> files, ZoneId zone) {
+        members = new ArrayList<>(files.size());
+        for (File file : files) {
+            members.add(new Member(file, zone));
+        }
+    }
+
+    /**
+     * Returns the number of book files.
+     *
+     * @return the number of book files
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Returns the book of the file {@code index}, loading it if needed.
+     *
+     * @param index the position of the file
+     * @return the loaded book, not null
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public Book getBook(int index) throws IOException {
+        return members.get(index).load();
+    }
+
+    /**
+     * Returns search result for {@code filter} in all the books.
+     *
+     * @param filter the criterion for selecting
+     * @return an iterator over the results sorted by start
+     * @throws IOException if an I/O error occurs while loading a book
+     * @see Book#search(Predicate)
+     */
+    public Iterator<Result> search(Predicate<Appointment> filter) throws IOException {
+        return merge(snapshot -> snapshot.search(filter));
+    }
+
+    /**
+     * Returns search result for {@code filter} in all the books, among the
+     * appointments and the occurrences that start between {@code from} and
+     * {@code to}, both included.
+     *
+     * @param filter the criterion for selecting
+     * @param from   the first date of the window
+     * @param to     the last date of the window
+     * @return an iterator over the results sorted by start
+     * @throws IOException if an I/O error occurs while loading a book
+     * @see Book#search(Predicate, LocalDate, LocalDate)
+     */
+    public Iterator<Result> search(Predicate<Appointment> filter, LocalDate from, LocalDate to) throws IOException {
+        return merge(snapshot -> snapshot.search(filter, from, to));
+    }
+
+    /**
+     * Runs {@code query} on every book in parallel, then merges the sorted
+     * results.
+     */
+    private Iterator<Result> merge(Function<BookSnapshot, List<Appointment>> query) throws IOException {
+        List<Callable<Cursor>> tasks = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            int index = i;
+            tasks.add(() -> {
+                List<Appointment> results = query.apply(member.load().snapshot());
+                AppointmentKeys.sort(results);
+                return new Cursor(member.file, index, results);
+            });
+        }
+        PriorityQueue<Cursor> heap = new PriorityQueue<>();
+        for (Cursor cursor : Parallel.invokeAll(tasks)) {
+            if (cursor.hasHead()) {
+                heap.add(cursor);
+            }
+        }
+        return new Iterator<Result>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public Result next() {
+                Cursor cursor = heap.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                Result result = new Result(cursor.file, cursor.head());
+                cursor.position++;
+                if (cursor.hasHead()) {
+                    heap.add(cursor);
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * An appointment found by a search and the file of its book.
+     */
+    public static final class Result {
+        private final File file;
+        private final Appointment appointment;
+
+        private Result(File file, Appointment appointment) {
+            this.file = file;
+            this.appointment = appointment;
+        }
+
+        /**
+         * @return the file of the book that contains the appointment
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the appointment found
+         */
+        public Appointment getAppointment() {
+            return appointment;
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + appointment;
+        }
+    }
+
+    /**
+     * A book file, loaded at most once.
+     */
+    private static final class Member {
+        private final File file;
+        private final ZoneId zone;
+        private volatile Book book;
+
+        private Member(File file, ZoneId zone) {
+            this.file = file;
+            this.zone = zone;
+        }
+
+        private Book load() throws IOException {
+            Book loaded = book;
+            if (loaded == null) {
+                synchronized (this) {
+                    loaded = book;
+                    if (loaded == null) {
+                        loaded = new Book(file.getPath(), zone);
+                        loaded.loadBookFromFile();
+                        book = loaded;
+                    }
+                }
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * The sorted results of a book and the position of the next one.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final File file;
+        private final int index;
+        private final List<Appointment> results;
+        private int position;
+
+        private Cursor(File file, int index, List<Appointment> results) {
+            this.file = file;
+            this.index = index;
+            this.results = results;
+        }
+
+        private boolean hasHead() {
+            return position < results.size();
+        }
+
+        private Appointment head() {
+            return results.get(position);
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int result = AppointmentTree.ORDER.compare(head(), other.head());
+            return result != 0 ? result : Integer.compare(index, other.index);
+        }
+    }
+}
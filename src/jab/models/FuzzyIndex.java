@@ -0,0 +1,194 @@
+package jab.models;
+
+import java.util.*;
+
+/**
+ * The {@code FuzzyIndex} finds the appointments whose description is similar
+ * to a text, even if misspelled.
+ *
+ * <p>
+ * The terms of a description are its words and the whole description, in
+ * lower case. Every term is split in trigrams, padded at both ends, and an
+ * inverted index maps every trigram to the terms that contain it. A term
+ * within edit distance {@code k} of the text shares at least all but
+ * {@code 3k} of its trigrams, so only the terms that pass this count filter
+ * are compared with a Levenshtein distance bounded by {@code k}, which stops
+ * as soon as no cell of a row is within the bound.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#fuzzySearch(String, int, int)
+ */
+final class FuzzyIndex implements BookIndex {
+    private static final int Q = 3;
+    private static final String PADDING = "\u0000\u0000";
+
+    /**
+     * The appointments of every normalized description
+     */
+    private final Map<String, Set<Appointment>> descriptions = new HashMap<>();
+    /**
+     * The normalized descriptions of every term
+     */
+    private final Map<String, Set<String>> terms = new HashMap<>();
+    /**
+     * The terms of every trigram
+     */
+    private final Map<String, Set<String>> grams = new HashMap<>();
+
+    @Override
+    public void added(Appointment appointment) {
+        String description = BookIndex.normalize(appointment.getDescription());
+        Set<Appointment> appointments = descriptions.get(description);
+        if (appointments == null) {
+            appointments = new HashSet<>();
+            descriptions.put(description, appointments);
+            for (String term : terms(description)) {
+                Set<String> containing = terms.get(term);
+                if (containing == null) {
+                    containing = new HashSet<>();
+                    terms.put(term, containing);
+                    for (String gram : grams(term)) {
+                        grams.computeIfAbsent(gram, key -> new HashSet<>()).add(term);
+                    }
+                }
+                containing.add(description);
+            }
+        }
+        appointments.add(appointment);
+    }
+
+    @Override
+    public void removed(Appointment appointment) {
+        String description = BookIndex.normalize(appointment.getDescription());
+        Set<Appointment> appointments = descriptions.get(description);
+        if (appointments == null || !appointments.remove(appointment) || !appointments.isEmpty()) {
+            return;
+        }
+        descriptions.remove(description);
+        for (String term : terms(description)) {
+            Set<String> containing = terms.get(term);
+            containing.remove(description);
+            if (containing.isEmpty()) {
+                terms.remove(term);
+                for (String gram : grams(term)) {
+                    Set<String> termsOfGram = grams.get(gram);
+                    termsOfGram.remove(term);
+                    if (termsOfGram.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cleared() {
+        descriptions.clear();
+        terms.clear();
+        grams.clear();
+    }
+
+    /**
+     * Returns the appointments whose description has a term within
+     * {@code maxDistance} edits of {@code text}, with the distance of their
+     * closest term.
+     */
+    Map<Appointment, Integer> search(String text, int maxDistance) {
+        String query = BookIndex.normalize(text);
+        Set<String> queryGrams = grams(query);
+        Collection<String> candidates;
+        if (queryGrams.size() - Q * maxDistance > 0) {
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                for (String term : grams.getOrDefault(gram, Collections.emptySet())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            candidates = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                if (entry.getValue() >= queryGrams.size() - Q * maxDistance) {
+                    candidates.add(entry.getKey());
+                }
+            }
+        } else {
+            // a short text may share no trigram with a close term
+            candidates = terms.keySet();
+        }
+        Map<String, Integer> distances = new HashMap<>();
+        for (String term : candidates) {
+            int distance = distance(query, term, maxDistance);
+            if (distance <= maxDistance) {
+                for (String description : terms.get(term)) {
+                    distances.merge(description, distance, Math::min);
+                }
+            }
+        }
+        Map<Appointment, Integer> results = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : distances.entrySet()) {
+            for (Appointment appointment : descriptions.get(entry.getKey())) {
+                results.put(appointment, entry.getValue());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the Levenshtein distance between {@code a} and {@code b}, or
+     * {@code max + 1} if it is greater than {@code max}.
+     *
+     * <p>
+     * Only the cells within {@code max} of the diagonal are computed, and the
+     * computation stops at the first row without a cell within {@code max}.
+     * </p>
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j <= max ? j : max + 1;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max), to = Math.min(b.length(), i + max);
+            int minimum = row[0] = i <= max ? i : max + 1;
+            if (from > 1) {
+                row[from - 1] = max + 1;
+            }
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int cell = Math.min(Math.min(row[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                row[j] = Math.min(cell, max + 1);
+                minimum = Math.min(minimum, row[j]);
+            }
+            if (to < b.length()) {
+                row[to + 1] = max + 1;
+            }
+            if (minimum > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static Set<String> terms(String description) {
+        Set<String> terms = new LinkedHashSet<>(Arrays.asList(description.split(" ")));
+        terms.add(description);
+        return terms;
+    }
+
+    private static Set<String> grams(String term) {
+        String padded = PADDING + term + PADDING;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + Q <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + Q));
+        }
+        return grams;
+    }
+}
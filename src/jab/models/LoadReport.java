@@ -0,0 +1,286 @@
+package jab.models;
+
+import jab.models.format.ParseErrorKind;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The {@code LoadReport} collects the problems found while loading a book
+ * file.
+ *
+ * <p>
+ * Every problem is counted by kind, but only the first {@code maxSamples}
+ * are kept in memory, with their line, column and text. All of them can be
+ * written to an optional error file, one per line: line number, column, kind
+ * and text separated by tabs. The log receives at most {@code LOG_BURST}
+ * messages per second; the others are only counted, and the number of
+ * messages skipped is logged in the next second or when the load ends.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#loadBookFromFile(Collection, LoadReport)
+ */
+public class LoadReport {
+    /**
+     * The default number of problems kept in memory
+     */
+    public static final int DEFAULT_SAMPLES = 100;
+    /**
+     * The maximum number of problems logged per second
+     */
+    public static final int LOG_BURST = 10;
+
+    private static final Logger LOGGER = Logger.getLogger(LoadReport.class.getName());
+    private static final long LOG_PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxSamples;
+    private final File errorFile;
+    private final long[] counts = new long[ParseErrorKind.values().length];
+    private final List<Sample> samples = new ArrayList<>();
+    private BufferedWriter errors;
+    private long lines;
+    private long periodStart;
+    private int logged;
+    private long skipped;
+
+    /**
+     * Constructs a report that keeps the first {@code DEFAULT_SAMPLES}
+     * problems and writes no error file.
+     */
+    public LoadReport() {
+        this(DEFAULT_SAMPLES, null);
+    }
+
+    /**
+     * Constructs a report.
+     *
+     * @param maxSamples the number of problems kept in memory
+     * @param errorFile  the file that receives every problem, null for none
+     * @throws IllegalArgumentException if {@code maxSamples} is negative
+     */
+    public LoadReport(int maxSamples, File errorFile) {
+        if (maxSamples < 0) {
+            throw new IllegalArgumentException("Sorry, " + maxSamples + " is an invalid number of samples (>=0).");
+        }
+        this.maxSamples = maxSamples;
+        this.errorFile = errorFile;
+    }
+
+    /**
+     * Returns the number of lines read.
+     *
+     * @return the number of lines; if the book was loaded from its sidecar,
+     * the number of lines read by the load that wrote it
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of problems found.
+     *
+     * @return the number of problems of every kind
+     */
+    public long getErrors() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of problems of {@code kind} found.
+     *
+     * @param kind the kind of problem
+     * @return the number of problems of {@code kind}
+     */
+    public long getCount(ParseErrorKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the first problems found, in order of line.
+     *
+     * @return at most {@code maxSamples} problems, unmodifiable
+     */
+    public List<Sample> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    /**
+     * Returns true if no problem has been found.
+     *
+     * @return true if the file is clean
+     */
+    public boolean isClean() {
+        return getErrors() == 0;
+    }
+
+    /**
+     * Reports a problem of {@code kind} at {@code column} of {@code line}.
+     */
+    void add(long line, ParseErrorKind kind, int column, String text) {
+        counts[kind.ordinal()]++;
+        Sample sample = new Sample(line, kind, column, text);
+        if (samples.size() < maxSamples) {
+            samples.add(sample);
+        }
+        write(sample);
+        log(sample);
+    }
+
+    /**
+     * Ends the report of a load of {@code lines} lines: closes the error file
+     * and logs what has been skipped.
+     */
+    void finish(long lines) {
+        this.lines = lines;
+        if (errors != null) {
+            try {
+                errors.close();
+            } catch (IOException e) {
+                LOGGER.info("Cannot write " + errorFile + ": " + e.getMessage() + System.lineSeparator());
+            }
+            errors = null;
+        }
+        flushSkipped();
+    }
+
+    /**
+     * Returns true if the problems of a previous load, {@code errors} in all
+     * of which {@code samples} were kept, can be replayed into this report
+     * as if the file were read again.
+     */
+    boolean canReplay(long errors, int samples) {
+        return samples >= errors || errorFile == null && samples >= maxSamples;
+    }
+
+    /**
+     * Reports the problems of a previous load of {@code lines} lines, as kept
+     * by its sidecar: {@code counts} by kind and the first {@code samples},
+     * then ends the report as {@link LoadReport#finish(long)}.
+     */
+    void replay(long lines, long[] counts, List<Sample> samples) {
+        for (int i = 0; i < counts.length; i++) {
+            this.counts[i] += counts[i];
+        }
+        for (Sample sample : samples) {
+            if (this.samples.size() < maxSamples) {
+                this.samples.add(sample);
+            }
+            write(sample);
+            log(sample);
+        }
+        finish(lines);
+    }
+
+    private void write(Sample sample) {
+        if (errorFile == null) {
+            return;
+        }
+        try {
+            if (errors == null) {
+                errors = new BufferedWriter(new FileWriter(errorFile));
+            }
+            errors.write(sample.line + "\t" + sample.column + "\t" + sample.kind + "\t" + sample.text);
+            errors.newLine();
+        } catch (IOException e) {
+            LOGGER.info("Cannot write " + errorFile + ": " + e.getMessage() + System.lineSeparator());
+        }
+    }
+
+    private void log(Sample sample) {
+        long now = System.nanoTime();
+        if (logged > 0 && now - periodStart >= LOG_PERIOD) {
+            flushSkipped();
+            logged = 0;
+        }
+        if (logged == 0) {
+            periodStart = now;
+        }
+        if (logged < LOG_BURST) {
+            logged++;
+            LOGGER.warning(sample + System.lineSeparator());
+        } else {
+            skipped++;
+        }
+    }
+
+    private void flushSkipped() {
+        if (skipped > 0) {
+            LOGGER.warning(skipped + " more problems not shown" + System.lineSeparator());
+            skipped = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner kinds = new StringJoiner(", ", " (", ")");
+        kinds.setEmptyValue("");
+        for (ParseErrorKind kind : ParseErrorKind.values()) {
+            if (counts[kind.ordinal()] > 0) {
+                kinds.add(counts[kind.ordinal()] + " " + kind.getMessage());
+            }
+        }
+        return getErrors() + " problems in " + lines + " lines" + kinds;
+    }
+
+    /**
+     * A problem found in a line.
+     */
+    public static final class Sample {
+        private final long line;
+        private final ParseErrorKind kind;
+        private final int column;
+        private final String text;
+
+        Sample(long line, ParseErrorKind kind, int column, String text) {
+            this.line = line;
+            this.kind = kind;
+            this.column = column;
+            this.text = text;
+        }
+
+        /**
+         * @return the number of the line, starting from 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * @return the kind of the problem, not null
+         */
+        public ParseErrorKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the position of the first character of the wrong field,
+         * starting from 1; 1 if the whole line is wrong
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return the text of the line
+         */
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ", column " + column + ": " + kind.getMessage();
+        }
+    }
+}
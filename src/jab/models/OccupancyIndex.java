@@ -0,0 +1,170 @@
+package jab.models;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The {@code OccupancyIndex} marks the minutes taken by the appointments of a
+ * {@link Book}, one bit per minute.
+ *
+ * <p>
+ * Minutes are counted from the epoch, after the conversion through the
+ * offsets of the time-zone of the book, so daylight saving time is already
+ * accounted for. Every UTC day with at least an appointment has a bitmap of
+ * 1440 bits in {@code long[23]}; an appointment across midnight, or longer
+ * than a day, marks the bitmaps of all its days. Checking whether an interval
+ * is free, or whether a minute is taken, costs a few word operations per day.
+ * </p>
+ *
+ * <p>
+ * An interval takes every minute it touches, even partially, so a free answer
+ * is exact while a busy one only says that an overlap is possible: the caller
+ * confirms it with {@link Book#overlaps(long, long, long, long)}. Minutes
+ * taken by more appointments, for instance after a change of time-zone, are
+ * counted apart, so that removing one of them keeps the others.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#setOccupancyEnabled(boolean)
+ */
+final class OccupancyIndex implements BookIndex {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS = (MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+    private final Function<Appointment, ZoneOffsetTable> offsets;
+    private final Map<Long, long[]> days = new HashMap<>();
+    /**
+     * How many more appointments take a minute, for the minutes taken by more
+     * than one
+     */
+    private final Map<Long, Integer> shared = new HashMap<>();
+
+    /**
+     * Constructs an empty index converting appointments through
+     * {@code offsets}.
+     */
+    OccupancyIndex(Function<Appointment, ZoneOffsetTable> offsets) {
+        this.offsets = offsets;
+    }
+
+    @Override
+    public void added(Appointment appointment) {
+        ZoneOffsetTable table = offsets.apply(appointment);
+        long first = firstMinute(appointment.getStartEpochSecond(table));
+        long end = endMinute(appointment.getEndEpochSecond(table));
+        if (!isFreeMinutes(first, end)) {
+            for (long minute = first; minute < end; minute++) {
+                if (isBusy(minute)) {
+                    shared.merge(minute, 1, Integer::sum);
+                }
+            }
+        }
+        forEachWord(first, end, true, (words, word, mask) -> words[word] |= mask);
+    }
+
+    @Override
+    public void removed(Appointment appointment) {
+        ZoneOffsetTable table = offsets.apply(appointment);
+        long first = firstMinute(appointment.getStartEpochSecond(table));
+        long end = endMinute(appointment.getEndEpochSecond(table));
+        forEachWord(first, end, false, (words, word, mask) -> words[word] &= ~mask);
+        if (!shared.isEmpty()) {
+            for (long minute = first; minute < end; minute++) {
+                Integer count = shared.get(minute);
+                if (count != null) {
+                    forEachWord(minute, minute + 1, true, (words, word, mask) -> words[word] |= mask);
+                    if (count == 1) {
+                        shared.remove(minute);
+                    } else {
+                        shared.put(minute, count - 1);
+                    }
+                }
+            }
+        }
+        for (long day = Math.floorDiv(first, MINUTES_PER_DAY); day * MINUTES_PER_DAY < end; day++) {
+            long[] words = days.get(day);
+            if (words != null && isEmpty(words)) {
+                days.remove(day);
+            }
+        }
+    }
+
+    @Override
+    public void cleared() {
+        days.clear();
+        shared.clear();
+    }
+
+    /**
+     * Returns true if no appointment takes any minute touched by the interval
+     * from {@code start} to {@code end}, measured in epoch seconds.
+     */
+    boolean isFree(long start, long end) {
+        return isFreeMinutes(firstMinute(start), endMinute(end));
+    }
+
+    /**
+     * Returns true if an appointment takes {@code minute}, measured from the
+     * epoch.
+     */
+    boolean isBusy(long minute) {
+        long[] words = days.get(Math.floorDiv(minute, MINUTES_PER_DAY));
+        int offset = (int) Math.floorMod(minute, MINUTES_PER_DAY);
+        return words != null && (words[offset >>> 6] & 1L << offset) != 0;
+    }
+
+    private boolean isFreeMinutes(long first, long end) {
+        boolean[] free = {true};
+        forEachWord(first, end, false, (words, word, mask) -> free[0] &= (words[word] & mask) == 0);
+        return free[0];
+    }
+
+    private static long firstMinute(long second) {
+        return Math.floorDiv(second, 60);
+    }
+
+    private static long endMinute(long second) {
+        return -Math.floorDiv(-second, 60);
+    }
+
+    private static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs {@code action} on every word of the bitmaps with the bits of the
+     * minutes from {@code first} included to {@code end} excluded. Missing
+     * bitmaps are created if {@code create}, skipped otherwise.
+     */
+    private void forEachWord(long first, long end, boolean create, WordAction action) {
+        for (long minute = first; minute < end; ) {
+            long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+            int from = (int) (minute - day * MINUTES_PER_DAY);
+            int to = (int) Math.min(end - day * MINUTES_PER_DAY, MINUTES_PER_DAY);
+            long[] words = create ? days.computeIfAbsent(day, key -> new long[WORDS]) : days.get(day);
+            for (int word = from >>> 6; words != null && word <= (to - 1) >>> 6; word++) {
+                long mask = -1L;
+                if (word == from >>> 6) {
+                    mask &= -1L << from;
+                }
+                if (word == (to - 1) >>> 6) {
+                    mask &= -1L >>> (Long.SIZE - 1 - ((to - 1) & 63));
+                }
+                action.apply(words, word, mask);
+            }
+            minute = (day + 1) * MINUTES_PER_DAY;
+        }
+    }
+
+    @FunctionalInterface
+    private interface WordAction {
+        void apply(long[] words, int word, long mask);
+    }
+}
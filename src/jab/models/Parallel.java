@@ -0,0 +1,56 @@
+package jab.models;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent tasks on the common {@link ForkJoinPool}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ */
+final class Parallel {
+
+    private Parallel() {
+    }
+
+    /**
+     * Runs {@code tasks} in parallel and waits for all of them.
+     *
+     * @return the results of {@code tasks}, in the same order
+     * @throws IOException if a task throws it, or if the calling thread is
+     *                     interrupted
+     */
+    static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // the pool may wrap checked exceptions into plain RuntimeExceptions
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        return results;
+    }
+}
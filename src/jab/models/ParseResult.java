@@ -0,0 +1,91 @@
+package jab.models;
+
+import jab.models.format.ParseErrorKind;
+
+/**
+ * The {@code ParseResult} is the outcome of {@link Appointment#tryParse(String)}
+ * and {@link RecurringAppointment#tryParse(String)}: either what the line holds
+ * or the kind and the position of the first problem of the line.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ */
+public final class ParseResult {
+    private final Appointment appointment;
+    private final RecurringAppointment rule;
+    private final ParseErrorKind kind;
+    private final int position;
+
+    private ParseResult(Appointment appointment, RecurringAppointment rule, ParseErrorKind kind, int position) {
+        this.appointment = appointment;
+        this.rule = rule;
+        this.kind = kind;
+        this.position = position;
+    }
+
+    static ParseResult of(Appointment appointment) {
+        return new ParseResult(appointment, null, null, 0);
+    }
+
+    static ParseResult of(RecurringAppointment rule) {
+        return new ParseResult(rule.getFirst(), rule, null, 0);
+    }
+
+    static ParseResult error(ParseErrorKind kind, int position) {
+        return new ParseResult(null, null, kind, position);
+    }
+
+    /**
+     * Returns true if the line holds an appointment or a recurring
+     * appointment.
+     *
+     * @return true if there is no problem
+     */
+    public boolean isValid() {
+        return appointment != null;
+    }
+
+    /**
+     * Gets the appointment field.
+     *
+     * @return the appointment parsed, the first occurrence if the line holds a
+     * recurring appointment, null if the line is malformed
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Gets the rule field.
+     *
+     * @return the recurring appointment parsed, null if the line holds a
+     * single appointment or is malformed
+     */
+    public RecurringAppointment getRule() {
+        return rule;
+    }
+
+    /**
+     * Gets the kind field.
+     *
+     * @return the kind of the problem, null if the line is valid
+     */
+    public ParseErrorKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the position field.
+     *
+     * @return the position in the line where the problem was found, starting
+     * from 1; 0 if the line is valid
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? (rule != null ? rule.toString() : appointment.toString()) : "Column " + position + ": " + kind.getMessage();
+    }
+}
@@ -0,0 +1,75 @@
+package jab.models;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The {@code PlaceIndex} partitions the appointments of a {@link Book} by
+ * place.
+ *
+ * <p>
+ * Every place has its own {@link AppointmentTree}, sorted by start, so the
+ * appointments of a place in a time window are found in O(log n + k) without
+ * looking at the other places. Places are compared by their
+ * {@link PlaceIndex#key(String) key}, which ignores case and spacing.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#search(String, java.time.LocalDate, java.time.LocalDate)
+ */
+final class PlaceIndex implements BookIndex {
+    private final Map<String, AppointmentTree> places = new HashMap<>();
+
+    /**
+     * Returns the key of {@code place}: lower case, without leading and
+     * trailing spaces and with the inner ones collapsed.
+     */
+    static String key(String place) {
+        return BookIndex.normalize(place);
+    }
+
+    @Override
+    public void added(Appointment appointment) {
+        places.merge(key(appointment.getPlace()), AppointmentTree.EMPTY.insert(appointment),
+                (tree, ignored) -> tree.insert(appointment));
+    }
+
+    @Override
+    public void removed(Appointment appointment) {
+        places.computeIfPresent(key(appointment.getPlace()), (key, tree) -> {
+            AppointmentTree removed = tree.remove(appointment);
+            return removed.isEmpty() ? null : removed;
+        });
+    }
+
+    @Override
+    public void cleared() {
+        places.clear();
+    }
+
+    /**
+     * Returns the number of distinct places.
+     */
+    int size() {
+        return places.size();
+    }
+
+    /**
+     * Returns the number of appointments at {@code place}.
+     */
+    int count(String place) {
+        AppointmentTree tree = places.get(key(place));
+        return tree == null ? 0 : tree.size();
+    }
+
+    /**
+     * Returns an iterator, in sorted order, over the appointments at
+     * {@code place} that start from {@code from} included to {@code to}
+     * excluded; a null bound leaves that side of the window open.
+     */
+    Iterator<Appointment> iterator(String place, LocalDateTime from, LocalDateTime to) {
+        AppointmentTree tree = places.get(key(place));
+        return tree == null ? Collections.emptyIterator() : tree.iterator(from, to);
+    }
+}
@@ -0,0 +1,472 @@
+package jab.models;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The {@code Query} is a condition on the appointments of a {@link Book} that
+ * the book can plan, using its indexes, instead of scanning all the
+ * appointments.
+ *
+ * <p>
+ * The conditions are a range of dates, a range of start times, bounds on the
+ * duration, a text contained in the description and a place, combined with
+ * {@code and}, {@code or} and {@code not}. A query can be built with the
+ * static factories or parsed from a text such as:
+ * </p>
+ *
+ * <pre>
+ * date 01-12-2018..31-12-2018 and (place "3 Scofield Way" or not description Kirbie)
+ * time 08-00..12-00 and duration 30..60
+ * </pre>
+ *
+ * <p>
+ * Descriptions are matched as {@link Book#forDescription(String)} does,
+ * places ignoring case and spacing. All the ranges include both ends.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#search(Query)
+ * @see Book#explain(Query)
+ */
+public abstract class Query implements Predicate<Appointment> {
+    private static final String RANGE = "..";
+
+    Query() {
+    }
+
+    /**
+     * Returns a query for the appointments that start between {@code from}
+     * and {@code to}, both included.
+     *
+     * @param from the first date
+     * @param to   the last date
+     * @return a new query, not null
+     */
+    public static Query date(LocalDate from, LocalDate to) {
+        return new DateRange(from, to);
+    }
+
+    /**
+     * Returns a query for the appointments that start, on any date, between
+     * {@code from} and {@code to}, both included.
+     *
+     * @param from the first start time
+     * @param to   the last start time
+     * @return a new query, not null
+     */
+    public static Query time(LocalTime from, LocalTime to) {
+        return new TimeRange(from, to);
+    }
+
+    /**
+     * Returns a query for the appointments that last between {@code min} and
+     * {@code max} minutes, both included.
+     *
+     * @param min the minimum duration, measured in minutes
+     * @param max the maximum duration, measured in minutes
+     * @return a new query, not null
+     */
+    public static Query duration(long min, long max) {
+        return new DurationRange(min, max);
+    }
+
+    /**
+     * Returns a query for the appointments whose description contains
+     * {@code text}, ignoring case.
+     *
+     * @param text the text to be contained
+     * @return a new query, not null
+     */
+    public static Query description(String text) {
+        return new DescriptionContains(text);
+    }
+
+    /**
+     * Returns a query for the appointments at {@code place}, ignoring case
+     * and spacing.
+     *
+     * @param place the place
+     * @return a new query, not null
+     */
+    public static Query place(String place) {
+        return new PlaceEquals(place);
+    }
+
+    /**
+     * Returns a query for the appointments that match all the
+     * {@code queries}.
+     *
+     * @param queries the queries to be combined
+     * @return a new query, not null
+     */
+    public static Query and(Query... queries) {
+        return new And(Arrays.asList(queries.clone()));
+    }
+
+    /**
+     * Returns a query for the appointments that match any of the
+     * {@code queries}.
+     *
+     * @param queries the queries to be combined
+     * @return a new query, not null
+     */
+    public static Query or(Query... queries) {
+        return new Or(Arrays.asList(queries.clone()));
+    }
+
+    /**
+     * Returns a query for the appointments that do not match {@code query}.
+     *
+     * @param query the query to be negated
+     * @return a new query, not null
+     */
+    public static Query not(Query query) {
+        return new Not(query);
+    }
+
+    /**
+     * Parses a query from {@code text}.
+     *
+     * @param text the text of the query, as returned by {@code toString()}
+     * @return the parsed query, not null
+     * @throws IllegalArgumentException if {@code text} is not a valid query
+     */
+    public static Query parse(String text) {
+        Parser parser = new Parser(tokenize(text));
+        Query query;
+        try {
+            query = parser.or();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid date or time in query: " + e.getMessage(), e);
+        }
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected " + parser.tokens.get(parser.position) + " in query");
+        }
+        return query;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < text.length(); ) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = i + 1;
+                while (end < text.length() && text.charAt(end) != '"') {
+                    end += text.charAt(end) == '\\' ? 2 : 1;
+                }
+                if (end >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated text in query");
+                }
+                tokens.add(text.substring(i, end + 1));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && "()\"".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Quotes {@code text}, escaping {@code "} and {@code \} with a backslash.
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * A recursive descent parser: {@code or} binds looser than {@code and},
+     * which binds looser than {@code not}.
+     */
+    private static final class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        private Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        private Query or() {
+            List<Query> queries = new ArrayList<>(Collections.singletonList(and()));
+            while (accept("or")) {
+                queries.add(and());
+            }
+            return queries.size() == 1 ? queries.get(0) : new Or(queries);
+        }
+
+        private Query and() {
+            List<Query> queries = new ArrayList<>(Collections.singletonList(not()));
+            while (accept("and")) {
+                queries.add(not());
+            }
+            return queries.size() == 1 ? queries.get(0) : new And(queries);
+        }
+
+        private Query not() {
+            if (accept("not")) {
+                return new Not(not());
+            }
+            if (accept("(")) {
+                Query query = or();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ) in query");
+                }
+                return query;
+            }
+            String field = next().toLowerCase();
+            switch (field) {
+                case "date": {
+                    String[] range = range(next());
+                    return new DateRange(LocalDate.parse(range[0], Appointment.FORMATTER_DATE), LocalDate.parse(range[1], Appointment.FORMATTER_DATE));
+                }
+                case "time": {
+                    String[] range = range(next());
+                    return new TimeRange(LocalTime.parse(range[0], Appointment.FORMATTER_TIME), LocalTime.parse(range[1], Appointment.FORMATTER_TIME));
+                }
+                case "duration": {
+                    String[] range = range(next());
+                    try {
+                        return new DurationRange(Long.parseLong(range[0]), Long.parseLong(range[1]));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid duration in query: " + e.getMessage());
+                    }
+                }
+                case "description":
+                    return new DescriptionContains(text(next()));
+                case "place":
+                    return new PlaceEquals(text(next()));
+                default:
+                    throw new IllegalArgumentException("Unknown field " + field + " in query");
+            }
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private String next() {
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of query");
+            }
+            return tokens.get(position++);
+        }
+
+        private static String[] range(String token) {
+            int separator = token.indexOf(RANGE);
+            return separator < 0 ? new String[]{token, token}
+                    : new String[]{token.substring(0, separator), token.substring(separator + RANGE.length())};
+        }
+
+        private static String text(String token) {
+            if (!token.startsWith("\"")) {
+                return token;
+            }
+            StringBuilder text = new StringBuilder(token.length());
+            for (int i = 1; i < token.length() - 1; i++) {
+                char c = token.charAt(i);
+                text.append(c == '\\' ? token.charAt(++i) : c);
+            }
+            return text.toString();
+        }
+    }
+
+    static final class DateRange extends Query {
+        final LocalDate from;
+        final LocalDate to;
+
+        private DateRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return !appointment.getDate().isBefore(from) && !appointment.getDate().isAfter(to);
+        }
+
+        @Override
+        public String toString() {
+            return "date " + from.format(Appointment.FORMATTER_DATE) + RANGE + to.format(Appointment.FORMATTER_DATE);
+        }
+    }
+
+    static final class TimeRange extends Query {
+        private final LocalTime from;
+        private final LocalTime to;
+
+        private TimeRange(LocalTime from, LocalTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return !appointment.getStartTime().isBefore(from) && !appointment.getStartTime().isAfter(to);
+        }
+
+        @Override
+        public String toString() {
+            return "time " + from.format(Appointment.FORMATTER_TIME) + RANGE + to.format(Appointment.FORMATTER_TIME);
+        }
+    }
+
+    static final class DurationRange extends Query {
+        private final Duration min;
+        private final Duration max;
+
+        private DurationRange(long min, long max) {
+            this.min = Duration.ofMinutes(min);
+            this.max = Duration.ofMinutes(max);
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return appointment.getDuration().compareTo(min) >= 0 && appointment.getDuration().compareTo(max) <= 0;
+        }
+
+        @Override
+        public String toString() {
+            return "duration " + min.toMinutes() + RANGE + max.toMinutes();
+        }
+    }
+
+    static final class DescriptionContains extends Query {
+        private final String text;
+
+        private DescriptionContains(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return appointment.getDescription().toLowerCase().contains(text.toLowerCase());
+        }
+
+        @Override
+        public String toString() {
+            return "description " + quote(text);
+        }
+    }
+
+    static final class PlaceEquals extends Query {
+        final String place;
+
+        private PlaceEquals(String place) {
+            this.place = place;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return BookIndex.normalize(appointment.getPlace()).equals(BookIndex.normalize(place));
+        }
+
+        @Override
+        public String toString() {
+            return "place " + quote(place);
+        }
+    }
+
+    static final class And extends Query {
+        final List<Query> queries;
+
+        private And(List<Query> queries) {
+            this.queries = queries;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            for (Query query : queries) {
+                if (!query.test(appointment)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return join(queries, " and ");
+        }
+    }
+
+    static final class Or extends Query {
+        final List<Query> queries;
+
+        private Or(List<Query> queries) {
+            this.queries = queries;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            for (Query query : queries) {
+                if (query.test(appointment)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return join(queries, " or ");
+        }
+    }
+
+    static final class Not extends Query {
+        final Query query;
+
+        private Not(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean test(Appointment appointment) {
+            return !query.test(appointment);
+        }
+
+        @Override
+        public String toString() {
+            return query instanceof And || query instanceof Or ? "not (" + query + ")" : "not " + query;
+        }
+    }
+
+    private static String join(List<Query> queries, String operator) {
+        StringBuilder builder = new StringBuilder();
+        for (Query query : queries) {
+            if (builder.length() > 0) {
+                builder.append(operator);
+            }
+            builder.append(query instanceof And || query instanceof Or ? "(" + query + ")" : query.toString());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,296 @@
+package jab.models;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The {@code QueryPlanner} chooses how a {@link Book} finds the appointments
+ * that match a {@link Query}.
+ *
+ * <p>
+ * A range of dates is read from the tree, whose size is estimated in
+ * O(log n) by the calendar index, and a place from the place index. For an
+ * {@code and} the most selective index drives the search; the other indexes
+ * whose estimate is close to it are intersected with it, the rest of the
+ * query is checked on every candidate. An {@code or} is the union of its
+ * parts if all of them have an index. Anything else is a full scan.
+ * Occurrences of recurring appointments are expanded only when the query
+ * bounds the dates.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#explain(Query)
+ */
+final class QueryPlanner {
+    /**
+     * How many times an index may be larger than the driving one to be
+     * intersected with it, rather than checked on its candidates
+     */
+    private static final int INTERSECTION_RATIO = 4;
+
+    private final BookSnapshot snapshot;
+    private final PlaceIndex places;
+    private final CalendarIndex calendar;
+
+    QueryPlanner(BookSnapshot snapshot, PlaceIndex places, CalendarIndex calendar) {
+        this.snapshot = snapshot;
+        this.places = places;
+        this.calendar = calendar;
+    }
+
+    /**
+     * Runs {@code query}: the appointments sorted by start, then the
+     * occurrences.
+     */
+    List<Appointment> search(Query query) {
+        List<Appointment> results = new ArrayList<>();
+        for (Appointment appointment : plan(query).candidates()) {
+            if (query.test(appointment)) {
+                results.add(appointment);
+            }
+        }
+        AppointmentKeys.sort(results);
+        LocalDate[] bounds = bounds(query);
+        if (bounds != null && !bounds[0].isAfter(bounds[1])) {
+            for (RecurringAppointment rule : snapshot.getRules()) {
+                for (Appointment occurrence : rule.occurrences(bounds[0], bounds[1])) {
+                    if (query.test(occurrence)) {
+                        results.add(occurrence);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Describes how {@code query} would run, one step per line.
+     */
+    String explain(Query query) {
+        StringBuilder builder = new StringBuilder("FILTER ").append(query).append(System.lineSeparator());
+        plan(query).explain(builder, "  ");
+        LocalDate[] bounds = bounds(query);
+        builder.append("  RULES ");
+        if (bounds == null) {
+            builder.append("skipped, no date bound");
+        } else {
+            builder.append(Query.date(bounds[0], bounds[1])).append(" (").append(snapshot.getRules().size()).append(" rules)");
+        }
+        return builder.append(System.lineSeparator()).toString();
+    }
+
+    private Plan plan(Query query) {
+        Plan plan = index(query);
+        return plan != null ? plan : new Scan();
+    }
+
+    /**
+     * Returns the plan of {@code query} through the indexes, null if it needs
+     * a full scan.
+     */
+    private Plan index(Query query) {
+        if (query instanceof Query.DateRange) {
+            return new DateIndex((Query.DateRange) query);
+        } else if (query instanceof Query.PlaceEquals) {
+            return new PlaceLookup(((Query.PlaceEquals) query).place);
+        } else if (query instanceof Query.And) {
+            List<Plan> plans = new ArrayList<>();
+            for (Query part : ((Query.And) query).queries) {
+                Plan plan = index(part);
+                if (plan != null) {
+                    plans.add(plan);
+                }
+            }
+            if (plans.isEmpty()) {
+                return null;
+            }
+            plans.sort(Comparator.comparingLong(plan -> plan.estimate));
+            List<Plan> intersected = new ArrayList<>();
+            for (Plan plan : plans) {
+                if (plan.estimate <= INTERSECTION_RATIO * Math.max(plans.get(0).estimate, 1)) {
+                    intersected.add(plan);
+                }
+            }
+            return intersected.size() == 1 ? intersected.get(0) : new Intersection(intersected);
+        } else if (query instanceof Query.Or) {
+            List<Plan> plans = new ArrayList<>();
+            for (Query part : ((Query.Or) query).queries) {
+                Plan plan = index(part);
+                if (plan == null) {
+                    return null;
+                }
+                plans.add(plan);
+            }
+            return new Union(plans);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first and the last date of the appointments that can match
+     * {@code query}, null if they are not bounded.
+     */
+    private static LocalDate[] bounds(Query query) {
+        if (query instanceof Query.DateRange) {
+            return new LocalDate[]{((Query.DateRange) query).from, ((Query.DateRange) query).to};
+        } else if (query instanceof Query.And) {
+            LocalDate[] bounds = null;
+            for (Query part : ((Query.And) query).queries) {
+                LocalDate[] partBounds = bounds(part);
+                if (partBounds != null) {
+                    bounds = bounds == null ? partBounds : new LocalDate[]{
+                            partBounds[0].isAfter(bounds[0]) ? partBounds[0] : bounds[0],
+                            partBounds[1].isBefore(bounds[1]) ? partBounds[1] : bounds[1]};
+                }
+            }
+            return bounds;
+        } else if (query instanceof Query.Or) {
+            LocalDate[] bounds = null;
+            for (Query part : ((Query.Or) query).queries) {
+                LocalDate[] partBounds = bounds(part);
+                if (partBounds == null) {
+                    return null;
+                }
+                bounds = bounds == null ? partBounds : new LocalDate[]{
+                        partBounds[0].isBefore(bounds[0]) ? partBounds[0] : bounds[0],
+                        partBounds[1].isAfter(bounds[1]) ? partBounds[1] : bounds[1]};
+            }
+            return bounds;
+        }
+        return null;
+    }
+
+    /**
+     * A way to find the candidates of a query, with the estimated number of
+     * candidates.
+     */
+    private abstract static class Plan {
+        final long estimate;
+
+        Plan(long estimate) {
+            this.estimate = estimate;
+        }
+
+        abstract Collection<Appointment> candidates();
+
+        abstract void explain(StringBuilder builder, String indent);
+
+        void line(StringBuilder builder, String indent, String step) {
+            builder.append(indent).append(step).append(" (~").append(estimate).append(" rows)").append(System.lineSeparator());
+        }
+    }
+
+    private final class Scan extends Plan {
+        private Scan() {
+            super(snapshot.size());
+        }
+
+        @Override
+        Collection<Appointment> candidates() {
+            return snapshot.getSortedBook();
+        }
+
+        @Override
+        void explain(StringBuilder builder, String indent) {
+            line(builder, indent, "SCAN");
+        }
+    }
+
+    private final class DateIndex extends Plan {
+        private final Query.DateRange range;
+
+        private DateIndex(Query.DateRange range) {
+            super(range.from.isAfter(range.to) ? 0 : calendar.sum(range.from.toEpochDay(), range.to.toEpochDay()).getCount());
+            this.range = range;
+        }
+
+        @Override
+        Collection<Appointment> candidates() {
+            List<Appointment> candidates = new ArrayList<>();
+            if (!range.from.isAfter(range.to)) {
+                snapshot.tree().iterator(range.from.atStartOfDay(), range.to.plusDays(1).atStartOfDay()).forEachRemaining(candidates::add);
+            }
+            return candidates;
+        }
+
+        @Override
+        void explain(StringBuilder builder, String indent) {
+            line(builder, indent, "INDEX " + range);
+        }
+    }
+
+    private final class PlaceLookup extends Plan {
+        private final String place;
+
+        private PlaceLookup(String place) {
+            super(places.count(place));
+            this.place = place;
+        }
+
+        @Override
+        Collection<Appointment> candidates() {
+            List<Appointment> candidates = new ArrayList<>();
+            places.iterator(place, null, null).forEachRemaining(candidates::add);
+            return candidates;
+        }
+
+        @Override
+        void explain(StringBuilder builder, String indent) {
+            line(builder, indent, "INDEX " + Query.place(place));
+        }
+    }
+
+    private static final class Intersection extends Plan {
+        private final List<Plan> plans;
+
+        private Intersection(List<Plan> plans) {
+            super(plans.get(0).estimate);
+            this.plans = plans;
+        }
+
+        @Override
+        Collection<Appointment> candidates() {
+            Collection<Appointment> candidates = plans.get(0).candidates();
+            for (Plan plan : plans.subList(1, plans.size())) {
+                Set<Appointment> other = new HashSet<>(plan.candidates());
+                candidates.removeIf(appointment -> !other.contains(appointment));
+            }
+            return candidates;
+        }
+
+        @Override
+        void explain(StringBuilder builder, String indent) {
+            line(builder, indent, "INTERSECT");
+            for (Plan plan : plans) {
+                plan.explain(builder, indent + "  ");
+            }
+        }
+    }
+
+    private static final class Union extends Plan {
+        private final List<Plan> plans;
+
+        private Union(List<Plan> plans) {
+            super(plans.stream().mapToLong(plan -> plan.estimate).sum());
+            this.plans = plans;
+        }
+
+        @Override
+        Collection<Appointment> candidates() {
+            Set<Appointment> candidates = new LinkedHashSet<>();
+            for (Plan plan : plans) {
+                candidates.addAll(plan.candidates());
+            }
+            return candidates;
+        }
+
+        @Override
+        void explain(StringBuilder builder, String indent) {
+            line(builder, indent, "UNION");
+            for (Plan plan : plans) {
+                plan.explain(builder, indent + "  ");
+            }
+        }
+    }
+}
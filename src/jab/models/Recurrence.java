@@ -0,0 +1,352 @@
+package jab.models;
+
+import jab.models.format.AppointmentParseException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * The {@code Recurrence} class represents the rule with which a
+ * {@link RecurringAppointment} repeats itself.
+ *
+ * <p>
+ * The k-th period starts {@code k * interval} days, weeks or months after the
+ * first occurrence. A monthly recurrence skips the months that do not contain
+ * its day of month (e.g. the 31st), the skipped periods still count for
+ * {@code count}. An occurrence exists if its period is before {@code count},
+ * its date is not after {@code until} and it is not one of the
+ * {@code exceptions}.
+ * </p>
+ *
+ * <p>
+ * The textual representation is
+ * <pre>
+ *     WEEKLY;INTERVAL=2;COUNT=10;UNTIL=31-12-2019;EXDATE=24-12-2018,31-12-2018
+ * </pre>
+ * where every part but the frequency is optional.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see RecurringAppointment
+ */
+public final class Recurrence {
+    /**
+     * The number of days after which the Gregorian calendar repeats itself
+     * (400 years, 4800 months).
+     */
+    static final long GREGORIAN_CYCLE_DAYS = 146097;
+    /**
+     * The number of months of {@code GREGORIAN_CYCLE_DAYS}.
+     */
+    static final long GREGORIAN_CYCLE_MONTHS = 4800;
+
+    private static final String PART_SEPARATOR = ";";
+    private static final String DATE_SEPARATOR = ",";
+    private static final String INTERVAL = "INTERVAL=";
+    private static final String COUNT = "COUNT=";
+    private static final String UNTIL = "UNTIL=";
+    private static final String EXDATE = "EXDATE=";
+
+    private final Frequency frequency;
+    private final int interval;
+    private final long count;
+    private final LocalDate until;
+    private final NavigableSet<LocalDate> exceptions;
+
+    /**
+     * Constructs and initializes a recurrence.
+     *
+     * @param frequency  the unit of the recurrence, not null
+     * @param interval   the number of units between two occurrences
+     * @param count      the maximum number of periods, 0 if unlimited
+     * @param until      the last date of an occurrence, null if unlimited
+     * @param exceptions the dates on which the occurrence is cancelled, not null
+     * @throws IllegalArgumentException if {@code interval} is not positive or
+     *                                  {@code count} is negative
+     */
+    public Recurrence(Frequency frequency, int interval, long count, LocalDate until, Collection<LocalDate> exceptions) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Sorry, " + interval + " is an invalid interval (>0).");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Sorry, " + count + " is an invalid count (>=0).");
+        }
+        this.frequency = Objects.requireNonNull(frequency);
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.exceptions = Collections.unmodifiableNavigableSet(new TreeSet<>(exceptions));
+    }
+
+    /**
+     * Parses the string argument as a recurrence.
+     *
+     * @param text the String containing the recurrence representation to be
+     *             parsed
+     * @return the recurrence represented by the string argument, not null
+     * @throws DateTimeParseException   if a date cannot be parsed
+     * @throws IllegalArgumentException if the {@code String} does not contain a
+     *                                  parsable {@code Recurrence}.
+     */
+    public static Recurrence parse(String text) {
+        String[] parts = text.trim().split(PART_SEPARATOR);
+        Frequency frequency;
+        try {
+            frequency = Frequency.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppointmentParseException("Unknown frequency " + parts[0].trim());
+        }
+        int interval = 1;
+        long count = 0;
+        LocalDate until = null;
+        List<LocalDate> exceptions = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i].trim();
+            if (part.startsWith(INTERVAL)) {
+                interval = Integer.parseInt(part.substring(INTERVAL.length()));
+            } else if (part.startsWith(COUNT)) {
+                count = Long.parseLong(part.substring(COUNT.length()));
+            } else if (part.startsWith(UNTIL)) {
+                until = LocalDate.parse(part.substring(UNTIL.length()), Appointment.FORMATTER_DATE);
+            } else if (part.startsWith(EXDATE)) {
+                for (String date : part.substring(EXDATE.length()).split(DATE_SEPARATOR)) {
+                    exceptions.add(LocalDate.parse(date.trim(), Appointment.FORMATTER_DATE));
+                }
+            } else {
+                throw new AppointmentParseException("Unknown recurrence part " + part);
+            }
+        }
+        return new Recurrence(frequency, interval, count, until, exceptions);
+    }
+
+    /**
+     * Gets the frequency field.
+     *
+     * @return the frequency, not null
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Gets the interval field.
+     *
+     * @return the number of units between two occurrences
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the count field.
+     *
+     * @return the maximum number of periods, 0 if unlimited
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the until field.
+     *
+     * @return the last date of an occurrence, null if unlimited
+     */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Gets the exceptions field.
+     *
+     * @return an unmodifiable view of the cancelled dates, not null
+     */
+    public NavigableSet<LocalDate> getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Returns a copy of this recurrence with {@code date} cancelled or restored.
+     *
+     * @param date      the date of an occurrence
+     * @param cancelled true to cancel the occurrence, false to restore it
+     * @return a recurrence with the updated exceptions, not null
+     */
+    public Recurrence withException(LocalDate date, boolean cancelled) {
+        Set<LocalDate> updated = new TreeSet<>(exceptions);
+        if (cancelled) {
+            updated.add(date);
+        } else {
+            updated.remove(date);
+        }
+        return new Recurrence(frequency, interval, count, until, updated);
+    }
+
+    /**
+     * Returns true if this recurrence has a last occurrence.
+     *
+     * @return true if {@code count} or {@code until} is set
+     */
+    public boolean isBounded() {
+        return count > 0 || until != null;
+    }
+
+    /**
+     * Returns the date of the k-th period starting from {@code first}, clipped to
+     * the end of the month for monthly recurrences.
+     */
+    LocalDate periodDate(LocalDate first, long k) {
+        switch (frequency) {
+            case DAILY:
+                return first.plusDays(k * interval);
+            case WEEKLY:
+                return first.plusWeeks(k * interval);
+            default:
+                return first.plusMonths(k * interval);
+        }
+    }
+
+    /**
+     * Returns the first period whose date is not before {@code date}.
+     */
+    long firstPeriodFrom(LocalDate first, LocalDate date) {
+        long units;
+        switch (frequency) {
+            case DAILY:
+                units = ChronoUnit.DAYS.between(first, date);
+                break;
+            case WEEKLY:
+                units = ChronoUnit.DAYS.between(first, date) / 7;
+                break;
+            default:
+                units = (date.getYear() - (long) first.getYear()) * 12 + date.getMonthValue() - first.getMonthValue();
+                break;
+        }
+        long k = Math.max(0, Math.floorDiv(units, interval) - 1);
+        while (periodDate(first, k).isBefore(date)) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns true if the k-th period has an occurrence.
+     */
+    boolean occurs(LocalDate first, long k) {
+        if (k < 0 || count > 0 && k >= count) {
+            return false;
+        }
+        LocalDate date = periodDate(first, k);
+        return (frequency != Frequency.MONTHLY || date.getDayOfMonth() == first.getDayOfMonth())
+                && (until == null || !date.isAfter(until))
+                && !exceptions.contains(date);
+    }
+
+    /**
+     * Returns true if there is no period after the k-th one.
+     */
+    boolean isOver(LocalDate first, long k) {
+        return count > 0 && k >= count || until != null && periodDate(first, k).isAfter(until);
+    }
+
+    /**
+     * Returns the shortest distance, in days, between two occurrences.
+     */
+    long minPeriodDays() {
+        switch (frequency) {
+            case DAILY:
+                return interval;
+            case WEEKLY:
+                return 7L * interval;
+            default:
+                return 28L * interval;
+        }
+    }
+
+    /**
+     * Returns the number of days after which the calendar dates of the
+     * occurrences repeat themselves with the same spacing.
+     */
+    long cycleDays() {
+        switch (frequency) {
+            case DAILY:
+                return interval;
+            case WEEKLY:
+                return 7L * interval;
+            default:
+                return GREGORIAN_CYCLE_DAYS * (lcm(interval, GREGORIAN_CYCLE_MONTHS) / GREGORIAN_CYCLE_MONTHS);
+        }
+    }
+
+    /**
+     * Returns the least common multiple of the positive {@code a} and
+     * {@code b}, {@code Long.MAX_VALUE} if it does not fit in a long.
+     */
+    static long lcm(long a, long b) {
+        long x = a, y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        try {
+            return Math.multiplyExact(a / x, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Returns the textual representation of this recurrence.
+     *
+     * @return a string representation of the object.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(frequency.name());
+        if (interval != 1) {
+            builder.append(PART_SEPARATOR).append(INTERVAL).append(interval);
+        }
+        if (count > 0) {
+            builder.append(PART_SEPARATOR).append(COUNT).append(count);
+        }
+        if (until != null) {
+            builder.append(PART_SEPARATOR).append(UNTIL).append(until.format(Appointment.FORMATTER_DATE));
+        }
+        if (!exceptions.isEmpty()) {
+            builder.append(PART_SEPARATOR).append(EXDATE);
+            String separator = "";
+            for (LocalDate exception : exceptions) {
+                builder.append(separator).append(exception.format(Appointment.FORMATTER_DATE));
+                separator = DATE_SEPARATOR;
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof Recurrence) {
+            final Recurrence other = (Recurrence) obj;
+            return frequency == other.frequency && interval == other.interval && count == other.count
+                    && Objects.equals(until, other.until) && exceptions.equals(other.exceptions);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, count, until, exceptions);
+    }
+
+    /**
+     * The unit of a {@code Recurrence}.
+     */
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+}
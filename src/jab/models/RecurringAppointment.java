@@ -0,0 +1,566 @@
+package jab.models;
+
+import jab.models.format.AppointmentParseException;
+import jab.models.format.ParseErrorKind;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code RecurringAppointment} class represents an appointment that
+ * repeats itself according to a {@link Recurrence}.
+ *
+ * <p>
+ * It is stored as a single rule: the first occurrence and its recurrence.
+ * The other occurrences are built only when they are needed, inside the
+ * window of a query or of a collision check. Two rules are checked against
+ * each other without expanding them: the periods at which a daily or weekly
+ * rule meets the other rule are solved as congruences, and only the periods
+ * of one calendar cycle of a monthly rule are walked.
+ * </p>
+ *
+ * <p>
+ * The serialized form is an appointment followed by its recurrence:
+ * <pre>
+ *     24-12-2018|09-13|127|Gun De Ambrosi|64277 Pleasure Pass|WEEKLY;COUNT=10
+ * </pre>
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#add(RecurringAppointment)
+ */
+public final class RecurringAppointment {
+    /**
+     * The number of fields of a serialized recurring appointment.
+     */
+    static final int ARGC = Appointment.ARGC + 1;
+
+    private static final int RULE_COLUMN = Appointment.ARGC;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    /**
+     * Margin for the daylight saving time changes: occurrences are computed on
+     * the wall clock, collisions are checked on instants.
+     */
+    private static final long DST_MARGIN_MINUTES = 60;
+    /**
+     * Margin for appointments of two different time-zones: their offsets are
+     * at most 36 hours apart.
+     */
+    private static final long ZONE_MARGIN_MINUTES = 36 * 60 + DST_MARGIN_MINUTES;
+
+    /**
+     * The days over which close solutions of a collision check between two
+     * rules meet the offsets of every season, twice: sparser ones are checked
+     * over a whole Gregorian cycle.
+     */
+    private static final long SEASONS_DAYS = 2 * 366;
+    /**
+     * The largest modulus whose residues can be multiplied without overflow.
+     */
+    private static final long SMALL_MODULUS = 3037000499L;
+    /**
+     * The farthest date walked by a collision check between two rules: the
+     * next period of any rule still fits in a {@code LocalDate}.
+     */
+    private static final LocalDate LAST_HORIZON = LocalDate.MAX.minusMonths(2L * Integer.MAX_VALUE);
+
+    private final Appointment first;
+    private final Recurrence recurrence;
+
+    /**
+     * Constructs and initializes a recurring appointment.
+     *
+     * @param first      the first occurrence, not null
+     * @param recurrence the rule of the next occurrences, not null
+     * @throws IllegalArgumentException if an occurrence could collide with the
+     *                                  next one
+     */
+    public RecurringAppointment(Appointment first, Recurrence recurrence) {
+        this.first = Objects.requireNonNull(first);
+        this.recurrence = Objects.requireNonNull(recurrence);
+        if (!fits(first, recurrence)) {
+            throw new IllegalArgumentException("Sorry, " + first.getDuration().toMinutes() + " is an invalid duration. It must be shorter than the recurrence period.");
+        }
+    }
+
+    /**
+     * Parses the string argument as a recurring appointment.
+     *
+     * @param line the String containing the representation to be parsed
+     * @return the recurring appointment represented by the string argument, not
+     * null
+     * @throws DateTimeParseException   if the text cannot be parsed to a date or
+     *                                  appointment time
+     * @throws IllegalArgumentException if the {@code String} does not contain a
+     *                                  parsable {@code RecurringAppointment}.
+     */
+    public static RecurringAppointment parse(String line) {
+        return parse(Appointment.split(line));
+    }
+
+    /**
+     * Builds a recurring appointment from the fields of a split line.
+     */
+    static RecurringAppointment parse(String[] values) {
+        if (values.length != ARGC) {
+            throw new AppointmentParseException("Illegal parsing");
+        }
+        return new RecurringAppointment(Appointment.parse(values), Recurrence.parse(values[RULE_COLUMN]));
+    }
+
+    /**
+     * Parses the string argument as a recurring appointment, without throwing.
+     *
+     * @param line the String containing the representation to be parsed
+     * @return the recurring appointment, or the kind and the position of the
+     * first problem of the line
+     * @see Appointment#tryParse(String)
+     */
+    public static ParseResult tryParse(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '\n' || line.charAt(i) == '\r') {
+                return ParseResult.error(ParseErrorKind.FIELD_COUNT, i + 1);
+            }
+        }
+        return tryParse(line, Appointment.split(line));
+    }
+
+    /**
+     * Parses the fields of a split line, without throwing.
+     *
+     * <p>
+     * A duration that does not fit in the recurrence period is a problem of
+     * the recurrence.
+     * </p>
+     *
+     * @param line   the line
+     * @param values the fields returned by {@link Appointment#split(String)}
+     * @return the recurring appointment, or the kind and the position of the
+     * first problem of the line
+     */
+    static ParseResult tryParse(String line, String[] values) {
+        if (values.length != ARGC) {
+            return ParseResult.error(ParseErrorKind.FIELD_COUNT, 1);
+        }
+        ParseResult parsed = Appointment.tryParse(line, Arrays.copyOf(values, Appointment.ARGC));
+        if (!parsed.isValid()) {
+            return parsed;
+        }
+        Recurrence recurrence;
+        try {
+            recurrence = Recurrence.parse(values[RULE_COLUMN]);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ParseResult.error(ParseErrorKind.RECURRENCE, Appointment.column(line, RULE_COLUMN));
+        }
+        if (!fits(parsed.getAppointment(), recurrence)) {
+            return ParseResult.error(ParseErrorKind.RECURRENCE, Appointment.column(line, RULE_COLUMN));
+        }
+        return ParseResult.of(new RecurringAppointment(parsed.getAppointment(), recurrence));
+    }
+
+    /**
+     * Returns true if {@code first} ends before the next period of
+     * {@code recurrence} begins.
+     */
+    private static boolean fits(Appointment first, Recurrence recurrence) {
+        return first.getDuration().toMinutes() + DST_MARGIN_MINUTES <= recurrence.minPeriodDays() * MINUTES_PER_DAY;
+    }
+
+    /**
+     * Gets the first occurrence.
+     *
+     * @return the first occurrence, not null
+     */
+    public Appointment getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets the recurrence field.
+     *
+     * @return the recurrence, not null
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Returns a copy of this rule with the occurrence of {@code date} cancelled
+     * or restored.
+     *
+     * @param date      the date of an occurrence
+     * @param cancelled true to cancel the occurrence, false to restore it
+     * @return the updated rule, not null
+     */
+    public RecurringAppointment withException(LocalDate date, boolean cancelled) {
+        return new RecurringAppointment(first, recurrence.withException(date, cancelled));
+    }
+
+    /**
+     * Returns the occurrence that starts on {@code date}.
+     *
+     * @param date the date of the occurrence
+     * @return the occurrence, null if there is no occurrence on that date
+     */
+    public Appointment occurrence(LocalDate date) {
+        long k = recurrence.firstPeriodFrom(first.getDate(), date);
+        return recurrence.periodDate(first.getDate(), k).equals(date) ? occurrenceAt(k) : null;
+    }
+
+    /**
+     * Returns true if {@code appointment} is one of the occurrences of this rule.
+     *
+     * @param appointment the appointment to be tested
+     * @return true if an occurrence equals {@code appointment}
+     */
+    public boolean hasOccurrence(Appointment appointment) {
+        return appointment.equals(occurrence(appointment.getDate()));
+    }
+
+    /**
+     * Expands the occurrences that start between {@code from} and {@code to},
+     * both included.
+     *
+     * @param from the first date of the window
+     * @param to   the last date of the window
+     * @return the sorted occurrences inside the window, not null
+     */
+    public List<Appointment> occurrences(LocalDate from, LocalDate to) {
+        List<Appointment> occurrences = new ArrayList<>();
+        for (long k = recurrence.firstPeriodFrom(first.getDate(), from);
+             !recurrence.isOver(first.getDate(), k) && !recurrence.periodDate(first.getDate(), k).isAfter(to); k++) {
+            Appointment occurrence = occurrenceAt(k);
+            if (occurrence != null) {
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Checks if {@code appointment} collides with an occurrence of this rule.
+     *
+     * <p>
+     * Only the occurrences that start close to {@code appointment} are built.
+     * </p>
+     *
+     * @param appointment an appointment to be checked
+     * @return an overlapped occurrence, null otherwise
+     */
+    public Appointment overlaps(Appointment appointment) {
+        return overlaps(appointment, Book.DEFAULT_OFFSETS);
+    }
+
+    /**
+     * Checks if {@code appointment} collides with an occurrence of this rule,
+     * converting both to instants through {@code table}.
+     */
+    Appointment overlaps(Appointment appointment, ZoneOffsetTable table) {
+        return overlaps(appointment, table, table);
+    }
+
+    /**
+     * Checks if {@code appointment} collides with an occurrence of this rule,
+     * converting the occurrences through {@code table} and
+     * {@code appointment} through {@code otherTable}.
+     */
+    Appointment overlaps(Appointment appointment, ZoneOffsetTable table, ZoneOffsetTable otherTable) {
+        long margin = margin(table, otherTable);
+        LocalDateTime start = appointment.toDateTime();
+        LocalDate from = start.minusMinutes(first.getDuration().toMinutes() + margin).toLocalDate();
+        LocalDate to = start.plusMinutes(appointment.getDuration().toMinutes() + margin).toLocalDate();
+        long otherStart = appointment.getStartEpochSecond(otherTable);
+        long otherEnd = appointment.getEndEpochSecond(otherTable);
+        for (Appointment occurrence : occurrences(from, to)) {
+            if (Book.overlaps(occurrence.getStartEpochSecond(table), occurrence.getEndEpochSecond(table), otherStart, otherEnd)) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if any occurrence of {@code other} collides with an occurrence of
+     * this rule.
+     *
+     * <p>
+     * Two occurrences can collide only if their dates are a few days apart,
+     * the duration of the longer one at most. For every such distance the
+     * dates of a daily or weekly rule form an arithmetic progression, so the
+     * periods of both rules that fall at that distance are found by solving a
+     * linear congruence, without walking the occurrences in between. A monthly
+     * rule repeats its dates every 4800 months, so only the periods of one
+     * such cycle are walked, each one solved against the other rule. Solutions
+     * are checked on instants; a cancelled or non-colliding one moves to the
+     * next solution, up to one full common cycle after the last exception and
+     * long enough to meet the offsets of every season. Two monthly rules are
+     * walked as a whole, up to the {@code lcm} of their cycles.
+     * </p>
+     *
+     * @param other another recurring appointment
+     * @return an overlapped occurrence of {@code other}, null otherwise
+     */
+    public Appointment overlaps(RecurringAppointment other) {
+        return overlaps(other, Book.DEFAULT_OFFSETS);
+    }
+
+    /**
+     * Checks if any occurrence of {@code other} collides with an occurrence of
+     * this rule, converting both to instants through {@code table}.
+     */
+    Appointment overlaps(RecurringAppointment other, ZoneOffsetTable table) {
+        return overlaps(other, table, table);
+    }
+
+    /**
+     * Checks if any occurrence of {@code other} collides with an occurrence of
+     * this rule, converting the occurrences of this rule through {@code table}
+     * and the ones of {@code other} through {@code otherTable}.
+     */
+    Appointment overlaps(RecurringAppointment other, ZoneOffsetTable table, ZoneOffsetTable otherTable) {
+        boolean monthly = recurrence.getFrequency() == Recurrence.Frequency.MONTHLY;
+        boolean otherMonthly = other.recurrence.getFrequency() == Recurrence.Frequency.MONTHLY;
+        if (monthly && otherMonthly) {
+            return walk(other, table, otherTable);
+        }
+        // the walked rule is the monthly one, if any; the other one is solved
+        Appointment[] found = otherMonthly
+                ? other.solve(this, otherTable, table)
+                : solve(other, table, otherTable);
+        if (found == null) {
+            return null;
+        }
+        return otherMonthly ? found[0] : found[1];
+    }
+
+    /**
+     * Finds the first couple of colliding occurrences of this rule and of the
+     * daily or weekly {@code other}, walking the periods of one calendar
+     * cycle of this rule and solving, for each of them, the congruence of the
+     * periods of {@code other}.
+     *
+     * @return the occurrence of this rule and the one of {@code other}, null
+     * if they never collide
+     */
+    private Appointment[] solve(RecurringAppointment other, ZoneOffsetTable table, ZoneOffsetTable otherTable) {
+        long margin = margin(table, otherTable);
+        LocalDate firstDate = first.getDate();
+        long otherFirst = other.first.getDate().toEpochDay();
+        long otherPeriod = other.recurrence.minPeriodDays();
+        boolean monthly = recurrence.getFrequency() == Recurrence.Frequency.MONTHLY;
+        // a cycle of this rule: periods after which its dates move by cycle days
+        long periods = monthly ? Recurrence.GREGORIAN_CYCLE_MONTHS / gcd(recurrence.getInterval(), Recurrence.GREGORIAN_CYCLE_MONTHS) : 1;
+        long cycle = recurrence.cycleDays();
+        long divisor = gcd(cycle, otherPeriod);
+        long step = otherPeriod / divisor;
+        // solutions are checked over a common cycle, and long enough to meet the offsets of every season
+        long span = Math.max(Recurrence.lcm(cycle, otherPeriod),
+                cycle <= SEASONS_DAYS && step <= SEASONS_DAYS / cycle ? SEASONS_DAYS : Recurrence.GREGORIAN_CYCLE_DAYS);
+        long inverse = BigInteger.valueOf(cycle / divisor).modInverse(BigInteger.valueOf(step)).longValue();
+        long base = max(max(firstDate, other.first.getDate()), max(lastException(), other.lastException())).toEpochDay();
+        long last = LAST_HORIZON.toEpochDay();
+        long startDifference = other.first.getStartTime().toSecondOfDay() / 60 - first.getStartTime().toSecondOfDay() / 60;
+        // the distances in days at which the wall clocks of two occurrences overlap, give or take the margin
+        long low = Math.floorDiv(-other.first.getDuration().toMinutes() - margin - startDifference, MINUTES_PER_DAY) + 1;
+        long high = -Math.floorDiv(startDifference - first.getDuration().toMinutes() - margin, MINUTES_PER_DAY) - 1;
+        if (low > high) {
+            return null;
+        }
+        LocalDate from = max(firstDate, other.first.getDate()).minusDays(Math.max(-low, high) + 1);
+        long firstPeriod = recurrence.firstPeriodFrom(firstDate, from);
+        Appointment[] best = null;
+        for (long k = firstPeriod; k < firstPeriod + periods && !recurrence.isOver(firstDate, k); k++) {
+            LocalDate periodDate = recurrence.periodDate(firstDate, k);
+            if (monthly && periodDate.getDayOfMonth() != firstDate.getDayOfMonth()) {
+                continue;
+            }
+            long date = periodDate.toEpochDay();
+            for (long distance = low; distance <= high; distance++) {
+                // date + t * cycle + distance = otherFirst + j * otherPeriod, with j >= 0
+                long t = firstSolution(otherFirst - date - distance, otherPeriod, divisor, inverse,
+                        Math.max(0, -Math.floorDiv(date + distance - otherFirst, cycle)));
+                if (t < 0 || t > (last - date) / cycle) {
+                    continue;
+                }
+                long stop = -1;
+                for (long day = date + t * cycle; day <= last; day += step * cycle, t += step) {
+                    long j = (day + distance - otherFirst) / otherPeriod;
+                    if (recurrence.isOver(firstDate, k + t * periods) || other.recurrence.isOver(other.first.getDate(), j)
+                            || best != null && day > best[0].getDate().toEpochDay()) {
+                        break;
+                    }
+                    if (stop < 0) {
+                        stop = span > last - Math.max(base, day) ? last : Math.max(base, day) + span;
+                    } else if (day > stop) {
+                        break;
+                    }
+                    Appointment occurrence = occurrenceAt(k + t * periods);
+                    Appointment overlapped = other.occurrenceAt(j);
+                    if (occurrence != null && overlapped != null
+                            && Book.overlaps(occurrence.getStartEpochSecond(table), occurrence.getEndEpochSecond(table),
+                            overlapped.getStartEpochSecond(otherTable), overlapped.getEndEpochSecond(otherTable))) {
+                        if (best == null || occurrence.getDate().isBefore(best[0].getDate())
+                                || occurrence.getDate().equals(best[0].getDate()) && overlapped.getDate().isBefore(best[1].getDate())) {
+                            best = new Appointment[]{occurrence, overlapped};
+                        }
+                        break;
+                    }
+                    if (step > (last - day) / cycle) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks two monthly rules: the occurrences of the sparser rule are walked
+     * from the first date both rules are active, and each one is checked
+     * against the denser rule with
+     * {@link RecurringAppointment#overlaps(Appointment)}. Once the last
+     * exception has passed, the distances between the occurrences repeat
+     * themselves every {@code lcm} of the two calendar cycles, so the walk stops
+     * after one full cycle.
+     */
+    private Appointment walk(RecurringAppointment other, ZoneOffsetTable table, ZoneOffsetTable otherTable) {
+        boolean thisIsSparse = averageDays() >= other.averageDays();
+        RecurringAppointment sparse = thisIsSparse ? this : other;
+        RecurringAppointment dense = thisIsSparse ? other : this;
+        ZoneOffsetTable sparseTable = thisIsSparse ? table : otherTable;
+        ZoneOffsetTable denseTable = thisIsSparse ? otherTable : table;
+        LocalDate from = max(first.getDate(), other.first.getDate())
+                .minusDays(Math.max(first.getDuration().toDays(), other.first.getDuration().toDays())
+                        + margin(table, otherTable) / MINUTES_PER_DAY + 1);
+        LocalDate base = max(max(first.getDate(), other.first.getDate()), max(lastException(), other.lastException()));
+        long days = Recurrence.lcm(recurrence.cycleDays(), other.recurrence.cycleDays()) + sparse.recurrence.minPeriodDays() + 1;
+        LocalDate horizon = days > 0 && days < ChronoUnit.DAYS.between(base, LAST_HORIZON) ? base.plusDays(days) : LAST_HORIZON;
+        LocalDate denseLast = dense.lastDate();
+        long tail = dense.first.getDuration().toDays() + margin(table, otherTable) / MINUTES_PER_DAY + 1;
+        if (denseLast != null && denseLast.plusDays(tail).isBefore(horizon)) {
+            horizon = denseLast.plusDays(tail);
+        }
+        LocalDate sparseFirst = sparse.first.getDate();
+        for (long k = sparse.recurrence.firstPeriodFrom(sparseFirst, from);
+             !sparse.recurrence.isOver(sparseFirst, k) && !sparse.recurrence.periodDate(sparseFirst, k).isAfter(horizon); k++) {
+            Appointment occurrence = sparse.occurrenceAt(k);
+            if (occurrence != null) {
+                Appointment overlapped = dense.overlaps(occurrence, denseTable, sparseTable);
+                if (overlapped != null) {
+                    return thisIsSparse ? overlapped : occurrence;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the smallest {@code t >= min} such that {@code t * step} is
+     * congruent to {@code difference} modulo {@code modulus}, -1 if there is
+     * none, where {@code divisor} is the gcd of {@code step} and
+     * {@code modulus} and {@code inverse} the inverse of
+     * {@code step / divisor} modulo {@code modulus / divisor}.
+     */
+    private static long firstSolution(long difference, long modulus, long divisor, long inverse, long min) {
+        if (Math.floorMod(difference, divisor) != 0) {
+            return -1;
+        }
+        long reduced = modulus / divisor;
+        long remainder = Math.floorMod(difference / divisor, reduced);
+        long t = reduced <= SMALL_MODULUS ? remainder * inverse % reduced
+                : BigInteger.valueOf(remainder).multiply(BigInteger.valueOf(inverse)).mod(BigInteger.valueOf(reduced)).longValue();
+        return t >= min ? t : t + (min - t + reduced - 1) / reduced * reduced;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the date of the last period, null if this rule never ends.
+     */
+    LocalDate lastDate() {
+        LocalDate last = recurrence.getUntil();
+        if (recurrence.getCount() > 0) {
+            LocalDate counted = recurrence.periodDate(first.getDate(), recurrence.getCount() - 1);
+            last = last == null || counted.isBefore(last) ? counted : last;
+        }
+        return last;
+    }
+
+    private LocalDate lastException() {
+        return recurrence.getExceptions().isEmpty() ? first.getDate() : recurrence.getExceptions().last();
+    }
+
+    private double averageDays() {
+        return recurrence.getFrequency() == Recurrence.Frequency.MONTHLY
+                ? recurrence.getInterval() * Recurrence.GREGORIAN_CYCLE_DAYS / 4800.0
+                : recurrence.minPeriodDays();
+    }
+
+    /**
+     * Returns the margin, in minutes, between the wall clocks of two tables: none for the same fixed offset.
+     */
+    private static long margin(ZoneOffsetTable table, ZoneOffsetTable otherTable) {
+        if (!table.getZone().equals(otherTable.getZone())) {
+            return ZONE_MARGIN_MINUTES;
+        }
+        return table.getZone().getRules().isFixedOffset() ? 0 : DST_MARGIN_MINUTES;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Builds the occurrence of the k-th period.
+     *
+     * @return the occurrence, null if the k-th period has no occurrence
+     */
+    private Appointment occurrenceAt(long k) {
+        if (!recurrence.occurs(first.getDate(), k)) {
+            return null;
+        }
+        return new Appointment(recurrence.periodDate(first.getDate(), k), first.getStartTime(), first.getDuration(),
+                first.getDescription(), first.getPlace());
+    }
+
+    /**
+     * Returns the serialized form of this rule.
+     *
+     * @return a string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return first + Appointment.SEPARATOR + recurrence;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof RecurringAppointment) {
+            final RecurringAppointment other = (RecurringAppointment) obj;
+            return first.equals(other.first) && recurrence.equals(other.recurrence);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * first.hashCode() + recurrence.hashCode();
+    }
+}
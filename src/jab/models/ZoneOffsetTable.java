@@ -0,0 +1,178 @@
+package jab.models;
+
+import java.time.*;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code ZoneOffsetTable} converts local date-times of a time-zone to
+ * epoch seconds through a precomputed table of offset transitions.
+ *
+ * <p>
+ * The table covers a span of dates: inside it a conversion is a binary search
+ * over the local date-times at which the offset changes, outside it the
+ * conversion falls back to {@link ZoneRules}. The result is always the same of
+ * {@link LocalDateTime#atZone(ZoneId)}: a local date-time in a gap is moved
+ * forward by the length of the gap, one in an overlap takes the earlier offset.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable, {@link ZoneOffsetTable#covering(LocalDate)} returns
+ * a wider table when a date outside the span is met, as long as the span stays
+ * within {@code MAX_SPAN_YEARS}: farther dates keep using {@link ZoneRules}.
+ * </p>
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see Book#getZone()
+ */
+public final class ZoneOffsetTable {
+    /**
+     * The number of years added on both sides when a table is widened.
+     */
+    private static final int PADDING_YEARS = 10;
+    /**
+     * The maximum number of years covered by a widened table.
+     */
+    private static final int MAX_SPAN_YEARS = 400;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long fromLocal;
+    private final long toLocal;
+    /**
+     * The local epoch seconds from which {@code offsets[i + 1]} applies.
+     */
+    private final long[] thresholds;
+    private final int[] offsets;
+
+    private ZoneOffsetTable(ZoneId zone, LocalDate from, LocalDate to) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.from = from;
+        this.to = to;
+        this.fromLocal = from.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        this.toLocal = to.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        Instant instant = from.minusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant end = to.plusDays(2).atStartOfDay().toInstant(ZoneOffset.UTC);
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition;
+        while ((transition = rules.nextTransition(instant)) != null && transition.getInstant().isBefore(end)) {
+            transitions.add(transition);
+            instant = transition.getInstant();
+        }
+        thresholds = new long[transitions.size()];
+        offsets = new int[transitions.size() + 1];
+        offsets[0] = rules.getOffset(from.minusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)).getTotalSeconds();
+        for (int i = 0; i < transitions.size(); i++) {
+            transition = transitions.get(i);
+            LocalDateTime before = transition.getDateTimeBefore();
+            LocalDateTime after = transition.getDateTimeAfter();
+            thresholds[i] = (transition.isGap() ? after : before).toEpochSecond(ZoneOffset.UTC);
+            offsets[i + 1] = transition.getOffsetAfter().getTotalSeconds();
+        }
+    }
+
+    /**
+     * Returns a table for {@code zone} that covers the dates from {@code from}
+     * to {@code to}, both included.
+     *
+     * @param zone the time-zone, not null
+     * @param from the first date covered
+     * @param to   the last date covered
+     * @return the table, not null
+     */
+    public static ZoneOffsetTable of(ZoneId zone, LocalDate from, LocalDate to) {
+        return new ZoneOffsetTable(Objects.requireNonNull(zone), from, to);
+    }
+
+    /**
+     * Returns a table for {@code zone} that covers some years around today.
+     *
+     * @param zone the time-zone, not null
+     * @return the table, not null
+     */
+    public static ZoneOffsetTable of(ZoneId zone) {
+        LocalDate today = LocalDate.now(zone);
+        return of(zone, today.minusYears(PADDING_YEARS), today.plusYears(PADDING_YEARS));
+    }
+
+    /**
+     * Gets the zone field.
+     *
+     * @return the time-zone, not null
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns true if {@code date} is inside the span of this table.
+     *
+     * @param date the date to be tested
+     * @return true if conversions on {@code date} use the table
+     */
+    public boolean covers(LocalDate date) {
+        return !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    /**
+     * Returns this table if it covers {@code date}, otherwise a table whose span
+     * is widened up to {@code date} plus some years. If the widened span would
+     * exceed {@code MAX_SPAN_YEARS}, this table is returned as it is and the
+     * conversions on {@code date} fall back to {@link ZoneRules}.
+     *
+     * @param date a date to be covered
+     * @return a table that covers {@code date} if it is near enough, not null
+     */
+    public ZoneOffsetTable covering(LocalDate date) {
+        if (covers(date)) {
+            return this;
+        }
+        long years = (long) Math.max(to.getYear(), date.getYear()) - Math.min(from.getYear(), date.getYear());
+        if (years + PADDING_YEARS > MAX_SPAN_YEARS) {
+            return this;
+        }
+        return new ZoneOffsetTable(zone, date.isBefore(from) ? date.minusYears(PADDING_YEARS) : from,
+                date.isAfter(to) ? date.plusYears(PADDING_YEARS) : to);
+    }
+
+    /**
+     * Converts {@code dateTime} to the number of seconds from the epoch of
+     * 1970-01-01T00:00:00Z.
+     *
+     * @param dateTime the local date-time in this zone
+     * @return the epoch second of the same instant
+     */
+    public long toEpochSecond(LocalDateTime dateTime) {
+        long local = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (local < fromLocal || local >= toLocal) {
+            return dateTime.atZone(zone).toEpochSecond();
+        }
+        int low = 0, high = thresholds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= local) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return local - offsets[low];
+    }
+
+    /**
+     * Converts {@code dateTime} to an {@code Instant}.
+     *
+     * @param dateTime the local date-time in this zone
+     * @return the same instant, not null
+     */
+    public Instant toInstant(LocalDateTime dateTime) {
+        return Instant.ofEpochSecond(toEpochSecond(dateTime));
+    }
+}
@@ -0,0 +1,58 @@
+package jab.models.format;
+
+/**
+ * The kind of a problem found in a line of a book file.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ */
+public enum ParseErrorKind {
+    /**
+     * The line has neither the fields of an appointment nor the ones of a
+     * recurring appointment.
+     */
+    FIELD_COUNT("wrong number of fields"),
+    /**
+     * The date cannot be parsed.
+     */
+    DATE("invalid date"),
+    /**
+     * The start time cannot be parsed.
+     */
+    TIME("invalid start time"),
+    /**
+     * The duration is not a positive integer.
+     */
+    DURATION("duration is not a positive integer"),
+    /**
+     * The description is empty or contains a separator.
+     */
+    DESCRIPTION("invalid description"),
+    /**
+     * The place is empty or contains a separator.
+     */
+    PLACE("invalid place"),
+    /**
+     * The recurrence rule cannot be parsed.
+     */
+    RECURRENCE("invalid recurrence"),
+    /**
+     * The line is equal to an appointment already in the book.
+     */
+    DUPLICATE("duplicate of an existing appointment");
+
+    private final String message;
+
+    ParseErrorKind(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Gets the message field.
+     *
+     * @return a short description of the problem, not null
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,62 @@
+package jab.models;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code AppointmentKeysTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see AppointmentKeys
+ */
+public class AppointmentKeysTest {
+
+    @Test
+    public void radixSort() {
+        Random random = new Random(7);
+        long[] keys = new long[10000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = AppointmentKeys.pack(random.nextInt() & AppointmentKeys.MAX_MINUTE, random.nextInt(1000), i);
+        }
+        long[] expected = keys.clone();
+        Arrays.sort(expected);
+        // the keys with the top bit set come last
+        int negative = 0;
+        while (negative < expected.length && expected[negative] < 0) {
+            negative++;
+        }
+        long[] unsigned = new long[expected.length];
+        System.arraycopy(expected, negative, unsigned, 0, expected.length - negative);
+        System.arraycopy(expected, 0, unsigned, expected.length - negative, negative);
+        AppointmentKeys.radixSort(keys, keys.length);
+        assertArrayEquals(unsigned, keys);
+        assertEquals(0, AppointmentKeys.lowerBound(keys, keys.length, 0));
+        assertEquals(keys.length, AppointmentKeys.lowerBound(keys, keys.length, -1));
+        assertEquals(1234, AppointmentKeys.lowerBound(keys, keys.length, keys[1234]));
+    }
+
+    @Test
+    public void sort() {
+        Random random = new Random(11);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            appointments.add(new Appointment(LocalDate.of(2019, 1, 1).plusDays(random.nextInt(30)),
+                    LocalTime.of(random.nextInt(24), random.nextInt(4) * 15), Duration.ofMinutes(1 + random.nextInt(600)),
+                    "Essa Cranshaw " + random.nextInt(3), "5884 Esker Plaza"));
+        }
+        List<Appointment> expected = new ArrayList<>(appointments);
+        expected.sort(AppointmentTree.ORDER);
+        AppointmentKeys.sort(appointments);
+        assertEquals(expected, appointments);
+    }
+}
@@ -1,6 +1,7 @@
 package jab.models;
 
 import jab.models.format.AppointmentParseException;
+import jab.models.format.ParseErrorKind;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,6 +81,48 @@ public class AppointmentTest {
         }
     }
 
+    @Test
+    public void tryParse() {
+        String[] lines = {
+                "24-12-2018 | 09-13 | 127 | Gun De Ambrosi         | 64277 Pleasure Pass",
+                "29-02-2020 | 00-00 | +1 | Essa Cranshaw | 3 Scofield Way",
+                "29-02-2019 | 00-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "00-01-2019 | 00-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "1-01-2019 | 00-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-19 | 00-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-+12019 | 00-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 24-00 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-60 | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59x | 1 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | 0 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | -0 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | 2147483647 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | 2147483648 | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | 1x | Essa Cranshaw | 3 Scofield Way",
+                "01-01-2019 | 23-59 | 30 | Essa Cranshaw",
+                ""
+        };
+        for (String line : lines) {
+            ParseResult result = Appointment.tryParse(line);
+            try {
+                Appointment expected = Appointment.parse(line);
+                assertTrue(line, result.isValid());
+                assertEquals(line, expected, result.getAppointment());
+                assertEquals(expected.toString(), result.getAppointment().toString());
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                assertFalse(line, result.isValid());
+                assertNull(result.getAppointment());
+            }
+        }
+        ParseResult result = Appointment.tryParse("01-01-2019 | 23-59 | 1x | Essa Cranshaw | 3 Scofield Way");
+        assertEquals(ParseErrorKind.DURATION, result.getKind());
+        assertEquals(23, result.getPosition());
+        result = Appointment.tryParse("01-01-2019 | 23:59 | 1 | Essa Cranshaw | 3 Scofield Way");
+        assertEquals(ParseErrorKind.TIME, result.getKind());
+        assertEquals(16, result.getPosition());
+        assertEquals(ParseErrorKind.FIELD_COUNT, Appointment.tryParse("01-01-2019 | 23-59 | 1\n| Essa | Way").getKind());
+    }
+
     @Test
     public void setDate() {
         fixed.setDate("24-12-2018");
@@ -194,4 +237,11 @@ public class AppointmentTest {
         assertNotEquals(another, fixed);
         assertNotEquals(fixed, another);
     }
+
+    @Test
+    public void hashCodeConsistency() {
+        Appointment actual = new Appointment("24-12-2018", "09-13", 127, "Gun De Ambrosi", "64277 Pleasure Pass");
+        assertEquals(actual.hashCode(), fixed.hashCode());
+        assertEquals(fixed.hashCode(), Appointment.parse(fixed.toString()).hashCode());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code AppointmentTreeTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see AppointmentTree
+ */
+public class AppointmentTreeTest {
+
+    private Random random;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        random = new Random(11);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private Appointment randomAppointment() {
+        return new Appointment(LocalDate.of(2018, 1, 1).plusDays(random.nextInt(60)), LocalTime.of(random.nextInt(24), 0),
+                Duration.ofMinutes(30 + random.nextInt(3)), "Person " + random.nextInt(3), "Place");
+    }
+
+    @Test
+    public void persistence() {
+        AppointmentTree tree = AppointmentTree.EMPTY;
+        TreeSet<Appointment> expected = new TreeSet<>(AppointmentTree.ORDER);
+        List<AppointmentTree> versions = new ArrayList<>();
+        List<List<Appointment>> contents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Appointment appointment = randomAppointment();
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(appointment), tree.contains(appointment));
+                tree = tree.remove(appointment);
+            } else {
+                expected.add(appointment);
+                tree = tree.insert(appointment);
+            }
+            if (i % 500 == 0) {
+                versions.add(tree);
+                contents.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        List<Appointment> actual = new ArrayList<>();
+        tree.forEach(actual::add);
+        assertEquals(new ArrayList<>(expected), actual);
+        for (int i = 0; i < versions.size(); i++) {
+            List<Appointment> version = new ArrayList<>();
+            versions.get(i).forEach(version::add);
+            assertEquals(contents.get(i), version);
+        }
+        assertEquals(expected.first(), tree.get(0));
+        assertEquals(expected.last(), tree.get(tree.size() - 1));
+        AppointmentTree rebuilt = AppointmentTree.fromSorted(actual);
+        List<Appointment> balanced = new ArrayList<>();
+        rebuilt.forEach(balanced::add);
+        assertEquals(actual, balanced);
+    }
+
+    @Test
+    public void range() {
+        List<Appointment> sorted = new ArrayList<>(new TreeSet<Appointment>(AppointmentTree.ORDER) {{
+            for (int i = 0; i < 1000; i++) {
+                add(randomAppointment());
+            }
+        }});
+        AppointmentTree tree = AppointmentTree.fromSorted(sorted);
+        LocalDateTime from = LocalDateTime.of(2018, 1, 10, 12, 0), to = LocalDateTime.of(2018, 1, 20, 0, 0);
+        List<Appointment> actual = new ArrayList<>();
+        for (Iterator<Appointment> iterator = tree.iterator(from, to); iterator.hasNext(); ) {
+            actual.add(iterator.next());
+        }
+        List<Appointment> expected = new ArrayList<>();
+        for (Appointment appointment : sorted) {
+            if (!appointment.toDateTime().isBefore(from) && appointment.toDateTime().isBefore(to)) {
+                expected.add(appointment);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+        assertSame(tree, tree.insert(sorted.get(0)));
+        assertSame(tree, tree.remove(new Appointment(LocalDate.of(2000, 1, 1), LocalTime.NOON, Duration.ofMinutes(1), "Nobody", "Nowhere")));
+    }
+}
@@ -0,0 +1,111 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code AutoSaverTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see AutoSaver
+ */
+public class AutoSaverTest {
+
+    private File file;
+    private Book book;
+    private List<IOException> failures;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("jab-autosave", ".csv");
+        book = new Book(file.getPath());
+        failures = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(BookSidecar.of(file).toPath());
+    }
+
+    private void addDays(int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertNull(book.add(new Appointment(LocalDate.of(2018, 1, 1).plusDays(i).format(Appointment.FORMATTER_DATE),
+                    "10-00", 30, "Person " + i, "Room")));
+        }
+    }
+
+    @Test
+    public void coalesce() throws Exception {
+        AutoSaver autoSaver = new AutoSaver(book, 100, TimeUnit.MILLISECONDS, failures::add);
+        assertTrue(autoSaver.isSaved());
+        addDays(0, 200);
+        assertFalse(autoSaver.isSaved());
+        for (int i = 0; i < 100 && !autoSaver.isSaved(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(autoSaver.isSaved());
+        assertEquals(200, Files.readAllLines(file.toPath()).size());
+        addDays(200, 210);
+        assertTrue(book.undo());
+        autoSaver.close();
+        assertTrue(autoSaver.isSaved());
+        assertTrue(failures.isEmpty());
+        Book loaded = new Book(file.getPath());
+        loaded.loadBookFromFile();
+        assertEquals(book.getSortedBook(), loaded.getSortedBook());
+        assertEquals(209, loaded.getSortedBook().size());
+    }
+
+    @Test
+    public void loadAfterStart() throws Exception {
+        List<String> lines = Arrays.asList(
+                "01-01-2018 | 10-00 | 30 | Person 0 | Room",
+                "32-01-2018|10-00|30|Person 1|Room");
+        Files.write(file.toPath(), lines);
+        AutoSaver autoSaver = new AutoSaver(book, 1, TimeUnit.MILLISECONDS, failures::add);
+        book.loadBookFromFile();
+        assertEquals(1, book.getSortedBook().size());
+        assertTrue(autoSaver.isSaved());
+        autoSaver.close();
+        assertEquals(lines, Files.readAllLines(file.toPath()));
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        book.setFile(new File(file, "missing" + File.separator + "book.csv").getPath());
+        AutoSaver autoSaver = new AutoSaver(book, 1, TimeUnit.MILLISECONDS, failures::add);
+        addDays(0, 1);
+        autoSaver.close();
+        assertFalse(autoSaver.isSaved());
+        assertFalse(failures.isEmpty());
+    }
+}
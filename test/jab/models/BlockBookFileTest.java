@@ -0,0 +1,103 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code BlockBookFileTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BlockBookFile
+ */
+public class BlockBookFileTest {
+
+    private File file;
+    private Book book;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("jab-block", BlockBookFile.EXTENSION);
+        book = new Book(file.getPath());
+        LocalDate date = LocalDate.of(2018, 1, 1);
+        for (int i = 0; i < 1000; i++) {
+            book.add(new Appointment(date.plusDays(i / 4).format(Appointment.FORMATTER_DATE), String.format("%02d-00", 8 + 2 * (i % 4)),
+                    90, "Person " + i % 7, "Room " + i % 3));
+        }
+        book.add(RecurringAppointment.parse("01-01-2018|20-00|60|Trip Dameisele|061 Westerfield Lane|WEEKLY;UNTIL=31-12-2018"));
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(BookSidecar.of(file).toPath());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        BlockBookFile.write(book.snapshot(), file, 64);
+        assertTrue(BlockBookFile.isBlockFile(file));
+        Book loaded = new Book(file.getPath());
+        assertTrue(loaded.loadBookFromFile().isEmpty());
+        assertEquals(book.getSortedBook(), loaded.getSortedBook());
+        assertEquals(book.getRules(), loaded.getRules());
+        book.saveBookToFile();
+        assertTrue(BlockBookFile.isBlockFile(file));
+    }
+
+    @Test
+    public void search() throws IOException {
+        BlockBookFile.write(book.snapshot(), file, 64);
+        LocalDate from = LocalDate.of(2018, 3, 1), to = LocalDate.of(2018, 3, 10);
+        List<Appointment> results = BlockBookFile.search(file, Book.forDescription("Person"), from, to);
+        assertEquals(book.search(Book.forDescription("Person"), from, to), results);
+        assertEquals(40, results.size());
+        assertEquals(1, BlockBookFile.search(file, Book.forDescription("Trip"), from, to).size());
+        assertTrue(BlockBookFile.search(file, p -> true, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 2)).isEmpty());
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        BlockBookFile.write(book.snapshot(), file, 64);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(20);
+            raf.writeLong(0x0123456789ABCDEFL);
+        }
+        try {
+            BlockBookFile.newReader(file);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IOException ignored) {
+        }
+        try {
+            BlockBookFile.write(book.snapshot(), file, 0);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+        Files.write(file.toPath(), "01-01-2018|08-00|90|Person 0|Room 0".getBytes());
+        assertFalse(BlockBookFile.isBlockFile(file));
+    }
+}
@@ -0,0 +1,126 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code BookEncoderTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookEncoder
+ */
+public class BookEncoderTest {
+
+    private File expected;
+    private File actual;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        expected = File.createTempFile("jab-expected", ".csv");
+        actual = File.createTempFile("jab-actual", ".csv");
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(expected.toPath());
+        Files.deleteIfExists(actual.toPath());
+    }
+
+    @Test
+    public void sameBytes() throws IOException {
+        Random random = new Random(7);
+        String[] words = {"Essa Cranshaw", "Caffè al bar", "Zoë ☕ 𝄞", "3 Scofield Way", "Ørsted", "x"};
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            appointments.add(new Appointment(LocalDate.of(1 + random.nextInt(9998), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                    LocalTime.of(random.nextInt(24), random.nextInt(60)), Duration.ofMinutes(1 + random.nextInt(100000)),
+                    words[random.nextInt(words.length)], words[random.nextInt(words.length)]));
+        }
+        appointments.add(new Appointment(LocalDate.of(12019, 1, 1), LocalTime.MIDNIGHT, Duration.ofMinutes(1), "Far", "Away"));
+        appointments.add(new Appointment(LocalDate.of(0, 1, 1), LocalTime.NOON, Duration.ofMinutes(1), "Near", "Here"));
+        List<RecurringAppointment> rules = new ArrayList<>();
+        rules.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY;INTERVAL=2;COUNT=4"));
+        BookSnapshot snapshot = new BookSnapshot(AppointmentTree.EMPTY, rules);
+        for (Appointment appointment : appointments) {
+            snapshot = snapshot.with(snapshot.tree().insert(appointment));
+        }
+        try (BufferedWriter bufferedWriter = Files.newBufferedWriter(expected.toPath())) {
+            for (Appointment appointment : snapshot) {
+                bufferedWriter.write(appointment.toString());
+                bufferedWriter.newLine();
+            }
+            for (RecurringAppointment rule : snapshot.getRules()) {
+                bufferedWriter.write(rule.toString());
+                bufferedWriter.newLine();
+            }
+        }
+        snapshot.saveToFile(actual);
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+
+    @Test
+    public void parallel() throws IOException {
+        Random random = new Random(11);
+        BookSnapshot snapshot = new BookSnapshot(AppointmentTree.EMPTY,
+                Collections.singletonList(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|DAILY")));
+        for (int i = 0; i < 5000; i++) {
+            snapshot = snapshot.with(snapshot.tree().insert(new Appointment(LocalDate.ofEpochDay(random.nextInt(20000)),
+                    LocalTime.of(random.nextInt(24), random.nextInt(60)), Duration.ofMinutes(1 + random.nextInt(600)),
+                    "Essa Cranshaw " + i, "Ørsted")));
+        }
+        snapshot.saveToFile(expected, false);
+        for (int chunkSize : new int[]{1, 7, 1000, 4999, 5000}) {
+            BookEncoder.write(snapshot, actual, chunkSize);
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+        }
+        snapshot.saveToFile(actual, true);
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+        List<Appointment> tail = new ArrayList<>();
+        for (Iterator<Appointment> iterator = snapshot.tree().iterator(4990); iterator.hasNext(); ) {
+            tail.add(iterator.next());
+        }
+        assertEquals(snapshot.getSortedBook().subList(4990, 5000), tail);
+    }
+
+    @Test
+    public void malformed() {
+        BookEncoder encoder = new BookEncoder(16);
+        try {
+            encoder.encode(new Appointment(LocalDate.of(2019, 1, 1), LocalTime.NOON, Duration.ofMinutes(1), "Bad \uD834", "Here"));
+            fail("Mi aspettavo un'eccezione");
+        } catch (MalformedInputException ignored) {
+        }
+    }
+}
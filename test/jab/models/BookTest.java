@@ -1,5 +1,6 @@
 package jab.models;
 
+import jab.models.format.ParseErrorKind;
 import org.apache.commons.lang3.SystemUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -9,9 +10,22 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.*;
 
@@ -96,6 +110,7 @@ public class BookTest {
         assertTrue(actual.getSortedBook().isEmpty());
         try {
             Files.deleteIfExists(Paths.get(defaultPath));
+            Files.deleteIfExists(Paths.get(defaultPath + BookSidecar.SUFFIX));
         } catch (IOException e) {
             fail("Non mi aspettavo un'eccezione");
         }
@@ -183,6 +198,145 @@ public class BookTest {
         assertTrue(sortedBook.isEmpty());
     }
 
+    @Test
+    public void duplicates() throws Exception {
+        Book loaded = new Book(Paths.get(getClass().getClassLoader().getResource("book_test1.csv").toURI()).toString());
+        List<Appointment> duplicates = new ArrayList<>();
+        Map<Appointment, Appointment> collisions = loaded.loadBookFromFile(duplicates);
+        assertEquals(1, duplicates.size());
+        assertEquals(Appointment.parse("22-04-2018|20-00|105|Yovonnda Knapper|7 Delaware Crossing"), duplicates.get(0));
+        assertFalse(collisions.containsKey(duplicates.get(0)));
+        assertEquals(1, collisions.size());
+        assertTrue(loaded.contains(duplicates.get(0)));
+        assertTrue(loaded.delete(duplicates.get(0)));
+        assertFalse(loaded.contains(duplicates.get(0)));
+        assertTrue(book.contains(Appointment.parse("30-12-2018 | 05-04 | 167 | Essa Cranshaw          | 5884 Esker Plaza")));
+    }
+
+    @Test
+    public void loadReport() throws IOException {
+        File file = File.createTempFile("jab-report", ".csv");
+        File errors = File.createTempFile("jab-report", ".err");
+        try {
+            Files.write(file.toPath(), Arrays.asList(
+                    "04-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 Scofield Way",
+                    "31-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 Scofield Way",
+                    "05-02-2019 | 08-57 | -5 | Essa Cranshaw | 3 Scofield Way",
+                    "05-02-2019 | 08-57 | 30 | Essa Cranshaw",
+                    "04-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 Scofield Way",
+                    "06-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 Scofield Way | YEARLY",
+                    "07-02-2019 | 8.57 | 30 | Essa Cranshaw | 3 Scofield Way",
+                    "08-02-2019 | 08-57 | 1440 | Essa Cranshaw | 3 Scofield Way | DAILY"));
+            Book loaded = new Book(file.getPath());
+            loaded.setSidecarEnabled(true);
+            LoadReport report = new LoadReport(2, errors);
+            List<Appointment> duplicates = new ArrayList<>();
+            assertTrue(loaded.loadBookFromFile(duplicates, report).isEmpty());
+            assertEquals(1, loaded.getSortedBook().size());
+            assertEquals(1, duplicates.size());
+            assertEquals(8, report.getLines());
+            assertEquals(7, report.getErrors());
+            assertFalse(report.isClean());
+            assertEquals(1, report.getCount(ParseErrorKind.DATE));
+            assertEquals(1, report.getCount(ParseErrorKind.TIME));
+            assertEquals(1, report.getCount(ParseErrorKind.DURATION));
+            assertEquals(1, report.getCount(ParseErrorKind.FIELD_COUNT));
+            assertEquals(1, report.getCount(ParseErrorKind.DUPLICATE));
+            assertEquals(2, report.getCount(ParseErrorKind.RECURRENCE));
+            assertEquals(2, report.getSamples().size());
+            assertEquals(2, report.getSamples().get(0).getLine());
+            assertEquals(1, report.getSamples().get(0).getColumn());
+            assertEquals(ParseErrorKind.DURATION, report.getSamples().get(1).getKind());
+            assertEquals(22, report.getSamples().get(1).getColumn());
+            List<String> written = Files.readAllLines(errors.toPath());
+            assertEquals(7, written.size());
+            assertTrue(written.get(5).startsWith("7\t14\tTIME\t"));
+            assertTrue(written.get(6).startsWith("8\t62\tRECURRENCE\t"));
+            // two samples are too few for a larger report: the file is read again
+            assertFalse(new LoadReport().canReplay(7, 2));
+            for (int i = 0; i < 2; i++) {
+                Book warm = new Book(file.getPath());
+                warm.setSidecarEnabled(true);
+                LoadReport replayed = new LoadReport();
+                assertTrue(warm.loadBookFromFile(new ArrayList<>(), replayed).isEmpty());
+                assertEquals(report.toString(), replayed.toString());
+                assertEquals(7, replayed.getSamples().size());
+                assertEquals(ParseErrorKind.TIME, replayed.getSamples().get(5).getKind());
+                assertEquals(14, replayed.getSamples().get(5).getColumn());
+                assertEquals("07-02-2019 | 8.57 | 30 | Essa Cranshaw | 3 Scofield Way", replayed.getSamples().get(5).getText());
+                assertEquals(7, BookSidecar.read(file, warm.getZone()).samples.size());
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(BookSidecar.of(file).toPath());
+            Files.deleteIfExists(errors.toPath());
+        }
+    }
+
+    @Test
+    public void collisions() {
+        Book newYork = new Book("ny.csv", ZoneId.of("America/New_York"));
+        assertEquals(ZoneId.of("America/New_York"), newYork.getZone());
+        // 03-15 in New York is 09-15 in Rome
+        newYork.add(Appointment.parse("24-12-2018 | 03-15 | 30 | Kirbie Sterman | 3 Scofield Way"));
+        newYork.add(Appointment.parse("30-12-2018 | 10-00 | 30 | Kirbie Sterman | 3 Scofield Way"));
+        Map<Appointment, Appointment> collisions = book.collisions(newYork);
+        assertEquals(1, collisions.size());
+        assertEquals(Appointment.parse("24-12-2018 | 03-15 | 30 | Kirbie Sterman | 3 Scofield Way"),
+                collisions.get(Appointment.parse("24-12-2018 | 09-13 | 127 | Gun De Ambrosi | 64277 Pleasure Pass")));
+        assertEquals(1, newYork.collisions(book).size());
+        assertTrue(new Book().collisions(book).isEmpty());
+    }
+
+    @Test
+    public void collisionsOfRules() {
+        Book weekly = new Book("weekly.csv");
+        assertNull(weekly.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY;COUNT=3")));
+        Book once = new Book("once.csv");
+        assertNull(once.add(RecurringAppointment.parse("17-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza|DAILY;COUNT=1")));
+        assertEquals(Collections.singletonMap(Appointment.parse("17-12-2018|05-00|60|Trip Dameisele|3 Scofield Way"),
+                Appointment.parse("17-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza")), weekly.collisions(once));
+        Book unbounded = new Book("unbounded.csv");
+        assertNull(unbounded.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY")));
+        Book everyThreeDays = new Book("three.csv");
+        assertNull(everyThreeDays.add(RecurringAppointment.parse("09-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza|DAILY;INTERVAL=3")));
+        Map<Appointment, Appointment> collisions = unbounded.collisions(everyThreeDays);
+        assertTrue(collisions.containsKey(Appointment.parse("24-12-2018|05-00|60|Trip Dameisele|3 Scofield Way")));
+        // the rules first collide more than four years after they start
+        RecurringAppointment a = RecurringAppointment.parse("01-01-2019|10-00|30|A|P|DAILY;INTERVAL=1500");
+        RecurringAppointment b = RecurringAppointment.parse("02-01-2019|10-00|30|B|Q|DAILY;INTERVAL=1499");
+        assertEquals(Appointment.parse("09-02-2023|10-00|30|B|Q"), a.overlaps(b));
+        Book b1 = new Book("b1.csv");
+        assertNull(b1.add(a));
+        Book b2 = new Book("b2.csv");
+        assertNull(b2.add(b));
+        assertEquals(Collections.singletonMap(Appointment.parse("09-02-2023|10-00|30|A|P"), Appointment.parse("09-02-2023|10-00|30|B|Q")),
+                b1.collisions(b2));
+        Book rome = new Book("rome.csv", ZoneId.of("Europe/Rome"));
+        assertNull(rome.add(RecurringAppointment.parse("02-01-2019|11-00|30|B|Q|DAILY;INTERVAL=1499")));
+        Book utc = new Book("utc.csv", ZoneOffset.UTC);
+        assertNull(utc.add(a));
+        assertEquals(Collections.singletonMap(Appointment.parse("09-02-2023|10-00|30|A|P"), Appointment.parse("09-02-2023|11-00|30|B|Q")),
+                utc.collisions(rome));
+    }
+
+    @Test
+    public void recurring() {
+        assertNotNull(book.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane|DAILY")));
+        RecurringAppointment weekly = RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane|WEEKLY;UNTIL=31-12-2018");
+        assertNull(book.add(weekly));
+        assertNotNull(book.add(Appointment.parse("10-12-2018 | 05-30 | 10 | Essa Cranshaw | 5884 Esker Plaza")));
+        List<Appointment> results = book.search(Book.forDescription("Trip"), LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31));
+        assertEquals(5, results.size());
+        assertTrue(book.delete(Appointment.parse("10-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane")));
+        assertNull(book.add(Appointment.parse("10-12-2018 | 05-30 | 10 | Essa Cranshaw | 5884 Esker Plaza")));
+        assertNull(book.edit(Appointment.parse("17-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane"), "", "07-00", "", "", ""));
+        assertEquals(1, book.search(Book.forDate("17-12-2018"), LocalDate.of(2018, 12, 17), LocalDate.of(2018, 12, 17)).size());
+        assertEquals(1, book.getRules().size());
+        assertTrue(book.delete(book.getRules().get(0)));
+        assertTrue(book.getRules().isEmpty());
+    }
+
     @Test
     public void edit() {
         assertNull(book.edit(Appointment.parse("24-12-2018 | 09-13 | 127 | Gun De Ambrosi         | 64277 Pleasure Pass"), "",
@@ -198,4 +352,298 @@ public class BookTest {
         } catch (NumberFormatException ignore) {
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void undoRedo() {
+        Appointment gun = Appointment.parse("24-12-2018 | 09-13 | 127 | Gun De Ambrosi         | 64277 Pleasure Pass");
+        Appointment moved = Appointment.parse("24-12-2018 | 10-13 | 127 | Gun De Ambrosi         | 64277 Pleasure Pass");
+        assertNull(book.edit(gun, "", "10-13", "", "", ""));
+        assertTrue(book.delete(Appointment.parse("03-02-2019 | 08-57 | 123 | Kirbie Sterman         | 3 Scofield Way")));
+        assertEquals(4, book.getSortedBook().size());
+        assertTrue(book.undo());
+        assertEquals(5, book.getSortedBook().size());
+        assertTrue(book.undo());
+        assertTrue(book.contains(gun));
+        assertFalse(book.contains(moved));
+        assertTrue(book.redo());
+        assertFalse(book.contains(gun));
+        assertTrue(book.contains(moved));
+        assertNull(book.add(Appointment.parse("01-01-2019 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+        assertFalse(book.redo());
+        assertTrue(book.undo());
+        assertTrue(book.undo());
+        assertEquals(5, book.getSortedBook().size());
+        assertTrue(book.contains(gun));
+        assertNotNull(book.add(Appointment.parse("24-12-2018 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+        while (book.undo()) {
+            assertFalse(book.snapshot().getSortedBook().contains(moved));
+        }
+        assertTrue(book.snapshot().isEmpty());
+        assertFalse(book.contains(gun));
+    }
+
+    @Test
+    public void snapshot() {
+        BookSnapshot snapshot = book.snapshot();
+        assertSame(snapshot, book.snapshot());
+        assertNull(book.add(Appointment.parse("01-01-2019 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+        assertTrue(book.delete(Appointment.parse("05-12-2018 | 05-55 | 54  | Fredra Robilart        | 1622 Marcy Center")));
+        assertEquals(5, snapshot.size());
+        assertEquals(5, book.snapshot().size());
+        assertEquals(1, snapshot.search(Book.forDescription("Fredra")).size());
+        assertTrue(book.search(Book.forDescription("Fredra")).isEmpty());
+        List<Appointment> window = snapshot.search(p -> true, LocalDate.of(2018, 12, 24), LocalDate.of(2018, 12, 30));
+        assertEquals(2, window.size());
+        try {
+            snapshot.getRules().add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane|DAILY"));
+            fail("Mi aspettavo un'eccezione");
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test
+    public void audit() {
+        assertTrue(book.audit().isEmpty());
+        Book utc = new Book("audit.csv", ZoneOffset.UTC);
+        for (LocalDate date = LocalDate.of(2000, 1, 1); date.getYear() < 2020; date = date.plusDays(1)) {
+            assertNull(utc.add(new Appointment(date.format(Appointment.FORMATTER_DATE), "00-30", 120, "Gun De Ambrosi", "64277 Pleasure Pass")));
+            assertNull(utc.add(new Appointment(date.format(Appointment.FORMATTER_DATE), "03-00", 30, "Kirbie Sterman", "3 Scofield Way")));
+        }
+        assertTrue(utc.audit().isEmpty());
+        // the hour skipped by daylight saving time makes them collide once a year
+        utc.setZone(ZoneId.of("Europe/Rome"));
+        List<Map.Entry<Appointment, Appointment>> overlaps = utc.audit();
+        assertEquals(20, overlaps.size());
+        assertEquals(overlaps, utc.audit(1));
+        for (Map.Entry<Appointment, Appointment> entry : overlaps) {
+            assertEquals(entry.getKey().getDate(), entry.getValue().getDate());
+            assertEquals(3, entry.getKey().getDate().getMonthValue());
+            assertEquals("Kirbie Sterman", entry.getValue().getDescription());
+        }
+    }
+
+    @Test
+    public void auditLoadCollisions() throws IOException {
+        File file = File.createTempFile("jab-audit", ".csv");
+        try {
+            Files.write(file.toPath(), Arrays.asList(
+                    "04-02-2019|08-57|30|Essa Cranshaw|3 Scofield Way",
+                    "04-02-2019|08-30|60|Kirbie Sterman|5884 Esker Plaza",
+                    "05-02-2019|08-57|30|Essa Cranshaw|3 Scofield Way"));
+            Book loaded = new Book(file.getPath());
+            assertEquals(1, loaded.loadBookFromFile().size());
+            List<Map.Entry<Appointment, Appointment>> overlaps = loaded.audit();
+            assertEquals(1, overlaps.size());
+            assertEquals(Appointment.parse("04-02-2019|08-30|60|Kirbie Sterman|5884 Esker Plaza"), overlaps.get(0).getKey());
+            assertEquals(Appointment.parse("04-02-2019|08-57|30|Essa Cranshaw|3 Scofield Way"), overlaps.get(0).getValue());
+            Book warm = new Book(file.getPath());
+            assertEquals(1, warm.loadBookFromFile().size());
+            assertEquals(overlaps, warm.audit());
+            assertTrue(loaded.delete(Appointment.parse("04-02-2019|08-57|30|Essa Cranshaw|3 Scofield Way")));
+            assertTrue(loaded.audit().isEmpty());
+            assertTrue(loaded.undo());
+            loaded.saveBookToFile();
+            assertTrue(loaded.audit().isEmpty());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(BookSidecar.of(file).toPath());
+        }
+    }
+
+    @Test
+    public void place() {
+        assertNull(book.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 scofield WAY|WEEKLY")));
+        assertNull(book.add(Appointment.parse("04-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 Scofield Way")));
+        assertEquals(2, book.search("3 Scofield Way").size());
+        assertEquals("Kirbie Sterman", book.search(" 3 SCOFIELD  way ").get(0).getDescription());
+        List<Appointment> week = book.search("3 Scofield Way", LocalDate.of(2019, 2, 1), LocalDate.of(2019, 2, 7));
+        assertEquals(3, week.size());
+        assertEquals(LocalDate.of(2019, 2, 3), week.get(0).getDate());
+        assertEquals(213, book.occupancy("3 scofield way", LocalDate.of(2019, 2, 1), LocalDate.of(2019, 2, 7)).toMinutes());
+        Appointment old = week.get(2);
+        assertNull(book.edit(old, "", "", "", "", "Piazza Ferretto"));
+        assertEquals(1, book.search("3 Scofield Way").size());
+        assertEquals(1, book.search("piazza ferretto").size());
+        assertTrue(book.undo());
+        assertEquals(2, book.search("3 Scofield Way").size());
+        assertTrue(book.search("piazza ferretto").isEmpty());
+        assertTrue(book.search("Nowhere", LocalDate.of(2018, 1, 1), LocalDate.of(2019, 12, 31)).isEmpty());
+    }
+
+    @Test
+    public void aggregates() {
+        assertEquals(new CalendarAggregate(3, 348), book.aggregate(LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31)));
+        SortedMap<LocalDate, CalendarAggregate> months = book.aggregates(LocalDate.of(2018, 12, 1), LocalDate.of(2019, 2, 28), ChronoUnit.MONTHS);
+        assertEquals(Arrays.asList(new CalendarAggregate(3, 348), new CalendarAggregate(1, 54), new CalendarAggregate(1, 123)),
+                new ArrayList<>(months.values()));
+        assertNull(book.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane|WEEKLY")));
+        assertEquals(new CalendarAggregate(8, 648), book.aggregate(LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31)));
+        SortedMap<LocalDate, CalendarAggregate> weeks = book.aggregates(LocalDate.of(2018, 12, 5), LocalDate.of(2018, 12, 16), ChronoUnit.WEEKS);
+        assertEquals(Arrays.asList(LocalDate.of(2018, 12, 5), LocalDate.of(2018, 12, 10)), new ArrayList<>(weeks.keySet()));
+        assertEquals(new CalendarAggregate(1, 54), weeks.get(LocalDate.of(2018, 12, 5)));
+        assertEquals(new CalendarAggregate(1, 60), weeks.get(LocalDate.of(2018, 12, 10)));
+        assertTrue(book.delete(Appointment.parse("05-12-2018 | 05-55 | 54  | Fredra Robilart        | 1622 Marcy Center")));
+        assertEquals(CalendarAggregate.ZERO, book.aggregates(LocalDate.of(2018, 12, 5), LocalDate.of(2018, 12, 5), ChronoUnit.DAYS).get(LocalDate.of(2018, 12, 5)));
+        assertTrue(book.undo());
+        assertEquals(new CalendarAggregate(1, 54), book.aggregate(LocalDate.of(2018, 12, 5), LocalDate.of(2018, 12, 5)));
+        assertNull(book.add(Appointment.parse("01-01-1990 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+        assertNull(book.add(Appointment.parse("01-01-2030 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+        assertEquals(new CalendarAggregate(1, 30), book.aggregate(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31)));
+        assertEquals(new CalendarAggregate(1, 30), book.aggregate(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 1)));
+        assertEquals(new CalendarAggregate(8, 648), book.aggregate(LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31)));
+        try {
+            book.aggregates(LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31), ChronoUnit.YEARS);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void aggregatesFarApart() {
+        Book far = new Book("agenda.csv", ZoneOffset.UTC);
+        assertNull(far.add(Appointment.parse("01-01-2019|10-00|30|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(far.add(Appointment.parse("01-01-+99999|10-00|45|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(far.add(Appointment.parse("01-01--99999|10-00|60|Essa Cranshaw|5884 Esker Plaza")));
+        assertEquals(3, far.getSortedBook().size());
+        assertEquals(new CalendarAggregate(1, 30), far.aggregate(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 1, 1)));
+        assertEquals(new CalendarAggregate(1, 45), far.aggregate(LocalDate.of(2020, 1, 1), LocalDate.MAX));
+        assertEquals(new CalendarAggregate(3, 135), far.aggregate(LocalDate.MIN, LocalDate.MAX));
+        assertTrue(far.delete(Appointment.parse("01-01-+99999|10-00|45|Essa Cranshaw|5884 Esker Plaza")));
+        assertEquals(new CalendarAggregate(2, 90), far.aggregate(LocalDate.MIN, LocalDate.MAX));
+    }
+
+    @Test
+    public void fuzzySearch() {
+        assertEquals("Kirbie Sterman", book.fuzzySearch("Stermann", 1, 10).get(0).getDescription());
+        assertEquals(1, book.fuzzySearch("kirbie  stermn", 1, 10).size());
+        assertTrue(book.fuzzySearch("Stermannn", 1, 10).isEmpty());
+        assertNull(book.add(Appointment.parse("05-02-2019 | 08-57 | 30 | Kirby Sterman | 3 Scofield Way")));
+        List<Appointment> results = book.fuzzySearch("Kirbie", 2, 10);
+        assertEquals(2, results.size());
+        assertEquals("Kirbie Sterman", results.get(0).getDescription());
+        assertEquals(1, book.fuzzySearch("Kirbie", 2, 1).size());
+        assertTrue(book.delete(results.get(1)));
+        assertEquals(1, book.fuzzySearch("Kirbie", 2, 10).size());
+        assertTrue(book.undo());
+        assertEquals(2, book.fuzzySearch("Kirbie", 2, 10).size());
+        assertEquals(1, book.fuzzySearch("Ess", 1, 10).size());
+        assertEquals(2, FuzzyIndex.distance("kirbie", "kirby", 2));
+        assertEquals(3, FuzzyIndex.distance("sterman", "dameisele", 2));
+    }
+
+    @Test
+    public void page() {
+        Predicate<Appointment> all = appointment -> true;
+        List<Appointment> sorted = book.getSortedBook();
+        for (Book.SortOrder order : Book.SortOrder.values()) {
+            List<Appointment> expected = new ArrayList<>(sorted);
+            expected.sort(order.comparator);
+            assertEquals(expected, book.search(all, order, 0, sorted.size() + 1));
+            assertEquals(expected.subList(1, 3), book.search(all, order, 1, 2));
+            assertTrue(book.search(all, order, sorted.size(), 5).isEmpty());
+            assertTrue(book.search(all, order, 0, 0).isEmpty());
+        }
+        List<Appointment> pages = new ArrayList<>(book.search(all, Book.SortOrder.START, 0, 2));
+        while (pages.size() < sorted.size()) {
+            List<Appointment> next = book.searchAfter(all, pages.get(pages.size() - 1), 2);
+            assertFalse(next.isEmpty());
+            pages.addAll(next);
+        }
+        assertEquals(sorted, pages);
+        assertTrue(book.searchAfter(all, sorted.get(sorted.size() - 1), 2).isEmpty());
+        try {
+            book.search(all, Book.SortOrder.START, -1, 2);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void complete() {
+        assertNull(book.add(Appointment.parse("05-02-2019 | 08-57 | 30 | KIRBIE sterman | 3 Scofield Way")));
+        assertNull(book.add(Appointment.parse("06-02-2019 | 08-57 | 30 | Kirby Sterman | 3 Scofield Way")));
+        assertNull(book.add(Appointment.parse("07-02-2019 | 08-57 | 30 | Kirbie Sterman | 3 Scofield Way")));
+        assertEquals(Arrays.asList("Kirbie Sterman", "Kirby Sterman"), book.completeDescription("kir", 5));
+        assertEquals(Collections.singletonList("Kirbie Sterman"), book.completeDescription("kirbie ", 5));
+        assertEquals(Collections.singletonList("Kirbie Sterman"), book.completeDescription("Kir", 1));
+        assertEquals(Arrays.asList("3 Scofield Way", "061 Westerfield Lane"), book.completePlace("", 2));
+        assertTrue(book.completePlace("Nowhere", 5).isEmpty());
+        assertTrue(book.delete(Appointment.parse("06-02-2019 | 08-57 | 30 | Kirby Sterman | 3 Scofield Way")));
+        assertEquals(Collections.singletonList("Kirbie Sterman"), book.completeDescription("kir", 5));
+    }
+
+    @Test
+    public void query() {
+        assertNull(book.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY")));
+        assertNull(book.add(Appointment.parse("04-02-2019 | 08-57 | 30 | Essa Cranshaw | 3 scofield way")));
+        Query query = Query.parse("date 01-12-2018..04-02-2019 and (place \"3 Scofield Way\" or not description essa) and duration 30..130");
+        assertEquals(query.toString(), Query.parse(query.toString()).toString());
+        List<Appointment> expected = book.search(query, LocalDate.of(2018, 12, 1), LocalDate.of(2019, 2, 4));
+        expected.sort(Comparator.comparing(Appointment::toDateTime));
+        List<Appointment> results = book.search(query);
+        results.sort(Comparator.comparing(Appointment::toDateTime));
+        assertEquals(expected, results);
+        assertEquals(15, results.size());
+        assertTrue(book.explain(query).contains("INDEX date 01-12-2018..04-02-2019 (~6 rows)"));
+        Query place = Query.and(Query.place("3 SCOFIELD WAY"), Query.date(LocalDate.of(2019, 2, 1), LocalDate.of(2019, 2, 28)));
+        assertEquals(6, book.search(place).size());
+        assertTrue(book.explain(place).contains("INTERSECT"));
+        Query scan = Query.or(Query.time(LocalTime.of(8, 0), LocalTime.of(9, 59)), Query.place("3 Scofield Way"));
+        assertEquals(3, book.search(scan).size());
+        assertTrue(book.explain(scan).contains("SCAN (~6 rows)"));
+        assertTrue(book.explain(scan).contains("RULES skipped"));
+        try {
+            Query.parse("date 01-12-2018 and (place Nowhere");
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Query.parse("date 32-01-2019");
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Query.parse("time 25-00..26-00");
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+        Query quoted = Query.and(Query.description("Say \"hi\" \\ bye"), Query.place("\""));
+        assertEquals(quoted.toString(), Query.parse(quoted.toString()).toString());
+        assertEquals("description \"Say \\\"hi\\\" \\\\ bye\" and place \"\\\"\"", quoted.toString());
+    }
+
+    @Test
+    public void sidecar() throws IOException {
+        File file = File.createTempFile("jab-sidecar", ".csv");
+        try {
+            book.setFile(file.getPath());
+            book.saveBookToFile();
+            assertFalse(BookSidecar.of(file).isFile());
+            book.setSidecarEnabled(true);
+            book.saveBookToFile();
+            assertTrue(BookSidecar.of(file).isFile());
+            Book warm = new Book(file.getPath());
+            warm.setSidecarEnabled(true);
+            assertTrue(warm.loadBookFromFile().isEmpty());
+            assertEquals(book.getSortedBook(), warm.getSortedBook());
+            assertTrue(warm.contains(Appointment.parse("27-01-2019 | 17-48 | 54  | Trip Dameisele        | 061 Westerfield Lane")));
+            assertNotNull(warm.add(Appointment.parse("24-12-2018 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+            Files.write(file.toPath(), Arrays.asList("24-12-2018 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza",
+                    "01-01-2019 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza"), StandardOpenOption.APPEND);
+            for (int i = 0; i < 2; i++) {
+                Book loaded = new Book(file.getPath());
+                loaded.setSidecarEnabled(true);
+                List<Appointment> duplicates = new ArrayList<>();
+                Map<Appointment, Appointment> collisions = loaded.loadBookFromFile(duplicates);
+                assertEquals(6, loaded.getSortedBook().size());
+                assertEquals(1, collisions.size());
+                assertEquals(Appointment.parse("24-12-2018 | 09-13 | 127 | Gun De Ambrosi         | 64277 Pleasure Pass"),
+                        collisions.get(Appointment.parse("24-12-2018 | 10-00 | 30 | Essa Cranshaw | 5884 Esker Plaza")));
+                assertTrue(duplicates.isEmpty());
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(BookSidecar.of(file).toPath());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code BookValidatorTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookValidator
+ */
+public class BookValidatorTest {
+
+    private File file;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("jab-validator", ".csv");
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static Set<String> validate(File file, int runSize, BookValidator.Result[] result) throws IOException {
+        Set<String> problems = new HashSet<>();
+        result[0] = new BookValidator(file, runSize).validate(new BookValidator.Listener() {
+            @Override
+            public void parseError(long line, String message) {
+                assertTrue(problems.add("E" + line));
+            }
+
+            @Override
+            public void overlap(long line, long otherLine) {
+                assertTrue(problems.add(Math.min(line, otherLine) + "-" + Math.max(line, otherLine)));
+            }
+        });
+        return problems;
+    }
+
+    private static Set<String> bruteForce(List<String> lines) {
+        Set<String> problems = new HashSet<>();
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                appointments.add(Appointment.parse(lines.get(i)));
+            } catch (RuntimeException e) {
+                appointments.add(null);
+                problems.add("E" + (i + 1));
+            }
+        }
+        for (int i = 0; i < appointments.size(); i++) {
+            for (int j = i + 1; j < appointments.size(); j++) {
+                Appointment a = appointments.get(i), b = appointments.get(j);
+                if (a != null && b != null && a.getStartInstant().isBefore(b.getEndInstant()) && b.getStartInstant().isBefore(a.getEndInstant())) {
+                    problems.add((i + 1) + "-" + (j + 1));
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static List<String> randomBook(Random random, int size) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(20) == 0) {
+                lines.add("3" + random.nextInt(9) + "-02-2019|10-00|cento|Kirbie Sterman|3 Scofield Way");
+            } else {
+                lines.add(String.format("%02d-01-2019|%02d-%02d|%d|Kirbie Sterman|3 Scofield Way",
+                        1 + random.nextInt(5), random.nextInt(24), random.nextInt(60), 1 + random.nextInt(300)));
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void validateSorted() throws IOException {
+        List<String> lines = Arrays.asList(
+                "22-04-2018|20-00|105|Yovonnda Knapper|7 Delaware Crossing",
+                "22-04-2018|21-45|1|Allene Merryfield|81 Sheridan Circle",
+                "22-04-2018|21-45|239|Nerti Castagneto|58723 Glacier Hill Court",
+                "22-04-2018|21-47|centosettantaquattro|Sly Bourhill|45311 Clarendon Pass",
+                "23-04-2018|01-00|10|Sly Bourhill|45311 Clarendon Pass");
+        Files.write(file.toPath(), lines);
+        BookValidator.Result[] result = new BookValidator.Result[1];
+        assertEquals(new HashSet<>(Arrays.asList("2-3", "E4", "3-5")), validate(file, 2, result));
+        assertTrue(result[0].isSorted());
+        assertFalse(result[0].isValid());
+        assertEquals(5, result[0].getLines());
+        assertEquals(1, result[0].getErrors());
+        assertEquals(2, result[0].getOverlaps());
+    }
+
+    @Test
+    public void validateUnsorted() throws IOException, URISyntaxException {
+        Random random = new Random(42);
+        for (int runSize : new int[]{1, 7, 1000}) {
+            List<String> lines = randomBook(random, 300);
+            Files.write(file.toPath(), lines);
+            BookValidator.Result[] result = new BookValidator.Result[1];
+            assertEquals(bruteForce(lines), validate(file, runSize, result));
+            assertFalse(result[0].isSorted());
+            assertEquals(lines.size(), result[0].getLines());
+        }
+        File resource = Paths.get(getClass().getClassLoader().getResource("book_test1.csv").toURI()).toFile();
+        BookValidator.Result[] result = new BookValidator.Result[1];
+        assertEquals(bruteForce(Files.readAllLines(resource.toPath())), validate(resource, 2, result));
+    }
+
+    @Test
+    public void validateRules() throws IOException {
+        List<String> lines = Arrays.asList(
+                "03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY;COUNT=3",
+                "10-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza",
+                "24-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza",
+                "17-12-2018|06-30|10|Essa Cranshaw|5884 Esker Plaza",
+                "05-12-2018|05-00|60|Sly Bourhill|45311 Clarendon Pass|DAILY;COUNT=2",
+                "06-12-2018|05-30|10|Essa Cranshaw|5884 Esker Plaza",
+                "01-12-2018|05-00|30|Kirbie Sterman|3 Scofield Way|DAILY",
+                "01-12-2018|05-00|30|Kirbie Sterman|3 Scofield Way|YEARLY");
+        Files.write(file.toPath(), lines);
+        for (int runSize : new int[]{1, 1000}) {
+            BookValidator.Result[] result = new BookValidator.Result[1];
+            assertEquals(new HashSet<>(Arrays.asList("1-2", "5-6", "1-7", "5-7", "E8")), validate(file, runSize, result));
+            assertFalse(result[0].isSorted());
+            assertEquals(8, result[0].getLines());
+            assertEquals(1, result[0].getErrors());
+            assertEquals(4, result[0].getOverlaps());
+        }
+        Files.write(file.toPath(), lines.subList(0, 2));
+        BookValidator.Result[] result = new BookValidator.Result[1];
+        assertEquals(Collections.singleton("1-2"), validate(file, 1, result));
+        assertEquals(0, result[0].getErrors());
+        assertEquals(1, result[0].getOverlaps());
+    }
+
+    @Test
+    public void validateEmpty() throws IOException {
+        BookValidator.Result[] result = new BookValidator.Result[1];
+        assertTrue(validate(file, 1, result).isEmpty());
+        assertTrue(result[0].isValid());
+        try {
+            new BookValidator(file, 0);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
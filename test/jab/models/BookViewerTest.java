@@ -0,0 +1,103 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code BookViewerTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookViewer
+ */
+public class BookViewerTest {
+
+    private File file;
+    private BookViewer viewer;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("jab-viewer", ".csv");
+        Files.write(file.toPath(), Arrays.asList(
+                "24-12-2018 | 09-13 | 127 | Gun De Ambrosi | 64277 Pleasure Pass",
+                "22-04-2018|20-00|centocinque|Yovonnda Knapper|7 Delaware Crossing",
+                "03-12-2018|05-00|60|Trip Dameisele|061 Westerfield Lane|WEEKLY;UNTIL=31-12-2018",
+                "03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way\r"));
+        viewer = new BookViewer(file);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        viewer.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    public void lines() {
+        assertTrue(viewer.hasLine(0));
+        assertEquals(Appointment.parse("24-12-2018 | 09-13 | 127 | Gun De Ambrosi | 64277 Pleasure Pass"), viewer.get(0));
+        assertEquals(4, viewer.size());
+        assertFalse(viewer.hasLine(4));
+        assertTrue(viewer.isRule(2));
+        assertFalse(viewer.isRule(3));
+        assertEquals("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way", viewer.line(3));
+        assertEquals(5, viewer.getRule(2).occurrences(LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31)).size());
+        try {
+            viewer.get(1);
+            fail("Mi aspettavo un'eccezione");
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            viewer.line(4);
+            fail("Mi aspettavo un'eccezione");
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+
+    @Test
+    public void search() {
+        assertEquals(1, viewer.search(Book.forDescription("Kirbie")).size());
+        assertTrue(viewer.search(Book.forDescription("Trip")).isEmpty());
+        assertEquals(5, viewer.search(Book.forDescription("Trip"), LocalDate.of(2018, 12, 1), LocalDate.of(2018, 12, 31)).size());
+        assertEquals(2, viewer.search(Book.forDate("24-12-2018"), LocalDate.of(2018, 12, 24), LocalDate.of(2018, 12, 24)).size());
+        List<Appointment> winter = viewer.search(p -> true, LocalDate.of(2018, 12, 24), LocalDate.of(2019, 2, 3));
+        assertEquals(Arrays.asList(viewer.get(0), viewer.get(3), viewer.getRule(2).occurrences(LocalDate.of(2018, 12, 24), LocalDate.of(2018, 12, 24)).get(0),
+                viewer.getRule(2).occurrences(LocalDate.of(2018, 12, 31), LocalDate.of(2018, 12, 31)).get(0)), winter);
+        assertTrue(viewer.search(p -> true, LocalDate.of(2017, 1, 1), LocalDate.of(2017, 12, 31)).isEmpty());
+        assertTrue(viewer.search(p -> true, LocalDate.of(2019, 2, 4), LocalDate.of(9999, 12, 30)).isEmpty());
+    }
+
+    @Test
+    public void empty() throws IOException {
+        Files.write(file.toPath(), new byte[0]);
+        try (BookViewer empty = new BookViewer(file)) {
+            assertEquals(0, empty.size());
+            assertFalse(empty.hasLine(0));
+            assertTrue(empty.search(p -> true, LocalDate.of(2018, 1, 1), LocalDate.of(2018, 12, 31)).isEmpty());
+        }
+    }
+}
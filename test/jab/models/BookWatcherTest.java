@@ -0,0 +1,144 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code BookWatcherTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see BookWatcher
+ */
+public class BookWatcherTest {
+
+    private Path directory;
+    private File file;
+    private Book book;
+    private BookWatcher watcher;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("jab-watcher");
+        file = directory.resolve("book.csv").toFile();
+        Files.write(file.toPath(), Arrays.asList(
+                "24-12-2018|09-13|127|Gun De Ambrosi|64277 Pleasure Pass",
+                "03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way",
+                "05-12-2018|05-55|54|Fredra Robilart|1622 Marcy Center"));
+        book = new Book(file.getPath());
+        book.loadBookFromFile();
+        watcher = new BookWatcher(book);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        watcher.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private boolean waitPending() throws InterruptedException {
+        for (int i = 0; i < 200 && !watcher.hasPending(); i++) {
+            Thread.sleep(50);
+        }
+        return watcher.hasPending();
+    }
+
+    @Test
+    public void reload() throws Exception {
+        // a local change not saved yet
+        assertNull(book.add(Appointment.parse("30-12-2018|05-04|167|Essa Cranshaw|5884 Esker Plaza")));
+        Files.write(file.toPath(), Arrays.asList(
+                "24-12-2018 | 09-13 | 127 | Gun De Ambrosi | 64277 Pleasure Pass",
+                "05-12-2018|05-55|54|Fredra Robilart|1622 Marcy Center",
+                "27-01-2019|17-48|54|Trip Dameisele|061 Westerfield Lane",
+                "30-12-2018|06-00|30|Teresina Deer|322 Kings Hill"));
+        assertTrue(waitPending());
+        Map<Appointment, Appointment> conflicts = watcher.applyPending();
+        assertFalse(watcher.hasPending());
+        assertEquals(1, conflicts.size());
+        assertEquals(Appointment.parse("30-12-2018|05-04|167|Essa Cranshaw|5884 Esker Plaza"),
+                conflicts.get(Appointment.parse("30-12-2018|06-00|30|Teresina Deer|322 Kings Hill")));
+        assertFalse(book.contains(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way")));
+        assertTrue(book.contains(Appointment.parse("27-01-2019|17-48|54|Trip Dameisele|061 Westerfield Lane")));
+        assertTrue(book.contains(Appointment.parse("24-12-2018|09-13|127|Gun De Ambrosi|64277 Pleasure Pass")));
+        assertTrue(book.contains(Appointment.parse("30-12-2018|05-04|167|Essa Cranshaw|5884 Esker Plaza")));
+        assertEquals(4, book.getSortedBook().size());
+    }
+
+    @Test
+    public void reloadIsSaved() throws Exception {
+        AutoSaver autoSaver = new AutoSaver(book, 1, TimeUnit.MILLISECONDS, e -> fail(e.getMessage()));
+        List<String> lines = Arrays.asList(
+                "24-12-2018 | 09-13 | 127 | Gun De Ambrosi | 64277 Pleasure Pass",
+                "05-12-2018|05-55|54|Fredra Robilart|1622 Marcy Center",
+                "27-01-2019|17-48|54|Trip Dameisele|061 Westerfield Lane");
+        Files.write(file.toPath(), lines);
+        assertTrue(waitPending());
+        assertTrue(watcher.applyPending().isEmpty());
+        assertEquals(3, book.getSortedBook().size());
+        assertFalse(book.contains(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way")));
+        assertFalse(book.undo());
+        assertSame(book.snapshot(), book.lastSaved());
+        assertTrue(autoSaver.isSaved());
+        autoSaver.close();
+        assertEquals(lines, Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    public void removedLocalChange() throws Exception {
+        // Kirbie Sterman moved to another place, not saved yet
+        assertTrue(book.delete(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way")));
+        assertNull(book.add(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|5884 Esker Plaza")));
+        Files.write(file.toPath(), Arrays.asList(
+                "24-12-2018|09-13|127|Gun De Ambrosi|64277 Pleasure Pass",
+                "05-12-2018|05-55|54|Fredra Robilart|1622 Marcy Center"));
+        assertTrue(waitPending());
+        Map<Appointment, Appointment> conflicts = watcher.applyPending();
+        assertEquals(1, conflicts.size());
+        assertEquals(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|5884 Esker Plaza"),
+                conflicts.get(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way")));
+        assertTrue(book.contains(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|5884 Esker Plaza")));
+        assertEquals(3, book.getSortedBook().size());
+        assertNotSame(book.snapshot(), book.lastSaved());
+    }
+
+    @Test
+    public void ownSave() throws Exception {
+        assertTrue(book.delete(Appointment.parse("03-02-2019|08-57|123|Kirbie Sterman|3 Scofield Way")));
+        assertNull(book.add(Appointment.parse("30-12-2018|05-04|167|Essa Cranshaw|5884 Esker Plaza")));
+        book.saveBookToFile();
+        Thread.sleep(1000);
+        assertFalse(watcher.hasPending());
+        assertTrue(watcher.applyPending().isEmpty());
+        assertEquals(3, book.getSortedBook().size());
+    }
+}
@@ -0,0 +1,125 @@
+package jab.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code ChangeFeedTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see ChangeFeed
+ */
+public class ChangeFeedTest {
+
+    private Book book;
+    private Recorder recorder;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     */
+    @Before
+    public void setUp() {
+        book = new Book("changes.csv");
+        recorder = new Recorder();
+        book.changes().subscribe(recorder, Runnable::run);
+    }
+
+    @Test
+    public void demand() {
+        Appointment first = Appointment.parse("04-02-2019 | 08-00 | 30 | Essa Cranshaw | 3 Scofield Way");
+        Appointment second = Appointment.parse("05-02-2019 | 08-00 | 30 | Kirbie Sterman | 3 Scofield Way");
+        assertNull(book.add(first));
+        assertNull(book.add(second));
+        assertTrue(recorder.changes.isEmpty());
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.changes.size());
+        assertEquals(BookChange.Kind.ADDED, recorder.changes.get(0).getKind());
+        assertEquals(first, recorder.changes.get(0).getAdded());
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(second, recorder.changes.get(1).getAdded());
+        assertNull(book.edit(second, "", "09-00", "", "", ""));
+        BookChange edited = recorder.changes.get(2);
+        assertEquals(BookChange.Kind.EDITED, edited.getKind());
+        assertEquals(second, edited.getRemoved());
+        assertSame(book.snapshot(), edited.getSnapshot());
+        assertTrue(book.undo());
+        assertEquals(edited.getAdded(), recorder.changes.get(3).getRemoved());
+        assertTrue(book.delete(first));
+        assertEquals(BookChange.Kind.REMOVED, recorder.changes.get(4).getKind());
+        assertNull(book.add(RecurringAppointment.parse("03-12-2018|05-00|60|Trip Dameisele|3 Scofield Way|WEEKLY")));
+        assertEquals(BookChange.Kind.RULES, recorder.changes.get(5).getKind());
+        recorder.subscription.cancel();
+        assertTrue(book.undo());
+        assertEquals(6, recorder.changes.size());
+        assertEquals(0, book.changes().getSubscriberCount());
+    }
+
+    @Test
+    public void overflow() {
+        ChangeFeed feed = new ChangeFeed(4, Runnable::run);
+        Recorder slow = new Recorder();
+        feed.subscribe(slow, Runnable::run);
+        slow.subscription.request(1);
+        for (int i = 0; i < 6; i++) {
+            feed.publish(new BookChange(BookChange.Kind.SAVED, null, null, BookSnapshot.EMPTY));
+        }
+        assertEquals(1, slow.changes.size());
+        assertNull(slow.error);
+        slow.subscription.request(10);
+        assertTrue(slow.error instanceof IllegalStateException);
+        assertEquals(1, slow.changes.size());
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    public void complete() {
+        ChangeFeed feed = new ChangeFeed(4, Runnable::run);
+        Recorder subscriber = new Recorder();
+        feed.subscribe(subscriber);
+        feed.publish(new BookChange(BookChange.Kind.LOADED, null, null, BookSnapshot.EMPTY));
+        feed.close();
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.changes.size());
+        assertTrue(subscriber.completed);
+        Recorder invalid = new Recorder();
+        new ChangeFeed(4, Runnable::run).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    private static final class Recorder implements ChangeFeed.Subscriber {
+        private final List<BookChange> changes = new ArrayList<>();
+        private ChangeFeed.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(ChangeFeed.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(BookChange change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code FederatedBookTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see FederatedBook
+ */
+public class FederatedBookTest {
+
+    private Path directory;
+    private List<File> files;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("jab-federated");
+        files = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            Book book = new Book(directory.resolve("person" + i + ".csv").toString());
+            for (int j = 0; j < 100; j++) {
+                book.add(new Appointment(LocalDate.of(2019, 3, 1).plusDays(random.nextInt(30)).format(Appointment.FORMATTER_DATE),
+                        String.format("%02d-%02d", random.nextInt(24), random.nextInt(60)), 30, "Person " + i, "Room " + j % 5));
+            }
+            book.saveBookToFile();
+            files.add(book.getFile());
+        }
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void search() throws Exception {
+        FederatedBook federated = new FederatedBook(files);
+        assertEquals(20, federated.size());
+        LocalDate day = LocalDate.of(2019, 3, 12);
+        List<Appointment> expected = new ArrayList<>();
+        for (File file : files) {
+            Book book = new Book(file.getPath());
+            book.loadBookFromFile();
+            expected.addAll(book.search(Book.forDate("12-03-2019"), day, day));
+        }
+        expected.sort(AppointmentTree.ORDER);
+        List<Appointment> actual = new ArrayList<>();
+        Appointment previous = null;
+        for (Iterator<FederatedBook.Result> iterator = federated.search(Book.forDate("12-03-2019"), day, day); iterator.hasNext(); ) {
+            FederatedBook.Result result = iterator.next();
+            assertTrue(result.getAppointment().getDescription().endsWith(result.getFile().getName().replaceAll("\\D", "")));
+            assertTrue(previous == null || !result.getAppointment().toDateTime().isBefore(previous.toDateTime()));
+            previous = result.getAppointment();
+            actual.add(result.getAppointment());
+        }
+        assertFalse(actual.isEmpty());
+        assertEquals(expected, actual);
+        Book first = federated.getBook(0);
+        federated.search(Book.forDescription("Person"));
+        assertSame(first, federated.getBook(0));
+    }
+
+    @Test
+    public void missing() {
+        files.add(new File(directory.toFile(), "missing.csv"));
+        try {
+            new FederatedBook(files).search(Book.forDescription("Person"));
+            fail("Mi aspettavo un'eccezione");
+        } catch (java.io.IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package jab.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code OccupancyIndexTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see OccupancyIndex
+ */
+public class OccupancyIndexTest {
+
+    private Book plain;
+    private Book layered;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        plain = new Book("occupancy.csv", ZoneOffset.UTC);
+        layered = new Book("occupancy.csv", ZoneOffset.UTC);
+        layered.setOccupancyEnabled(true);
+    }
+
+    @Test
+    public void sameAsOverlaps() {
+        Random random = new Random(42);
+        List<Appointment> added = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            if (i == 1500) {
+                // around the change of daylight saving time some appointments collide
+                plain.setZone(ZoneId.of("Europe/Rome"));
+                layered.setZone(ZoneId.of("Europe/Rome"));
+            }
+            if (!added.isEmpty() && random.nextInt(4) == 0) {
+                Appointment removed = added.remove(random.nextInt(added.size()));
+                assertEquals(plain.delete(removed), layered.delete(removed));
+                continue;
+            }
+            Appointment appointment = new Appointment(LocalDate.of(2019, 3, 29).plusDays(random.nextInt(5)),
+                    LocalTime.of(random.nextInt(24), random.nextInt(60)), Duration.ofMinutes(1 + random.nextInt(300)),
+                    "Essa Cranshaw " + i, "5884 Esker Plaza");
+            Appointment overlapped = plain.overlapsAll(appointment);
+            assertEquals(overlapped, layered.overlapsAll(appointment));
+            if (overlapped == null) {
+                assertNull(plain.add(appointment));
+                assertNull(layered.add(appointment));
+                added.add(appointment);
+            }
+        }
+        assertEquals(plain.getSortedBook(), layered.getSortedBook());
+    }
+
+    @Test
+    public void identical() {
+        Appointment appointment = Appointment.parse("31-03-2019 | 23-30 | 60 | Gun De Ambrosi | 64277 Pleasure Pass");
+        assertNull(layered.add(appointment));
+        assertEquals(appointment, layered.overlapsAll(Appointment.parse("31-03-2019 | 23-30 | 60 | Kirbie Sterman | 3 Scofield Way")));
+        assertNull(layered.overlapsAll(Appointment.parse("01-04-2019 | 00-30 | 60 | Kirbie Sterman | 3 Scofield Way")));
+        assertEquals(appointment, layered.overlapsAll(Appointment.parse("01-04-2019 | 00-29 | 60 | Kirbie Sterman | 3 Scofield Way")));
+        assertTrue(layered.isBusy(LocalDateTime.of(2019, 4, 1, 0, 29)));
+        assertFalse(layered.isBusy(LocalDateTime.of(2019, 4, 1, 0, 30)));
+        assertFalse(layered.isBusy(LocalDateTime.of(2019, 3, 31, 23, 29)));
+        assertEquals(LocalDateTime.of(2019, 4, 1, 0, 30),
+                layered.nextFreeSlot(LocalDateTime.of(2019, 3, 31, 23, 0), LocalDateTime.of(2019, 4, 2, 0, 0), 31));
+        assertNull(layered.nextFreeSlot(LocalDateTime.of(2019, 3, 31, 23, 30), LocalDateTime.of(2019, 4, 1, 0, 30), 1));
+        assertTrue(layered.undo());
+        assertFalse(layered.isBusy(LocalDateTime.of(2019, 4, 1, 0, 29)));
+        layered.setOccupancyEnabled(false);
+        assertFalse(layered.isOccupancyEnabled());
+        assertTrue(layered.redo());
+        assertTrue(layered.isBusy(LocalDateTime.of(2019, 4, 1, 0, 29)));
+    }
+}
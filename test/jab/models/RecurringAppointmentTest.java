@@ -0,0 +1,171 @@
+package jab.models;
+
+import jab.models.format.ParseErrorKind;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code RecurringAppointmentTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see RecurringAppointment
+ */
+public class RecurringAppointmentTest {
+
+    private RecurringAppointment weekly;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        weekly = RecurringAppointment.parse("03-12-2018 | 09-00 | 60 | Kirbie Sterman | 3 Scofield Way | WEEKLY;COUNT=10;EXDATE=24-12-2018");
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private static List<Appointment> expand(RecurringAppointment rule) {
+        return rule.occurrences(LocalDate.MIN.plusYears(1), LocalDate.of(3000, 1, 1));
+    }
+
+    @Test
+    public void parse() {
+        assertEquals("03-12-2018|09-00|60|Kirbie Sterman|3 Scofield Way|WEEKLY;COUNT=10;EXDATE=24-12-2018", weekly.toString());
+        assertEquals(weekly, RecurringAppointment.parse(weekly.toString()));
+        try {
+            RecurringAppointment.parse("03-12-2018|09-00|60|Kirbie Sterman|3 Scofield Way|YEARLY");
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown frequency YEARLY", e.getMessage());
+        }
+        try {
+            RecurringAppointment.parse("03-12-2018|09-00|1440|Kirbie Sterman|3 Scofield Way|DAILY");
+            fail("Mi aspettavo un'eccezione");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void tryParse() {
+        ParseResult result = RecurringAppointment.tryParse(weekly.toString());
+        assertTrue(result.isValid());
+        assertEquals(weekly, result.getRule());
+        assertEquals(weekly.getFirst(), result.getAppointment());
+        result = RecurringAppointment.tryParse("03-12-2018|09-00|60|Kirbie Sterman|3 Scofield Way|YEARLY");
+        assertEquals(ParseErrorKind.RECURRENCE, result.getKind());
+        assertEquals(51, result.getPosition());
+        result = RecurringAppointment.tryParse("03-12-2018|09-00|1440|Kirbie Sterman|3 Scofield Way|DAILY");
+        assertEquals(ParseErrorKind.RECURRENCE, result.getKind());
+        assertNull(result.getRule());
+        assertEquals(ParseErrorKind.DATE, RecurringAppointment.tryParse("32-12-2018|09-00|60|Kirbie Sterman|3 Scofield Way|DAILY").getKind());
+        assertEquals(ParseErrorKind.FIELD_COUNT, RecurringAppointment.tryParse("03-12-2018|09-00|60|Kirbie Sterman|3 Scofield Way").getKind());
+    }
+
+    @Test
+    public void occurrences() {
+        List<Appointment> occurrences = expand(weekly);
+        assertEquals(9, occurrences.size());
+        assertEquals(LocalDate.of(2018, 12, 17), occurrences.get(2).getDate());
+        assertEquals(LocalDate.of(2018, 12, 31), occurrences.get(3).getDate());
+        assertEquals(LocalDate.of(2019, 2, 4), occurrences.get(8).getDate());
+        assertEquals(2, weekly.occurrences(LocalDate.of(2018, 12, 16), LocalDate.of(2019, 1, 6)).size());
+        assertNull(weekly.occurrence(LocalDate.of(2018, 12, 24)));
+        assertNotNull(weekly.occurrence(LocalDate.of(2018, 12, 31)));
+        RecurringAppointment monthly = RecurringAppointment.parse("31-01-2019|09-00|60|Kirbie Sterman|3 Scofield Way|MONTHLY;UNTIL=31-12-2019");
+        assertEquals(7, expand(monthly).size());
+    }
+
+    @Test
+    public void overlaps() {
+        assertNotNull(weekly.overlaps(Appointment.parse("10-12-2018|09-59|10|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(weekly.overlaps(Appointment.parse("10-12-2018|10-00|10|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(weekly.overlaps(Appointment.parse("24-12-2018|09-00|60|Essa Cranshaw|5884 Esker Plaza")));
+        assertNotNull(weekly.overlaps(Appointment.parse("09-12-2018|23-00|601|Essa Cranshaw|5884 Esker Plaza")));
+        RecurringAppointment daily = RecurringAppointment.parse("01-01-2018|09-30|10|Essa Cranshaw|5884 Esker Plaza|DAILY;INTERVAL=3");
+        Appointment overlapped = weekly.overlaps(daily);
+        assertNotNull(overlapped);
+        assertTrue(daily.hasOccurrence(overlapped));
+        RecurringAppointment unbounded = RecurringAppointment.parse("05-12-2018|09-30|10|Essa Cranshaw|5884 Esker Plaza|WEEKLY;INTERVAL=2");
+        assertNull(unbounded.overlaps(RecurringAppointment.parse("01-01-2018|09-00|60|Kirbie Sterman|3 Scofield Way|WEEKLY")));
+        assertNotNull(unbounded.overlaps(RecurringAppointment.parse("01-01-2018|09-00|60|Kirbie Sterman|3 Scofield Way|DAILY;INTERVAL=5")));
+    }
+
+    @Test
+    public void overlapsHugeCycles() {
+        assertEquals(Long.MAX_VALUE, Recurrence.lcm(Long.MAX_VALUE - 1, Long.MAX_VALUE - 2));
+        RecurringAppointment sparse = RecurringAppointment.parse("01-01-2019|05-00|60|Essa Cranshaw|5884 Esker Plaza|MONTHLY;INTERVAL=2147483647");
+        RecurringAppointment other = RecurringAppointment.parse("01-01-2019|07-00|60|Kirbie Sterman|3 Scofield Way|MONTHLY;INTERVAL=2147483629");
+        assertNull(sparse.overlaps(other));
+        assertNull(other.overlaps(sparse));
+        assertNotNull(sparse.overlaps(RecurringAppointment.parse("01-01-2019|05-30|60|Kirbie Sterman|3 Scofield Way|MONTHLY;INTERVAL=2147483629")));
+    }
+
+    @Test
+    public void overlapsMatchesExpansion() {
+        Random random = new Random(7);
+        String[] frequencies = {"DAILY", "WEEKLY", "MONTHLY"};
+        for (int i = 0; i < 300; i++) {
+            RecurringAppointment[] rules = new RecurringAppointment[2];
+            for (int j = 0; j < rules.length; j++) {
+                String frequency = frequencies[random.nextInt(frequencies.length)];
+                LocalDate first = LocalDate.of(2018, 1 + random.nextInt(12), 1 + random.nextInt(28));
+                String rule = String.format("%s|%02d-%02d|%d|Kirbie Sterman|3 Scofield Way|%s;INTERVAL=%d;COUNT=%d",
+                        first.format(Appointment.FORMATTER_DATE), random.nextInt(24), random.nextInt(60),
+                        1 + random.nextInt(600), frequency, 1 + random.nextInt(4), 1 + random.nextInt(40));
+                if (random.nextBoolean()) {
+                    rule += ";EXDATE=" + first.format(Appointment.FORMATTER_DATE);
+                }
+                rules[j] = RecurringAppointment.parse(rule);
+            }
+            boolean expected = false;
+            for (Appointment a : expand(rules[0])) {
+                for (Appointment b : expand(rules[1])) {
+                    expected |= Book.overlaps(a, b);
+                }
+            }
+            assertEquals(rules[0] + " " + rules[1], expected, rules[0].overlaps(rules[1]) != null);
+            assertEquals(expected, rules[1].overlaps(rules[0]) != null);
+        }
+    }
+
+    @Test
+    public void overlapsSparseRules() {
+        RecurringAppointment monthly = RecurringAppointment.parse("01-01-2019|10-00|30|A|P|MONTHLY;INTERVAL=7");
+        RecurringAppointment daily = RecurringAppointment.parse("02-01-2019|10-15|30|B|Q|DAILY;INTERVAL=7919");
+        assertEquals(Appointment.parse("01-11-4208|10-15|30|B|Q"), monthly.overlaps(daily));
+        assertEquals(Appointment.parse("01-11-4208|10-00|30|A|P"), daily.overlaps(monthly));
+        RecurringAppointment later = RecurringAppointment.parse("02-01-2019|11-15|30|B|Q|DAILY;INTERVAL=7919");
+        assertNull(monthly.overlaps(later));
+        assertNull(later.overlaps(monthly));
+    }
+
+    @Test
+    public void withException() {
+        RecurringAppointment restored = weekly.withException(LocalDate.of(2018, 12, 24), false);
+        assertEquals(10, expand(restored).size());
+        assertEquals(Collections.emptySet(), restored.getRecurrence().getExceptions());
+        assertEquals(weekly, restored.withException(LocalDate.of(2018, 12, 24), true));
+    }
+}
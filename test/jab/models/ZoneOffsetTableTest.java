@@ -0,0 +1,98 @@
+package jab.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test class {@code ZoneOffsetTableTest}.
+ *
+ * @author Lorenzo Ferron
+ * @version 2026.10.18
+ * @see ZoneOffsetTable
+ */
+public class ZoneOffsetTableTest {
+
+    private ZoneOffsetTable rome;
+
+    /**
+     * Sets up the test fixture.
+     * <p>
+     * Called before every test case method.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        rome = ZoneOffsetTable.of(ZoneId.of("Europe/Rome"), LocalDate.of(2018, 1, 1), LocalDate.of(2019, 12, 31));
+    }
+
+    /**
+     * Tears down the test fixture.
+     * <p>
+     * Called after every test case method.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void toEpochSecond() {
+        Random random = new Random(3);
+        for (String zoneId : new String[]{"Europe/Rome", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe", "UTC"}) {
+            ZoneId zone = ZoneId.of(zoneId);
+            ZoneOffsetTable table = ZoneOffsetTable.of(zone, LocalDate.of(2000, 1, 1), LocalDate.of(2030, 12, 31));
+            for (int i = 0; i < 20000; i++) {
+                LocalDateTime dateTime = LocalDateTime.of(1995 + random.nextInt(40), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                        random.nextInt(24), random.nextInt(60));
+                assertEquals(zoneId + " " + dateTime, dateTime.atZone(zone).toEpochSecond(), table.toEpochSecond(dateTime));
+            }
+        }
+    }
+
+    @Test
+    public void transitions() {
+        // gap: 02-00 does not exist on 25-03-2018
+        LocalDateTime gap = LocalDateTime.of(2018, 3, 25, 2, 30);
+        assertEquals(gap.atZone(rome.getZone()).toEpochSecond(), rome.toEpochSecond(gap));
+        // overlap: 02-30 happens twice on 28-10-2018, the earlier offset is used
+        LocalDateTime overlap = LocalDateTime.of(2018, 10, 28, 2, 30);
+        assertEquals(overlap.atZone(rome.getZone()).toEpochSecond(), rome.toEpochSecond(overlap));
+        assertEquals(rome.toEpochSecond(overlap.minusMinutes(30)) + 30 * 60, rome.toEpochSecond(overlap));
+    }
+
+    @Test
+    public void covering() {
+        assertTrue(rome.covers(LocalDate.of(2018, 1, 1)));
+        assertFalse(rome.covers(LocalDate.of(2020, 1, 1)));
+        assertSame(rome, rome.covering(LocalDate.of(2019, 6, 1)));
+        ZoneOffsetTable wider = rome.covering(LocalDate.of(2020, 1, 1));
+        assertTrue(wider.covers(LocalDate.of(2020, 1, 1)));
+        assertTrue(wider.covers(LocalDate.of(2018, 1, 1)));
+        assertEquals(rome.getZone(), wider.getZone());
+        assertSame(wider, wider.covering(LocalDate.of(9999999, 1, 1)));
+        assertSame(wider, wider.covering(LocalDate.MAX));
+        assertSame(wider, wider.covering(LocalDate.MIN));
+        LocalDateTime far = LocalDateTime.of(9999999, 7, 1, 10, 0);
+        assertEquals(far.atZone(rome.getZone()).toEpochSecond(), wider.toEpochSecond(far));
+    }
+
+    @Test
+    public void farDates() {
+        Book book = new Book("agenda.csv", ZoneId.of("Europe/Rome"));
+        assertNull(book.add(Appointment.parse("01-01-2019|10-00|30|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(book.add(Appointment.parse("01-01-+999999999|10-00|30|Essa Cranshaw|5884 Esker Plaza")));
+        assertNull(book.add(Appointment.parse("01-01-+9999999|10-00|30|Essa Cranshaw|5884 Esker Plaza")));
+        assertEquals(Appointment.parse("01-01-+9999999|10-00|30|Essa Cranshaw|5884 Esker Plaza"),
+                book.overlapsAll(Appointment.parse("01-01-+9999999|10-15|30|Kirbie Sterman|3 Scofield Way")));
+    }
+}